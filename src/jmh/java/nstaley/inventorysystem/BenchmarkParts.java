@@ -0,0 +1,61 @@
+package nstaley.inventorysystem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * This class makes the parts the benchmarks fill the inventory with. The fields are random but come from a fixed
+ * seed, so every run of a benchmark sees the same parts. A third of the parts are outsourced. Prices run from 0 to 100,
+ * stock from 0 to 1000, and about one part in eight is at or below its minimum.
+ * @author Nicholas Staley
+ */
+final class BenchmarkParts {
+    /**
+     * Holds the company names the outsourced parts are made by.
+     */
+    private static final String[] COMPANIES = {"Acme", "Globex", "Initech", "Umbrella", "Hooli"};
+    /**
+     * Holds the words the part names are made of.
+     */
+    private static final String[] WORDS = {"bolt", "washer", "bracket", "hinge", "gear", "spring", "valve", "sensor",
+            "cable", "panel", "filter", "pump"};
+
+    /**
+     * The constructor is private, since the class only has static methods.
+     */
+    private BenchmarkParts() {
+    }
+
+    /**
+     * Method to make parts with ids 1 to count.
+     * @param count number of parts
+     * @return Returns the parts in id order.
+     */
+    static List<Part> make(int count) {
+        SplittableRandom random = new SplittableRandom(count);
+        List<Part> parts = new ArrayList<>(count);
+        for (int id = 1; id <= count; ++id) {
+            parts.add(part(id, random));
+        }
+        return parts;
+    }
+
+    /**
+     * Method to make one part with random fields.
+     * @param id id of the part
+     * @param random source of the fields
+     * @return Returns the new part.
+     */
+    static Part part(int id, SplittableRandom random) {
+        String name = WORDS[random.nextInt(WORDS.length)] + " " + random.nextInt(10_000);
+        double price = random.nextInt(10_000) / 100.0;
+        int min = random.nextInt(100);
+        int stock = random.nextInt(8) == 0 ? random.nextInt(min + 1) : min + 1 + random.nextInt(1000 - min);
+        int max = 1000;
+        if (random.nextInt(3) == 0) {
+            return new Outsourced(id, name, price, stock, min, max, COMPANIES[random.nextInt(COMPANIES.length)]);
+        }
+        return new InHouse(id, name, price, stock, min, max, random.nextInt(50));
+    }
+}
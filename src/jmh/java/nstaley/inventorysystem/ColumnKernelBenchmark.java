@@ -0,0 +1,150 @@
+package nstaley.inventorysystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the column kernels against the same loops over part objects, at a million and ten million rows.
+ * The object loops read each field through the part's getters, the way the inventory worked before the column store.
+ * The vector kernels are only built by the simd profile, so the benchmark is run with both profiles:
+ * mvn test-compile exec:exec -Psimd,jmh -Djmh.args="ColumnKernel"
+ * @author Nicholas Staley
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "--add-modules=jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class ColumnKernelBenchmark {
+    /**
+     * Holds the number of rows.
+     */
+    @Param({"1000000", "10000000"})
+    public int rows;
+    /**
+     * Holds how the rows are read: object for the loops over parts, or scalar or vector for the column kernels.
+     */
+    @Param({"object", "scalar", "vector"})
+    public String kernels;
+    /**
+     * Holds the parts, or null when the columns are read.
+     */
+    private Part[] parts;
+    /**
+     * Holds the kernels, or null when the parts are read.
+     */
+    private ColumnKernels picked;
+    /**
+     * Holds the price column.
+     */
+    private double[] price;
+    /**
+     * Holds the stock column.
+     */
+    private int[] stock;
+    /**
+     * Holds the minimum stock column.
+     */
+    private int[] min;
+
+    /**
+     * Method to make the parts or the columns, and the kernels asked for.
+     * @throws IllegalStateException if the vector kernels are asked for but were not built
+     */
+    @Setup
+    public void fill() {
+        SplittableRandom random = new SplittableRandom(rows);
+        if ("object".equals(kernels)) {
+            parts = new Part[rows];
+            for (int row = 0; row < rows; ++row) {
+                parts[row] = BenchmarkParts.part(row + 1, random);
+            }
+            return;
+        }
+        price = new double[rows];
+        stock = new int[rows];
+        min = new int[rows];
+        for (int row = 0; row < rows; ++row) {
+            Part part = BenchmarkParts.part(row + 1, random);
+            price[row] = part.getPrice();
+            stock[row] = part.getStock();
+            min[row] = part.getMin();
+        }
+        System.setProperty(ColumnKernels.KERNELS_PROPERTY, kernels);
+        picked = ColumnKernels.pick();
+        if ("vector".equals(kernels) && picked instanceof ScalarKernels) {
+            throw new IllegalStateException("The vector kernels were not built, run with the simd profile.");
+        }
+    }
+
+    /**
+     * Method to add up price times stock over every row.
+     * @return Returns the total stock value.
+     */
+    @Benchmark
+    public double sumPriceTimesStock() {
+        if (parts == null) {
+            return picked.sumPriceTimesStock(price, stock, rows);
+        }
+        double total = 0;
+        for (Part part : parts) {
+            total += part.getPrice() * part.getStock();
+        }
+        return total;
+    }
+
+    /**
+     * Method to count the rows with the stock at or below the minimum.
+     * @return Returns the number of rows.
+     */
+    @Benchmark
+    public int countStockAtOrBelowMin() {
+        if (parts == null) {
+            return picked.countStockAtOrBelowMin(stock, min, rows);
+        }
+        int count = 0;
+        for (Part part : parts) {
+            if (part.getStock() <= part.getMin()) {
+                count += 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Method to find the rows priced from 10 to 20, about a tenth of them.
+     * @return Returns the matching rows in order.
+     */
+    @Benchmark
+    public int[] filterPriceBetween() {
+        if (parts == null) {
+            return picked.filterPriceBetween(price, rows, 10.0, 20.0);
+        }
+        int[] matches = new int[16];
+        int count = 0;
+        for (int row = 0; row < parts.length; ++row) {
+            double rowPrice = parts[row].getPrice();
+            if (rowPrice >= 10.0 && rowPrice <= 20.0) {
+                if (count == matches.length) {
+                    matches = Arrays.copyOf(matches, count * 2);
+                }
+                matches[count++] = row;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+}
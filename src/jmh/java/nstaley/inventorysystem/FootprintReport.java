@@ -0,0 +1,108 @@
+package nstaley.inventorysystem;
+
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * This class prints how much heap each part costs, split between the part objects and each structure the inventory
+ * keeps next to them, measured with JOL. Each structure is filled the way the inventory fills its own, and is measured
+ * without the parts it points to, so the numbers add up to the heap the inventory holds per part. The parts are made
+ * by BenchmarkParts, and the number of parts can be given as the only argument:
+ * mvn test-compile exec:exec -Pjmh -Djmh.main=nstaley.inventorysystem.FootprintReport -Djmh.args=100000
+ * @author Nicholas Staley
+ */
+public final class FootprintReport {
+    /**
+     * Holds the number of parts measured when none is given.
+     */
+    private static final int DEFAULT_PARTS = 100_000;
+
+    /**
+     * The constructor is private, since the class only has static methods.
+     */
+    private FootprintReport() {
+    }
+
+    /**
+     * Method to print the report.
+     * @param args number of parts, optional
+     */
+    public static void main(String[] args) {
+        // The indexes hold lambdas, whose hidden classes JOL can only measure with the magic field offsets.
+        System.setProperty("jol.magicFieldOffset", "true");
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PARTS;
+        List<Part> parts = new ArrayList<>(BenchmarkParts.make(count));
+        long items = GraphLayout.parseInstance(parts).totalSize();
+
+        System.out.println(VM.current().details());
+        System.out.println(ClassLayout.parseClass(InHouse.class).toPrintable());
+        System.out.println(ClassLayout.parseClass(Outsourced.class).toPrintable());
+        System.out.printf("%,d parts, bytes per part%n", count);
+        System.out.printf("%-36s %10.1f%n", "parts list, part objects and names", items / (double) count);
+        long total = items;
+
+        ColumnStore columns = new ColumnStore();
+        for (Part part : parts) {
+            columns.append(part.getPrice(), part.getStock(), part.getMin(), part.getMax());
+        }
+        total += report("column store", columns, parts, items, count);
+
+        IdIndex<Part> byId = new IdIndex<>();
+        for (Part part : parts) {
+            byId.put(part.getId(), part);
+        }
+        total += report("id index", byId, parts, items, count);
+        total += report("low stock index", filled(new ReorderIndex<>(Part::getId, Part::getStock, Part::getMin),
+                ReorderIndex::add, parts), parts, items, count);
+        total += report("price index", filled(new RangeIndex<>(Part::getId, Part::getPrice), RangeIndex::add, parts),
+                parts, items, count);
+        total += report("stock index", filled(new RangeIndex<>(Part::getId, Part::getStock), RangeIndex::add, parts),
+                parts, items, count);
+        total += report("name trie", filled(new NameTrie<>(Part::getName), NameTrie::add, parts), parts, items, count);
+        StringPool pool = new StringPool();
+        for (Part part : parts) {
+            pool.acquire(part.getName());
+        }
+        total += report("name pool", pool, parts, items, count);
+        System.out.printf("%-36s %10.1f%n", "total while the name index is put off", total / (double) count);
+        total += report("name index, once built", filled(new NameIndex<>(Part::getId, Part::getName), NameIndex::add,
+                parts), parts, items, count);
+        System.out.printf("%-36s %10.1f%n", "total", total / (double) count);
+    }
+
+    /**
+     * Method to print the heap a structure holds per part, leaving out the parts and names it points to. The structure
+     * is measured together with the parts list, so each object is counted once, and the list is taken off again.
+     * @param label name of the structure
+     * @param structure structure to measure
+     * @param parts parts list
+     * @param items bytes held by the parts list, the parts, and their names
+     * @param count number of parts
+     * @return Returns a long value representing the bytes the structure holds.
+     */
+    private static long report(String label, Object structure, List<Part> parts, long items, int count) {
+        long size = GraphLayout.parseInstance(structure, parts).totalSize() - items;
+        System.out.printf("%-36s %10.1f%n", label, size / (double) count);
+        return size;
+    }
+
+    /**
+     * Method to add every part to a structure.
+     * @param structure structure to be filled
+     * @param add method that adds a part to the structure
+     * @param parts parts to be added
+     * @param <S> type of the structure
+     * @return Returns the structure.
+     */
+    private static <S> S filled(S structure, BiConsumer<S, Part> add, List<Part> parts) {
+        for (Part part : parts) {
+            add.accept(structure, part);
+        }
+        return structure;
+    }
+}
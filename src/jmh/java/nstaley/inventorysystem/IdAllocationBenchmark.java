@@ -0,0 +1,95 @@
+package nstaley.inventorysystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class measures handing out ids from 16 threads at once. A block allocator only touches its shared counter once
+ * per block, a block size of 1 makes it touch the counter for every id, and a plain shared atomic counter is the
+ * baseline. The inventory's own allocator also checks each id against the id index.
+ * @author Nicholas Staley
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+public class IdAllocationBenchmark {
+    /**
+     * This class holds an allocator shared by every thread, with the block size given by the run.
+     */
+    @State(Scope.Benchmark)
+    public static class Allocator {
+        /**
+         * Holds the number of ids each thread reserves at a time.
+         */
+        @Param({"1", "64"})
+        public int blockSize;
+        /**
+         * Holds the allocator.
+         */
+        private IdAllocator ids;
+
+        /**
+         * Method to create the allocator.
+         */
+        @Setup
+        public void create() {
+            ids = new IdAllocator(1, blockSize);
+        }
+    }
+
+    /**
+     * This class holds a single atomic counter shared by every thread.
+     */
+    @State(Scope.Benchmark)
+    public static class Counter {
+        /**
+         * Holds the next id.
+         */
+        private final AtomicInteger next = new AtomicInteger(1);
+    }
+
+    /**
+     * Method to get an id from a block allocator.
+     * @param allocator allocator shared by the threads
+     * @return Returns the id.
+     */
+    @Benchmark
+    public int blockAllocator(Allocator allocator) {
+        return allocator.ids.nextId();
+    }
+
+    /**
+     * Method to get an id from a shared atomic counter.
+     * @param counter counter shared by the threads
+     * @return Returns the id.
+     */
+    @Benchmark
+    public int sharedCounter(Counter counter) {
+        return counter.next.getAndIncrement();
+    }
+
+    /**
+     * Method to get a part id from the inventory, which also checks that no part already has it.
+     * @return Returns the id.
+     */
+    @Benchmark
+    public int inventory() {
+        return Inventory.nextPartId();
+    }
+}
@@ -0,0 +1,74 @@
+package nstaley.inventorysystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures looking up a part by id as the inventory grows. The id index lookup should cost the same at
+ * every size, while walking the list the way lookupPart used to grows with the number of parts.
+ * @author Nicholas Staley
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class IdLookupBenchmark {
+    /**
+     * Holds the number of parts in the inventory.
+     */
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+    /**
+     * Holds the parts in list order, walked by the list scan.
+     */
+    private List<Part> list;
+
+    /**
+     * Method to fill the inventory. The name and range indexes are put off, since the benchmark only looks up ids.
+     */
+    @Setup
+    public void fill() {
+        list = BenchmarkParts.make(size);
+        Inventory.deferIndexes();
+        Inventory.addParts(list);
+    }
+
+    /**
+     * Method to look up a random part through the id index.
+     * @return Returns the part found.
+     */
+    @Benchmark
+    public Part indexed() {
+        return Inventory.lookupPart(1 + ThreadLocalRandom.current().nextInt(size));
+    }
+
+    /**
+     * Method to look up a random part by walking the list until its id is found.
+     * @return Returns the part found.
+     */
+    @Benchmark
+    public Part listScan() {
+        int id = 1 + ThreadLocalRandom.current().nextInt(size);
+        for (Part part : list) {
+            if (part.getId() == id) {
+                return part;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,88 @@
+package nstaley.inventorysystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+
+/**
+ * This class measures an unindexed name search over a million parts, lowercasing every name the way a search that can
+ * not use an index does. The rows are filtered across the common fork/join pool and, for comparison, in one loop on the
+ * calling thread. The benchmark reports the pool's parallelism, since the split only pays off with more than one
+ * thread.
+ * @author Nicholas Staley
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ParallelScanBenchmark {
+    /**
+     * Holds the number of parts searched.
+     */
+    private static final int PARTS = 1_000_000;
+
+    /**
+     * Holds the parts in list order.
+     */
+    private List<Part> list;
+    /**
+     * Holds the check each matching row passes.
+     */
+    private IntPredicate nameMatches;
+
+    /**
+     * Method to make the parts and check that both scans find the same rows in the same order.
+     */
+    @Setup
+    public void fill() {
+        list = BenchmarkParts.make(PARTS);
+        nameMatches = row -> list.get(row).getName().toLowerCase().contains("gear 12");
+        if (!Arrays.equals(parallel(), sequential())) {
+            throw new IllegalStateException("The parallel scan found different rows.");
+        }
+        System.out.println("Common pool parallelism: " + ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * Method to find the matching rows across the common pool.
+     * @return Returns the matching rows in order.
+     */
+    @Benchmark
+    public int[] parallel() {
+        return ParallelScan.filter(0, PARTS, nameMatches);
+    }
+
+    /**
+     * Method to find the matching rows in one loop on the calling thread.
+     * @return Returns the matching rows in order.
+     */
+    @Benchmark
+    public int[] sequential() {
+        int[] rows = new int[16];
+        int count = 0;
+        for (int row = 0; row < PARTS; ++row) {
+            if (nameMatches.test(row)) {
+                if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, count * 2);
+                }
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+}
@@ -0,0 +1,112 @@
+package nstaley.inventorysystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures a price range search over a million parts, read from the price index or found by checking every
+ * part in the list. The ranges are about 0.1% and 10% of the prices wide. The index is measured both reading the whole
+ * range and reading only the first page of 100 parts.
+ * @author Nicholas Staley
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class RangeSearchBenchmark {
+    /**
+     * Holds the number of parts searched.
+     */
+    private static final int PARTS = 1_000_000;
+    /**
+     * Holds the number of parts in a page.
+     */
+    private static final int PAGE = 100;
+
+    /**
+     * Holds the width of the price range, in dollars out of prices from 0 to 100.
+     */
+    @Param({"0.1", "10"})
+    public double width;
+    /**
+     * Holds the parts in list order.
+     */
+    private List<Part> list;
+    /**
+     * Holds the price index of the parts.
+     */
+    private RangeIndex<Part> prices;
+
+    /**
+     * Method to make the parts and index their prices.
+     */
+    @Setup
+    public void fill() {
+        list = BenchmarkParts.make(PARTS);
+        prices = new RangeIndex<>(Part::getId, Part::getPrice);
+        for (Part part : list) {
+            prices.add(part);
+        }
+    }
+
+    /**
+     * Method to read every part in a random price range from the index.
+     * @return Returns the matching parts.
+     */
+    @Benchmark
+    public List<Part> indexAll() {
+        double low = lowPrice();
+        return prices.range(low, low + width, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Method to read the first page of the parts in a random price range from the index.
+     * @return Returns up to a page of matching parts.
+     */
+    @Benchmark
+    public List<Part> indexFirstPage() {
+        double low = lowPrice();
+        return prices.range(low, low + width, null, PAGE);
+    }
+
+    /**
+     * Method to find every part in a random price range by checking each part in the list.
+     * @return Returns the matching parts.
+     */
+    @Benchmark
+    public List<Part> listScan() {
+        double low = lowPrice();
+        double high = low + width;
+        List<Part> matches = new ArrayList<>();
+        for (Part part : list) {
+            if (part.getPrice() >= low && part.getPrice() <= high) {
+                matches.add(part);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Method to pick the low end of a random price range that fits in the prices.
+     * @return Returns the lowest price to match.
+     */
+    private double lowPrice() {
+        return ThreadLocalRandom.current().nextInt((int) ((100 - width) * 100)) / 100.0;
+    }
+}
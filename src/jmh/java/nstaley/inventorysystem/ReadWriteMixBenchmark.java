@@ -0,0 +1,81 @@
+package nstaley.inventorysystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the inventory when several threads read it while another thread keeps changing it. Three
+ * threads look parts up by id, which is an optimistic read, and one thread replaces random parts, which takes the
+ * write lock. The lookups are also measured on a single thread with no writer, to show what the writer costs them.
+ * @author Nicholas Staley
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Group)
+public class ReadWriteMixBenchmark {
+    /**
+     * Holds the number of parts in the inventory.
+     */
+    private static final int PARTS = 100_000;
+
+    /**
+     * Method to fill the inventory. The name and range indexes are put off, since the benchmark does not search by name
+     * or range.
+     */
+    @Setup
+    public void fill() {
+        Inventory.deferIndexes();
+        Inventory.addParts(BenchmarkParts.make(PARTS));
+    }
+
+    /**
+     * Method to look up a random part by id while the writer runs.
+     * @return Returns the part found, so the lookup is not optimized away.
+     */
+    @Benchmark
+    @Group("mix")
+    @GroupThreads(3)
+    public Part lookup() {
+        return Inventory.lookupPart(1 + ThreadLocalRandom.current().nextInt(PARTS));
+    }
+
+    /**
+     * Method to replace a random part with a new part that has the same id.
+     * @return Returns true if the part was replaced.
+     */
+    @Benchmark
+    @Group("mix")
+    @GroupThreads(1)
+    public boolean update() {
+        int id = 1 + ThreadLocalRandom.current().nextInt(PARTS);
+        return Inventory.updatePart(id, BenchmarkParts.part(id, new SplittableRandom(id)));
+    }
+
+    /**
+     * Method to look up a random part by id with no writer running.
+     * @return Returns the part found, so the lookup is not optimized away.
+     */
+    @Benchmark
+    @Group("readOnly")
+    @GroupThreads(1)
+    public Part lookupAlone() {
+        return Inventory.lookupPart(1 + ThreadLocalRandom.current().nextInt(PARTS));
+    }
+}
@@ -131,85 +131,10 @@ public class AddPartFormController implements Initializable {
      * @throws IOException can throw an IOException if the file location is not found.
      */
     public void addNewPart(ActionEvent actionEvent) throws IOException {
-        boolean wasError = false;
-        String nameErrorMessage = "Must enter a part name into the Name text field.\n";
-        String nameNumberErrorMessage = "Name must not begin with a number.\n";
-        String invErrorMessage = "Must enter an integer into the Inventory text field.\n";
-        String priceErrorMessage = "Must enter a double into the Price/Cost text Field.\n";
-        String maxErrorMessage = "Must enter an integer into the Max text field.\n";
-        String minErrorMessage = "Must enter an integer into the Min text field.\n";
-        String inHouseMachineMessage = "Must enter an integer into the Machine ID text field.\n";
-        String outCompanyNameMessage = "Must enter a name into the Company Name text field. \n";
-        String maxLessThanMinMessage = "Max must be greater than the Min.\n";
-        String inventoryMaxMin = "Inventory must be between the Min and Max values.\n";
-
-        String alertMessage = "";
-
-        if (partName.getText().isEmpty()) {
-            wasError = true;
-            alertMessage = alertMessage.concat(nameErrorMessage);
-        }
-        else if (Character.isDigit(partName.getText().charAt(0))) {
-            wasError = true;
-            alertMessage = alertMessage.concat(nameNumberErrorMessage);
-
-        }
-        try {
-            Integer.parseInt(partInventory.getText());
-        }
-        catch (NumberFormatException e) {
-            wasError = true;
-            alertMessage = alertMessage.concat(invErrorMessage);
-        }
-        try {
-            Double.parseDouble(partPrice.getText());
-        }
-        catch (NumberFormatException e) {
-            wasError = true;
-            alertMessage = alertMessage.concat(priceErrorMessage);
-        }
-        try {
-            Integer.parseInt(partMax.getText());
-        }
-        catch (NumberFormatException e) {
-            wasError = true;
-            alertMessage = alertMessage.concat(maxErrorMessage);
-        }
-        try {
-            Integer.parseInt(partMin.getText());
-        }
-        catch (NumberFormatException e) {
-            wasError = true;
-            alertMessage = alertMessage.concat(minErrorMessage);
-        }
-        if (inHousePartButton.isSelected()) {
-            try {
-                Integer.parseInt(partInOrOut.getText());
-            }
-            catch (NumberFormatException e) {
-                wasError = true;
-                alertMessage = alertMessage.concat(inHouseMachineMessage);
-            }
-        }
-        if (outsourcedPartButton.isSelected()) {
-            if (partInOrOut.getText().isEmpty()) {
-                wasError = true;
-                alertMessage = alertMessage.concat(outCompanyNameMessage);
-            }
-        }
-        if (!wasError) {
-            if (Integer.parseInt(partMax.getText()) < Integer.parseInt(partMin.getText())) {
-                wasError = true;
-                alertMessage = alertMessage.concat(maxLessThanMinMessage);
-            }
-
-        }
-        if (!wasError) {
-            if ((Integer.parseInt(partInventory.getText()) > Integer.parseInt(partMax.getText())) || (Integer.parseInt(partInventory.getText()) < Integer.parseInt(partMin.getText()))) {
-                wasError = true;
-                alertMessage = alertMessage.concat(inventoryMaxMin);
-            }
-        }
+        String alertMessage = ItemValidator.validatePart(partName.getText(), partInventory.getText(),
+                partPrice.getText(), partMax.getText(), partMin.getText(), inHousePartButton.isSelected(),
+                partInOrOut.getText());
+        boolean wasError = !alertMessage.isEmpty();
 
         if (wasError) {
             Alert alert = new Alert(Alert.AlertType.ERROR);
@@ -224,7 +149,7 @@ public class AddPartFormController implements Initializable {
         Optional<ButtonType> result = alertConfirm.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
 
-            int id = Inventory.getPartIdGen();
+            int id = Inventory.nextPartId();
             String name = partName.getText();
             int stock = Integer.parseInt(partInventory.getText());
             double price = Double.parseDouble(partPrice.getText());
@@ -234,11 +159,9 @@ public class AddPartFormController implements Initializable {
             if (inHousePartButton.isSelected()) {
                 int machineId = Integer.parseInt(partInOrOut.getText());
                 Inventory.addPart(new InHouse(id, name, price, stock, min, max, machineId));
-                Inventory.increasePartIdGen();
             } else {
                 String companyName = partInOrOut.getText();
                 Inventory.addPart(new Outsourced(id, name, price, stock, min, max, companyName));
-                Inventory.increasePartIdGen();
             }
             try {
                 Parent root = FXMLLoader.load(getClass().getResource("/nstaley/inventorysystem/MainForm.fxml"));
@@ -126,6 +126,7 @@ public class AddProductFormController implements Initializable {
         tablePartName.setCellValueFactory(new PropertyValueFactory<>("name"));
         tablePartInventory.setCellValueFactory(new PropertyValueFactory<>("stock"));
         tablePartPrice.setCellValueFactory(new PropertyValueFactory<>("price"));
+        NameSuggestions.attach(partSearch, Inventory::suggestPartNames);
 
         addedPart.setItems(addPartsList);
         addedPartId.setCellValueFactory(new PropertyValueFactory<>("id"));
@@ -242,69 +243,9 @@ public class AddProductFormController implements Initializable {
      * @throws IOException Throws IOException if file does not load.
      */
     public void saveProduct(ActionEvent actionEvent) throws IOException {
-        boolean wasError = false;
-        String nameErrorMessage = "Must enter a product name into the Name text field.\n";
-        String nameNumberErrorMessage = "Name must not begin with a number.\n";
-        String invErrorMessage = "Must enter an integer into the Inventory text field.\n";
-        String priceErrorMessage = "Must enter a double into the Price/Cost text Field.\n";
-        String maxErrorMessage = "Must enter an integer into the Max text field.\n";
-        String minErrorMessage = "Must enter an integer into the Min text field.\n";
-        String maxLessThanMinMessage = "Max must be greater than the Min.\n";
-        String inventoryMaxMin = "Inventory must be between the Min and Max values.\n";
-
-        String alertMessage = "";
-
-        if (nameTxt.getText().isEmpty()) {
-            wasError = true;
-            alertMessage = alertMessage.concat(nameErrorMessage);
-        }
-        else if (Character.isDigit(nameTxt.getText().charAt(0))) {
-            wasError = true;
-            alertMessage = alertMessage.concat(nameNumberErrorMessage);
-
-        }
-        try {
-            Integer.parseInt(inventoryTxt.getText());
-        }
-        catch (NumberFormatException e) {
-            wasError = true;
-            alertMessage = alertMessage.concat(invErrorMessage);
-        }
-        try {
-            Double.parseDouble(priceTxt.getText());
-        }
-        catch (NumberFormatException e) {
-            wasError = true;
-            alertMessage = alertMessage.concat(priceErrorMessage);
-        }
-        try {
-            Integer.parseInt(maxTxt.getText());
-        }
-        catch (NumberFormatException e) {
-            wasError = true;
-            alertMessage = alertMessage.concat(maxErrorMessage);
-        }
-        try {
-            Integer.parseInt(minTxt.getText());
-        }
-        catch (NumberFormatException e) {
-            wasError = true;
-            alertMessage = alertMessage.concat(minErrorMessage);
-        }
-
-        if (!wasError) {
-            if (Integer.parseInt(maxTxt.getText()) < Integer.parseInt(minTxt.getText())) {
-                wasError = true;
-                alertMessage = alertMessage.concat(maxLessThanMinMessage);
-            }
-
-        }
-        if (!wasError) {
-            if ((Integer.parseInt(inventoryTxt.getText()) > Integer.parseInt(maxTxt.getText())) || (Integer.parseInt(inventoryTxt.getText()) < Integer.parseInt(minTxt.getText()))) {
-                wasError = true;
-                alertMessage = alertMessage.concat(inventoryMaxMin);
-            }
-        }
+        String alertMessage = ItemValidator.validateProduct(nameTxt.getText(), inventoryTxt.getText(),
+                priceTxt.getText(), maxTxt.getText(), minTxt.getText());
+        boolean wasError = !alertMessage.isEmpty();
 
         if (wasError) {
             Alert alert = new Alert(Alert.AlertType.ERROR);
@@ -318,7 +259,7 @@ public class AddProductFormController implements Initializable {
 
         Optional<ButtonType> result = alertConfirm.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            int id = Inventory.getProductIdGen();
+            int id = Inventory.nextProductId();
             String name = nameTxt.getText();
             int stock = Integer.parseInt(inventoryTxt.getText());
             double price = Double.parseDouble(priceTxt.getText());
@@ -333,7 +274,6 @@ public class AddProductFormController implements Initializable {
             }
 
             Inventory.addProduct(newProduct);
-            Inventory.increaseProductIdGen();
 
             addPartsList.clear();
             try {
@@ -0,0 +1,93 @@
+package nstaley.inventorysystem;
+
+import java.util.Optional;
+
+/**
+ * This interface is for the loops that filter and total the primitive columns of the column store. The scalar
+ * kernels check one row at a time and always work. The vector kernels check several rows at once with the incubating
+ * vector API. They are kept in their own source folder that is only compiled by the simd build profile, so the default
+ * build never touches the incubating module, and they are only used when they were built, the jdk.incubator.vector
+ * module was added when the program was started, and the kernels property is not set to scalar. Both give the same
+ * results.
+ * @author Nicholas Staley
+ */
+public interface ColumnKernels {
+    /**
+     * Holds the name of the system property that picks the kernels, either vector or scalar.
+     */
+    String KERNELS_PROPERTY = "inventory.kernels";
+
+    /**
+     * Method to add up price times stock over the first rows of the columns.
+     * @param price price column
+     * @param stock stock column
+     * @param size number of rows
+     * @return Returns a double value representing the total stock value.
+     */
+    double sumPriceTimesStock(double[] price, int[] stock, int size);
+
+    /**
+     * Method to count the rows where the stock is at or below the minimum.
+     * @param stock stock column
+     * @param min minimum stock column
+     * @param size number of rows
+     * @return Returns an int value representing the number of rows at or below their minimum.
+     */
+    int countStockAtOrBelowMin(int[] stock, int[] min, int size);
+
+    /**
+     * Method to find the rows with a price between two values, including both values.
+     * @param price price column
+     * @param size number of rows
+     * @param low lowest price to match
+     * @param high highest price to match
+     * @return Returns the matching rows in order.
+     */
+    int[] filterPriceBetween(double[] price, int size, double low, double high);
+
+    /**
+     * Method to find the rows matching a price range, a stock range, and optionally a minimum or maximum violation,
+     * checking the rows in order from a starting row until enough are found.
+     * @param price price column
+     * @param stock stock column
+     * @param min minimum stock column
+     * @param max maximum stock column
+     * @param size number of rows
+     * @param fromRow first row to check
+     * @param limit most rows to return
+     * @param priceLow lowest price to match
+     * @param priceHigh highest price to match
+     * @param stockLow lowest stock to match
+     * @param stockHigh highest stock to match
+     * @param atOrBelowMin true to match only the rows with the stock at or below the minimum
+     * @param aboveMax true to match only the rows with the stock above the maximum
+     * @return Returns up to limit matching rows in order.
+     */
+    int[] filterRows(double[] price, int[] stock, int[] min, int[] max, int size, int fromRow, int limit,
+                     double priceLow, double priceHigh, int stockLow, int stockHigh, boolean atOrBelowMin,
+                     boolean aboveMax);
+
+    /**
+     * Method to pick the kernels to use. The vector kernels are picked when they were built and the vector module is
+     * present, unless the kernels property asks for the scalar ones. They are loaded by name, since the default build
+     * leaves them out, and the program's module is made to read the vector module first, since it does not require it.
+     * @return Returns the vector kernels if they can be used, or the scalar kernels if not.
+     */
+    static ColumnKernels pick() {
+        Optional<Module> vector = ModuleLayer.boot().findModule("jdk.incubator.vector");
+        if (vector.isPresent() && !"scalar".equalsIgnoreCase(System.getProperty(KERNELS_PROPERTY))) {
+            try {
+                ColumnKernels.class.getModule().addReads(vector.get());
+                Class<?> kernels = Class.forName("nstaley.inventorysystem.VectorKernels");
+                return (ColumnKernels) kernels.getDeclaredConstructor().newInstance();
+            }
+            catch (ClassNotFoundException e) {
+                // The vector kernels were not built, so the scalar ones are used.
+            }
+            catch (ReflectiveOperationException | LinkageError e) {
+                System.out.println(e.getMessage());
+            }
+        }
+        return new ScalarKernels();
+    }
+}
@@ -0,0 +1,219 @@
+package nstaley.inventorysystem;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * This class keeps the fields the filters and totals read, the price, stock, minimum, and maximum of the parts or
+ * products in the inventory, as columns, one primitive array per field. Row i holds the fields of the item at index i
+ * of the inventory's list. Scans and totals over a field walk one array from start to end instead of following a
+ * reference to every item, using the vector kernels when the vector module is present. Like the other indexes, the
+ * store is kept alongside the parts and products rather than in place of them, since the tables, the forms, and the
+ * other indexes all work with the objects, so it only holds the fields the scans need.
+ * @author Nicholas Staley
+ */
+public class ColumnStore {
+    /**
+     * Holds the starting number of rows the arrays have room for.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+    /**
+     * Holds the kernels used to filter and total the columns, vector kernels if they can be used.
+     */
+    private static final ColumnKernels KERNELS = ColumnKernels.pick();
+    /**
+     * Holds the price column.
+     */
+    private double[] price = new double[DEFAULT_CAPACITY];
+    /**
+     * Holds the stock column.
+     */
+    private int[] stock = new int[DEFAULT_CAPACITY];
+    /**
+     * Holds the minimum stock column.
+     */
+    private int[] min = new int[DEFAULT_CAPACITY];
+    /**
+     * Holds the maximum stock column.
+     */
+    private int[] max = new int[DEFAULT_CAPACITY];
+    /**
+     * Holds the number of rows in the store.
+     */
+    private int size = 0;
+
+    /**
+     * Method to add a row to the end of the store.
+     * @param rowPrice price of the item
+     * @param rowStock stock of the item
+     * @param rowMin minimum stock of the item
+     * @param rowMax maximum stock of the item
+     */
+    public void append(double rowPrice, int rowStock, int rowMin, int rowMax) {
+        if (size == price.length) {
+            grow(size * 2);
+        }
+        set(size++, rowPrice, rowStock, rowMin, rowMax);
+    }
+
+    /**
+     * Method to overwrite the fields of a row.
+     * @param row row to be overwritten
+     * @param rowPrice price of the item
+     * @param rowStock stock of the item
+     * @param rowMin minimum stock of the item
+     * @param rowMax maximum stock of the item
+     */
+    public void set(int row, double rowPrice, int rowStock, int rowMin, int rowMax) {
+        price[row] = rowPrice;
+        stock[row] = rowStock;
+        min[row] = rowMin;
+        max[row] = rowMax;
+    }
+
+    /**
+     * Method to remove a row, moving the rows after it up by one.
+     * @param row row to be removed
+     */
+    public void remove(int row) {
+        int moved = size - row - 1;
+        if (moved > 0) {
+            System.arraycopy(price, row + 1, price, row, moved);
+            System.arraycopy(stock, row + 1, stock, row, moved);
+            System.arraycopy(min, row + 1, min, row, moved);
+            System.arraycopy(max, row + 1, max, row, moved);
+        }
+        size -= 1;
+    }
+
+    /**
+     * Method to remove a set of rows in one pass, keeping the other rows in order.
+     * @param rows rows to be removed
+     */
+    public void removeAll(BitSet rows) {
+        int kept = 0;
+        for (int row = 0; row < size; ++row) {
+            if (!rows.get(row)) {
+                if (kept != row) {
+                    price[kept] = price[row];
+                    stock[kept] = stock[row];
+                    min[kept] = min[row];
+                    max[kept] = max[row];
+                }
+                kept += 1;
+            }
+        }
+        size = kept;
+    }
+
+    /**
+     * Method to make sure the store has room for a number of rows.
+     * @param capacity number of rows needed
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > price.length) {
+            grow(Math.max(capacity, price.length * 2));
+        }
+    }
+
+    /**
+     * Method to get the number of rows in the store.
+     * @return Returns an int value representing the number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Method to get the price in a row.
+     * @param row row to read
+     * @return Returns the price of the item in the row.
+     */
+    public double getPrice(int row) {
+        return price[row];
+    }
+
+    /**
+     * Method to get the stock in a row.
+     * @param row row to read
+     * @return Returns the stock of the item in the row.
+     */
+    public int getStock(int row) {
+        return stock[row];
+    }
+
+    /**
+     * Method to get the minimum stock in a row.
+     * @param row row to read
+     * @return Returns the minimum stock of the item in the row.
+     */
+    public int getMin(int row) {
+        return min[row];
+    }
+
+    /**
+     * Method to get the maximum stock in a row.
+     * @param row row to read
+     * @return Returns the maximum stock of the item in the row.
+     */
+    public int getMax(int row) {
+        return max[row];
+    }
+
+    /**
+     * Method to add up price times stock over every row, giving the value of the stock on hand.
+     * @return Returns a double value representing the total stock value.
+     */
+    public double sumPriceTimesStock() {
+        return KERNELS.sumPriceTimesStock(price, stock, size);
+    }
+
+    /**
+     * Method to count the rows where the stock is at or below the minimum.
+     * @return Returns an int value representing the number of rows at or below their minimum.
+     */
+    public int countStockAtOrBelowMin() {
+        return KERNELS.countStockAtOrBelowMin(stock, min, size);
+    }
+
+    /**
+     * Method to find the rows with a price between two values, including both values.
+     * @param low lowest price to match
+     * @param high highest price to match
+     * @return Returns the matching rows in order.
+     */
+    public int[] filterPriceBetween(double low, double high) {
+        return KERNELS.filterPriceBetween(price, size, low, high);
+    }
+
+    /**
+     * Method to find the rows matching a price range, a stock range, and optionally a minimum or maximum violation,
+     * checking the rows in order in one pass over the columns from a starting row until enough are found.
+     * @param fromRow first row to check
+     * @param limit most rows to return
+     * @param priceLow lowest price to match
+     * @param priceHigh highest price to match
+     * @param stockLow lowest stock to match
+     * @param stockHigh highest stock to match
+     * @param atOrBelowMin true to match only the rows with the stock at or below the minimum
+     * @param aboveMax true to match only the rows with the stock above the maximum
+     * @return Returns up to limit matching rows in order.
+     */
+    public int[] filterRows(int fromRow, int limit, double priceLow, double priceHigh, int stockLow, int stockHigh,
+                            boolean atOrBelowMin, boolean aboveMax) {
+        return KERNELS.filterRows(price, stock, min, max, size, fromRow, limit, priceLow, priceHigh, stockLow,
+                stockHigh, atOrBelowMin, aboveMax);
+    }
+
+    /**
+     * Method to grow every column to a new number of rows.
+     * @param capacity new number of rows
+     */
+    private void grow(int capacity) {
+        capacity = Math.max(capacity, DEFAULT_CAPACITY);
+        price = Arrays.copyOf(price, capacity);
+        stock = Arrays.copyOf(stock, capacity);
+        min = Arrays.copyOf(min, capacity);
+        max = Arrays.copyOf(max, capacity);
+    }
+}
@@ -0,0 +1,621 @@
+package nstaley.inventorysystem;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class imports parts and products from CSV files. The file is read as a stream on the calling thread and cut into
+ * chunks of lines, which are parsed and checked by a pool of worker threads. The parsed chunks wait in a bounded queue,
+ * so the reader stops reading when the workers or the inventory fall behind, and memory use does not grow with the size
+ * of the file. A single committer thread takes the chunks in file order and adds each one to the inventory as a batch.
+ * Rows are checked with the same rules as the add forms, and rows that are turned down are written to a report.
+ * <p>
+ * A parts file has the columns id, type, name, price, stock, min, max, and machine ID or company name, where type is
+ * InHouse or Outsourced. A products file has the columns id, name, price, stock, min, max, and the ids of the associated
+ * parts separated by semicolons, with a part's id repeated once for each unit needed. If the id is left empty a new id
+ * is handed out. A first line starting with id is treated as a header and skipped.
+ * @author Nicholas Staley
+ */
+public class CsvImporter {
+    /**
+     * Holds the number of lines in each chunk handed to a worker.
+     */
+    private static final int CHUNK_SIZE = 1000;
+    /**
+     * Holds the number of rejected rows kept in the report returned, the rest are only written to the report file.
+     */
+    private static final int REJECTIONS_KEPT = 100;
+    /**
+     * Holds the number of rows imported after which the name and range indexes are left to be rebuilt by the committer
+     * at the end of the import instead of being updated for every row.
+     */
+    private static final int DEFER_INDEX_ROWS = 10000;
+
+    /**
+     * This class describes a row that was not imported.
+     */
+    public static class Rejection {
+        /**
+         * Holds the line number of the row in the file, starting at 1.
+         */
+        private final long lineNumber;
+        /**
+         * Holds the reason the row was turned down.
+         */
+        private final String reason;
+        /**
+         * Holds the text of the row.
+         */
+        private final String line;
+
+        /**
+         * The constructor that initializes the rejection.
+         * @param lineNumber line number of the row
+         * @param reason reason the row was turned down
+         * @param line text of the row
+         */
+        public Rejection(long lineNumber, String reason, String line) {
+            this.lineNumber = lineNumber;
+            this.reason = reason;
+            this.line = line;
+        }
+
+        /**
+         * Method to get the line number of the row.
+         * @return Returns a long value representing the line number, starting at 1.
+         */
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        /**
+         * Method to get the reason the row was turned down.
+         * @return Returns the reason.
+         */
+        public String getReason() {
+            return reason;
+        }
+
+        /**
+         * Method to get the text of the row.
+         * @return Returns the row as it was in the file.
+         */
+        public String getLine() {
+            return line;
+        }
+    }
+
+    /**
+     * This class holds the outcome of an import.
+     */
+    public static class Report {
+        /**
+         * Holds the number of rows imported.
+         */
+        private long imported = 0;
+        /**
+         * Holds the number of rows turned down.
+         */
+        private long rejected = 0;
+        /**
+         * Holds the first rejected rows.
+         */
+        private final List<Rejection> firstRejections = new ArrayList<>();
+
+        /**
+         * Method to get the number of rows imported.
+         * @return Returns a long value representing the number of rows added to the inventory.
+         */
+        public long getImported() {
+            return imported;
+        }
+
+        /**
+         * Method to get the number of rows turned down.
+         * @return Returns a long value representing the number of rows that were not imported.
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * Method to get the first rows that were turned down. Every rejected row is in the report file.
+         * @return Returns a list of up to 100 rejected rows in file order.
+         */
+        public List<Rejection> getFirstRejections() {
+            return Collections.unmodifiableList(firstRejections);
+        }
+    }
+
+    /**
+     * This class holds the parsed rows of one chunk.
+     * @param <T> type of item parsed
+     */
+    private static class Chunk<T> {
+        /**
+         * Holds the items parsed from the rows that passed the checks.
+         */
+        private final List<T> items = new ArrayList<>();
+        /**
+         * Holds the line number of each parsed item.
+         */
+        private final List<Long> itemLines = new ArrayList<>();
+        /**
+         * Holds the text of each parsed item's row.
+         */
+        private final List<String> itemRows = new ArrayList<>();
+        /**
+         * Holds the rows that did not pass the checks.
+         */
+        private final List<Rejection> rejections = new ArrayList<>();
+    }
+
+    /**
+     * This interface is for the parsing of one row into an item.
+     * @param <T> type of item parsed
+     */
+    private interface RowParser<T> {
+        /**
+         * Method to parse one row.
+         * @param fields fields of the row
+         * @return Returns the item parsed from the row.
+         * @throws IllegalArgumentException if the row is not valid, with the reason as the message.
+         */
+        T parse(String[] fields);
+    }
+
+    /**
+     * This interface is for adding a batch of parsed items to the inventory.
+     * @param <T> type of item added
+     */
+    private interface BatchCommitter<T> {
+        /**
+         * Method to add the items of a chunk that are not in conflict with the inventory.
+         * @param chunk chunk holding the items
+         * @param rejections list to add the rows that were turned down to
+         * @return Returns the number of items added.
+         */
+        int commit(Chunk<T> chunk, List<Rejection> rejections);
+    }
+
+    /**
+     * Method to import parts from a CSV file.
+     * @param csvFile file to be read
+     * @param rejectsFile file the rejected rows are written to, or null to not write one
+     * @return Returns the report of the import.
+     * @throws IOException can throw an IOException if a file can not be read or written.
+     */
+    public static Report importParts(Path csvFile, Path rejectsFile) throws IOException {
+        return run(csvFile, rejectsFile, 8, CsvImporter::parsePart, CsvImporter::commitParts);
+    }
+
+    /**
+     * Method to import products from a CSV file. The associated parts must already be in the inventory.
+     * @param csvFile file to be read
+     * @param rejectsFile file the rejected rows are written to, or null to not write one
+     * @return Returns the report of the import.
+     * @throws IOException can throw an IOException if a file can not be read or written.
+     */
+    public static Report importProducts(Path csvFile, Path rejectsFile) throws IOException {
+        return run(csvFile, rejectsFile, 7, CsvImporter::parseProduct, CsvImporter::commitProducts);
+    }
+
+    /**
+     * Method to run an import through the reader, the workers, and the committer.
+     * @param csvFile file to be read
+     * @param rejectsFile file the rejected rows are written to, or null to not write one
+     * @param columns number of columns in a row
+     * @param parser parser for one row
+     * @param committer committer for one chunk
+     * @param <T> type of item imported
+     * @return Returns the report of the import.
+     * @throws IOException can throw an IOException if a file can not be read or written.
+     */
+    private static <T> Report run(Path csvFile, Path rejectsFile, int columns, RowParser<T> parser,
+                                  BatchCommitter<T> committer) throws IOException {
+        int workerCount = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        ExecutorService workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "inventory-csv-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        BlockingQueue<Future<Chunk<T>>> parsed = new ArrayBlockingQueue<>(workerCount * 2);
+        Future<Chunk<T>> endOfFile = CompletableFuture.completedFuture(null);
+        Report report = new Report();
+        IOException[] committerFailure = new IOException[1];
+        RuntimeException[] committerError = new RuntimeException[1];
+
+        try (BufferedWriter rejects = rejectsFile == null ? null
+                : Files.newBufferedWriter(rejectsFile, StandardCharsets.UTF_8)) {
+            if (rejects != null) {
+                rejects.write("line,reason,row");
+                rejects.newLine();
+            }
+            Thread committerThread = new Thread(() -> {
+                try {
+                    while (true) {
+                        Future<Chunk<T>> next = parsed.take();
+                        if (next == endOfFile) {
+                            return;
+                        }
+                        Chunk<T> chunk = next.get();
+                        List<Rejection> rejections = new ArrayList<>(chunk.rejections);
+                        if (report.imported >= DEFER_INDEX_ROWS) {
+                            Inventory.deferIndexes();
+                        }
+                        report.imported += committer.commit(chunk, rejections);
+                        rejections.sort((a, b) -> Long.compare(a.lineNumber, b.lineNumber));
+                        for (Rejection rejection : rejections) {
+                            report.rejected += 1;
+                            if (report.firstRejections.size() < REJECTIONS_KEPT) {
+                                report.firstRejections.add(rejection);
+                            }
+                            if (rejects != null) {
+                                rejects.write(rejection.lineNumber + "," + quote(rejection.reason) + ","
+                                        + quote(rejection.line));
+                                rejects.newLine();
+                            }
+                        }
+                    }
+                }
+                catch (IOException e) {
+                    committerFailure[0] = e;
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                catch (ExecutionException e) {
+                    committerError[0] = new IllegalStateException("A CSV chunk could not be parsed.", e.getCause());
+                }
+                catch (RuntimeException e) {
+                    committerError[0] = e;
+                }
+                finally {
+                    if (committerFailure[0] != null || committerError[0] != null) {
+                        parsed.clear();
+                    }
+                    Inventory.buildIndexes();
+                }
+            }, "inventory-csv-committer");
+            committerThread.start();
+
+            try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+                long lineNumber = 0;
+                String[] lines = new String[CHUNK_SIZE];
+                int count = 0;
+                long chunkStart = 1;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber += 1;
+                    if (lineNumber == 1 && line.regionMatches(true, 0, "id,", 0, 3)) {
+                        chunkStart = 2;
+                        continue;
+                    }
+                    if (count == 0) {
+                        chunkStart = lineNumber;
+                    }
+                    lines[count++] = line;
+                    if (count == CHUNK_SIZE) {
+                        if (!submit(parsed, workers, lines, count, chunkStart, columns, parser, committerThread)) {
+                            break;
+                        }
+                        lines = new String[CHUNK_SIZE];
+                        count = 0;
+                    }
+                }
+                if (count > 0 && committerThread.isAlive()) {
+                    submit(parsed, workers, lines, count, chunkStart, columns, parser, committerThread);
+                }
+                putUnlessStopped(parsed, endOfFile, committerThread);
+                committerThread.join();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                committerThread.interrupt();
+                throw new InterruptedIOException("The import was interrupted.");
+            }
+        }
+        finally {
+            workers.shutdownNow();
+        }
+        if (committerFailure[0] != null) {
+            throw committerFailure[0];
+        }
+        if (committerError[0] != null) {
+            throw committerError[0];
+        }
+        return report;
+    }
+
+    /**
+     * Method to hand a chunk of lines to the workers. Blocks while the queue of parsed chunks is full.
+     * @param parsed queue of parsed chunks
+     * @param workers worker threads
+     * @param lines lines of the chunk
+     * @param count number of lines in the chunk
+     * @param firstLine line number of the first line
+     * @param columns number of columns in a row
+     * @param parser parser for one row
+     * @param committerThread thread taking the chunks off the queue
+     * @param <T> type of item parsed
+     * @return Returns true if the chunk was handed over, and false if the committer thread has stopped.
+     * @throws InterruptedException can throw an InterruptedException if the thread is interrupted while waiting.
+     */
+    private static <T> boolean submit(BlockingQueue<Future<Chunk<T>>> parsed, ExecutorService workers, String[] lines,
+                                   int count, long firstLine, int columns, RowParser<T> parser,
+                                   Thread committerThread) throws InterruptedException {
+        return putUnlessStopped(parsed, workers.submit(() -> parseChunk(lines, count, firstLine, columns, parser)),
+                committerThread);
+    }
+
+    /**
+     * Method to add a chunk to the queue, giving up if the committer thread has stopped.
+     * @param parsed queue of parsed chunks
+     * @param chunk chunk to be added
+     * @param committerThread thread taking the chunks off the queue
+     * @param <T> type of item parsed
+     * @return Returns true if the chunk was added, and false if the committer thread has stopped.
+     * @throws InterruptedException can throw an InterruptedException if the thread is interrupted while waiting.
+     */
+    private static <T> boolean putUnlessStopped(BlockingQueue<Future<Chunk<T>>> parsed, Future<Chunk<T>> chunk,
+                                             Thread committerThread) throws InterruptedException {
+        while (!parsed.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+            if (!committerThread.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Method run by a worker to parse every line of a chunk.
+     * @param lines lines of the chunk
+     * @param count number of lines in the chunk
+     * @param firstLine line number of the first line
+     * @param columns number of columns in a row
+     * @param parser parser for one row
+     * @param <T> type of item parsed
+     * @return Returns the parsed chunk.
+     */
+    private static <T> Chunk<T> parseChunk(String[] lines, int count, long firstLine, int columns, RowParser<T> parser) {
+        Chunk<T> chunk = new Chunk<>();
+        for (int i = 0; i < count; ++i) {
+            String line = lines[i];
+            long lineNumber = firstLine + i;
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] fields = split(line);
+            if (fields == null) {
+                chunk.rejections.add(new Rejection(lineNumber, "Unbalanced quotes.", line));
+                continue;
+            }
+            if (fields.length != columns) {
+                chunk.rejections.add(new Rejection(lineNumber,
+                        "Expected " + columns + " columns but found " + fields.length + ".", line));
+                continue;
+            }
+            try {
+                chunk.items.add(parser.parse(fields));
+                chunk.itemLines.add(lineNumber);
+                chunk.itemRows.add(line);
+            }
+            catch (IllegalArgumentException e) {
+                chunk.rejections.add(new Rejection(lineNumber, e.getMessage(), line));
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Method to parse and check one part row. Parts without an id are given id 0 and handed a new id when committed.
+     * @param fields fields of the row
+     * @return Returns the parsed part.
+     */
+    private static Part parsePart(String[] fields) {
+        int id = parseId(fields[0]);
+        boolean inHouse;
+        if (fields[1].equalsIgnoreCase("InHouse") || fields[1].equalsIgnoreCase("In-House")) {
+            inHouse = true;
+        }
+        else if (fields[1].equalsIgnoreCase("Outsourced")) {
+            inHouse = false;
+        }
+        else {
+            throw new IllegalArgumentException("Type must be InHouse or Outsourced.");
+        }
+        String problems = ItemValidator.validatePart(fields[2], fields[4], fields[3], fields[6], fields[5], inHouse,
+                fields[7]);
+        if (!problems.isEmpty()) {
+            throw new IllegalArgumentException(problems.replace('\n', ' ').trim());
+        }
+        double price = Double.parseDouble(fields[3]);
+        int stock = Integer.parseInt(fields[4]);
+        int min = Integer.parseInt(fields[5]);
+        int max = Integer.parseInt(fields[6]);
+        if (inHouse) {
+            return new InHouse(id, fields[2], price, stock, min, max, Integer.parseInt(fields[7]));
+        }
+        return new Outsourced(id, fields[2], price, stock, min, max, fields[7]);
+    }
+
+    /**
+     * Method to parse and check one product row, looking up its associated parts in the inventory.
+     * @param fields fields of the row
+     * @return Returns the parsed product.
+     */
+    private static Product parseProduct(String[] fields) {
+        int id = parseId(fields[0]);
+        String problems = ItemValidator.validateProduct(fields[1], fields[3], fields[2], fields[5], fields[4]);
+        if (!problems.isEmpty()) {
+            throw new IllegalArgumentException(problems.replace('\n', ' ').trim());
+        }
+        Product product = new Product(id, fields[1], Double.parseDouble(fields[2]), Integer.parseInt(fields[3]),
+                Integer.parseInt(fields[4]), Integer.parseInt(fields[5]));
+        if (!fields[6].isEmpty()) {
+            for (String partId : fields[6].split(";")) {
+                Part part = Inventory.lookupPart(parseId(partId.trim()));
+                if (part == null) {
+                    throw new IllegalArgumentException("Associated part " + partId.trim() + " is not in the inventory.");
+                }
+                product.putQuantity(part.getId(), product.getAssociatedPartQuantity(part.getId()) + 1);
+            }
+        }
+        return product;
+    }
+
+    /**
+     * Method to add a chunk of parts to the inventory, handing out ids to parts without one and turning down parts whose
+     * id is already in use. The inventory makes the id check under its write lock, so a part added from the forms while
+     * the import runs is turned down like any other duplicate instead of stopping the import.
+     * @param chunk chunk holding the parts
+     * @param rejections list to add the rows that were turned down to
+     * @return Returns the number of parts added.
+     */
+    private static int commitParts(Chunk<Part> chunk, List<Rejection> rejections) {
+        Map<Part, Integer> positions = new IdentityHashMap<>(chunk.items.size() * 2);
+        for (int i = 0; i < chunk.items.size(); ++i) {
+            Part part = chunk.items.get(i);
+            if (part.getId() == 0) {
+                part.setId(Inventory.nextPartId());
+            }
+            positions.put(part, i);
+        }
+        List<Part> skipped = Inventory.addParts(chunk.items);
+        for (Part part : skipped) {
+            int i = positions.get(part);
+            rejections.add(new Rejection(chunk.itemLines.get(i), "Part id " + part.getId() + " is already in use.",
+                    chunk.itemRows.get(i)));
+        }
+        return chunk.items.size() - skipped.size();
+    }
+
+    /**
+     * Method to add a chunk of products to the inventory, handing out ids to products without one and turning down
+     * products whose id is already in use, which the inventory checks under its write lock as for parts.
+     * @param chunk chunk holding the products
+     * @param rejections list to add the rows that were turned down to
+     * @return Returns the number of products added.
+     */
+    private static int commitProducts(Chunk<Product> chunk, List<Rejection> rejections) {
+        Map<Product, Integer> positions = new IdentityHashMap<>(chunk.items.size() * 2);
+        for (int i = 0; i < chunk.items.size(); ++i) {
+            Product product = chunk.items.get(i);
+            if (product.getId() == 0) {
+                product.setId(Inventory.nextProductId());
+            }
+            positions.put(product, i);
+        }
+        List<Product> skipped = Inventory.addProducts(chunk.items);
+        for (Product product : skipped) {
+            int i = positions.get(product);
+            rejections.add(new Rejection(chunk.itemLines.get(i),
+                    "Product id " + product.getId() + " is already in use.", chunk.itemRows.get(i)));
+        }
+        return chunk.items.size() - skipped.size();
+    }
+
+    /**
+     * Method to parse an id field, where an empty field means a new id should be handed out.
+     * @param field text of the field
+     * @return Returns the id, or 0 if the field is empty.
+     */
+    private static int parseId(String field) {
+        if (field.isEmpty()) {
+            return 0;
+        }
+        try {
+            int id = Integer.parseInt(field);
+            if (id <= 0) {
+                throw new IllegalArgumentException("Id must be a positive integer.");
+            }
+            return id;
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Id must be a positive integer.");
+        }
+    }
+
+    /**
+     * Method to split a CSV line into its fields. Fields may be wrapped in double quotes, with a doubled quote standing
+     * for a quote inside the field, and spaces around fields that are not quoted are trimmed.
+     * @param line line to be split
+     * @return Returns the fields of the line, or null if a quoted field is not closed.
+     */
+    static String[] split(String line) {
+        List<String> fields = new ArrayList<>(8);
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+        while (true) {
+            while (i < line.length() && line.charAt(i) == ' ') {
+                i += 1;
+            }
+            if (i < line.length() && line.charAt(i) == '"') {
+                i += 1;
+                while (true) {
+                    if (i >= line.length()) {
+                        return null;
+                    }
+                    char c = line.charAt(i++);
+                    if (c == '"') {
+                        if (i < line.length() && line.charAt(i) == '"') {
+                            field.append('"');
+                            i += 1;
+                        }
+                        else {
+                            break;
+                        }
+                    }
+                    else {
+                        field.append(c);
+                    }
+                }
+                while (i < line.length() && line.charAt(i) != ',') {
+                    i += 1;
+                }
+                fields.add(field.toString());
+            }
+            else {
+                int end = line.indexOf(',', i);
+                if (end < 0) {
+                    end = line.length();
+                }
+                fields.add(line.substring(i, end).trim());
+                i = end;
+            }
+            field.setLength(0);
+            if (i >= line.length()) {
+                break;
+            }
+            i += 1;
+        }
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Method to quote a field for a CSV file.
+     * @param value value of the field
+     * @return Returns the value wrapped in double quotes, with any quotes inside it doubled.
+     */
+    static String quote(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,129 @@
+package nstaley.inventorysystem;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * This class hands out unique ids for new parts or products. Each thread takes a block of ids from a shared atomic
+ * counter and then hands them out on its own, so threads adding many items at once only touch the shared counter once
+ * per block. The end of the last block taken is the high-water mark; every id handed out is below it, so saving the
+ * mark is enough to keep ids unique after a restart. An id can also be put into use by someone else while it sits in a
+ * thread's block, such as an import row with its own id, so each id is checked against the ids in use before it is
+ * handed out.
+ * @author Nicholas Staley
+ */
+public class IdAllocator {
+    /**
+     * Holds the first id that has not been reserved by any block.
+     */
+    private final AtomicInteger highWaterMark;
+    /**
+     * Holds the number of ids reserved in each block.
+     */
+    private final int blockSize;
+    /**
+     * Holds the generation of the allocator, increased whenever it is restored so blocks taken before are dropped.
+     */
+    private volatile int generation = 0;
+    /**
+     * Holds the block of ids owned by each thread as the next id, the end of the block, and the generation.
+     */
+    private final ThreadLocal<int[]> block = ThreadLocal.withInitial(() -> new int[] {0, 0, -1});
+    /**
+     * Listener told about each new high-water mark before ids below it are handed out, or null if there is none.
+     */
+    private volatile IntConsumer reservationListener;
+    /**
+     * Function used to check if an id is already in use, so it is skipped.
+     */
+    private final IntPredicate inUse;
+
+    /**
+     * The constructor that initializes the allocator.
+     * @param firstId first id to be handed out
+     * @param blockSize number of ids each thread reserves at a time
+     */
+    public IdAllocator(int firstId, int blockSize) {
+        this(firstId, blockSize, id -> false);
+    }
+
+    /**
+     * The constructor that initializes the allocator with a check for the ids already in use.
+     * @param firstId first id to be handed out
+     * @param blockSize number of ids each thread reserves at a time
+     * @param inUse function that checks if an id is already in use
+     */
+    public IdAllocator(int firstId, int blockSize, IntPredicate inUse) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be at least 1.");
+        }
+        this.highWaterMark = new AtomicInteger(firstId);
+        this.blockSize = blockSize;
+        this.inUse = inUse;
+    }
+
+    /**
+     * Method to get the next id for the calling thread. Ids in the thread's block that have been put into use since
+     * the block was taken are skipped.
+     * @return Returns an int value representing an id that has not been handed out before and is not in use.
+     */
+    public int nextId() {
+        int[] owned = block.get();
+        while (true) {
+            if (owned[2] != generation || owned[0] >= owned[1]) {
+                int currentGeneration = generation;
+                int start = highWaterMark.getAndAdd(blockSize);
+                IntConsumer listener = reservationListener;
+                if (listener != null) {
+                    listener.accept(start + blockSize);
+                }
+                owned[0] = start;
+                owned[1] = start + blockSize;
+                owned[2] = currentGeneration;
+            }
+            int id = owned[0];
+            owned[0] += 1;
+            if (!inUse.test(id)) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Method to make sure an id that was given out somewhere else, such as by the test data or an import, is never
+     * handed out by the allocator. Blocks taken afterwards start above it, and if the id is in a block already taken
+     * it is skipped by the in use check.
+     * @param id id that is in use
+     */
+    public void observe(int id) {
+        highWaterMark.accumulateAndGet(id + 1, Math::max);
+    }
+
+    /**
+     * Method to get the high-water mark, every id handed out so far is below it.
+     * @return Returns an int value representing the first id not reserved by any block.
+     */
+    public int getHighWaterMark() {
+        return highWaterMark.get();
+    }
+
+    /**
+     * Method to restore the allocator from a saved high-water mark. Blocks already taken by threads are dropped, and the
+     * next ids handed out start at the saved mark, or at the current mark if it is higher.
+     * @param savedHighWaterMark high-water mark that was saved before a restart
+     */
+    public synchronized void restore(int savedHighWaterMark) {
+        highWaterMark.accumulateAndGet(savedHighWaterMark, Math::max);
+        generation += 1;
+    }
+
+    /**
+     * Method to set the listener that is told about each new high-water mark. Persistence uses this to save the mark
+     * before any id below it is handed out.
+     * @param listener listener to be told, or null to remove it
+     */
+    public void setReservationListener(IntConsumer listener) {
+        reservationListener = listener;
+    }
+}
@@ -0,0 +1,263 @@
+package nstaley.inventorysystem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class is a hash index that maps int ids to the parts or products that have them. The ids are kept in a primitive
+ * int array with open addressing and linear probing, so looking up an id does not box it into an Integer and takes the
+ * same amount of time no matter how many items are in the index.
+ * @param <T> type of item held in the index
+ * @author Nicholas Staley
+ */
+public class IdIndex<T> {
+    /**
+     * Holds the starting size of the tables, it must be a power of two.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+    /**
+     * Holds the ids stored in the index.
+     */
+    private int[] keys;
+    /**
+     * Holds the items stored in the index, a null value marks an empty slot.
+     */
+    private Object[] values;
+    /**
+     * Holds a position stored alongside each item, such as its index in a list, or -1 if no position was set.
+     */
+    private int[] slots;
+    /**
+     * Holds the number of items in the index.
+     */
+    private int size;
+
+    /**
+     * The constructor that initializes an empty index.
+     */
+    public IdIndex() {
+        keys = new int[DEFAULT_CAPACITY];
+        values = new Object[DEFAULT_CAPACITY];
+        slots = new int[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Method to get the item stored with an id. The tables are read into locals and the probing is bounded, so this
+     * never fails when it races with a writer during an optimistic read; the caller validates the result.
+     * @param id id to look up
+     * @return Returns the item with the id, or null if there is no item with that id.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int id) {
+        int[] k = keys;
+        Object[] v = values;
+        int mask = Math.min(k.length, v.length) - 1;
+        int slot = mix(id) & mask;
+        for (int probes = 0; probes <= mask; ++probes) {
+            Object value = v[slot];
+            if (value == null) {
+                return null;
+            }
+            if (k[slot] == id) {
+                return (T) value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Method to check if an id is in the index.
+     * @param id id to check
+     * @return Returns true if the id is in the index.
+     */
+    public boolean containsId(int id) {
+        return get(id) != null;
+    }
+
+    /**
+     * Method to store an item under an id, replacing any item already stored with that id. A replaced item keeps its
+     * stored position.
+     * @param id id of the item
+     * @param item item to be stored, must not be null
+     * @return Returns the item that was replaced, or null if the id was not in the index.
+     */
+    @SuppressWarnings("unchecked")
+    public T put(int id, T item) {
+        if (item == null) {
+            throw new IllegalArgumentException("Item must not be null.");
+        }
+        if ((size + 1) * 4 > values.length * 3) {
+            resize(values.length * 2);
+        }
+        int mask = values.length - 1;
+        int slot = mix(id) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == id) {
+                T old = (T) values[slot];
+                values[slot] = item;
+                return old;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = id;
+        values[slot] = item;
+        slots[slot] = -1;
+        size += 1;
+        return null;
+    }
+
+    /**
+     * Method to get the position stored alongside the item with an id.
+     * @param id id of the item
+     * @return Returns the stored position, or -1 if the id is not in the index or no position was set.
+     */
+    public int getSlot(int id) {
+        int mask = values.length - 1;
+        int slot = mix(id) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == id) {
+                return slots[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Method to store a position alongside the item with an id.
+     * @param id id of the item
+     * @param position position to be stored
+     * @return Returns true if the id was in the index and the position was stored.
+     */
+    public boolean setSlot(int id, int position) {
+        int mask = values.length - 1;
+        int slot = mix(id) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == id) {
+                slots[slot] = position;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Method to remove the item stored under an id. The entries after it are shifted back so no tombstones are left.
+     * @param id id of the item to be removed
+     * @return Returns the item that was removed, or null if the id was not in the index.
+     */
+    @SuppressWarnings("unchecked")
+    public T remove(int id) {
+        int mask = values.length - 1;
+        int slot = mix(id) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == id) {
+                T old = (T) values[slot];
+                shiftBack(slot);
+                size -= 1;
+                return old;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Method to remove every item from the index.
+     */
+    public void clear() {
+        keys = new int[DEFAULT_CAPACITY];
+        values = new Object[DEFAULT_CAPACITY];
+        slots = new int[DEFAULT_CAPACITY];
+        size = 0;
+    }
+
+    /**
+     * Method to get every item stored in the index. The items are not in any particular order.
+     * @return Returns a list of the items in the index.
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> values() {
+        List<T> items = new ArrayList<>(size);
+        for (Object value : values) {
+            if (value != null) {
+                items.add((T) value);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Method to get the number of items in the index.
+     * @return Returns an int value representing the number of items in the index.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Method to fill the hole left by a removed entry with the entries that probed past it.
+     * @param hole slot that was emptied
+     */
+    private void shiftBack(int hole) {
+        int mask = values.length - 1;
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (values[slot] == null) {
+                break;
+            }
+            int home = mix(keys[slot]) & mask;
+            boolean canMove = (hole <= slot) ? (home <= hole || home > slot) : (home <= hole && home > slot);
+            if (canMove) {
+                keys[hole] = keys[slot];
+                values[hole] = values[slot];
+                slots[hole] = slots[slot];
+                hole = slot;
+            }
+        }
+        values[hole] = null;
+        keys[hole] = 0;
+        slots[hole] = 0;
+    }
+
+    /**
+     * Method to grow the tables and place every entry in its new slot.
+     * @param capacity new size of the tables, must be a power of two
+     */
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldSlots = slots;
+        int[] newKeys = new int[capacity];
+        Object[] newValues = new Object[capacity];
+        int[] newSlots = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldValues.length; ++i) {
+            if (oldValues[i] != null) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (newValues[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                newKeys[slot] = oldKeys[i];
+                newValues[slot] = oldValues[i];
+                newSlots[slot] = oldSlots[i];
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+        slots = newSlots;
+    }
+
+    /**
+     * Method to spread the bits of an id so ids that are handed out in order do not cluster in the table.
+     * @param id id to be mixed
+     * @return Returns the mixed hash of the id.
+     */
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -1,38 +1,195 @@
 package nstaley.inventorysystem;
 
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+
 /**
- * This class holds the list of parts and products and the methods to manipulate those lists.
+ * This class holds the list of parts and products and the methods to manipulate those lists. The inventory can be used
+ * from more than one thread. Every change is made while holding the write side of a StampedLock, id lookups use
+ * optimistic reads that do not block, and other reads share the read side of the lock. The observable lists used by
+ * the tables are a view of the inventory that is only changed on the JavaFX application thread. Once a write-ahead log
+ * has been opened, every change is also recorded in the log while the write lock is held, so the log holds the changes
+ * in the same order they were made.
  * @author Nicholas Staley
  */
 public class Inventory {
     /**
-     * Holds an observable list of the parts that have been created.
+     * Lock guarding the parts, products, and every index over them.
+     */
+    private static final StampedLock lock = new StampedLock();
+    /**
+     * Holds the list of parts that have been created, in the order they were added.
+     */
+    private static ArrayList<Part> parts = new ArrayList<>();
+    /**
+     * Holds the list of products that have been created, in the order they were added.
+     */
+    private static ArrayList<Product> products = new ArrayList<>();
+    /**
+     * Holds an observable list of the parts that have been created. This is the view shown by the tables.
      */
     private static ObservableList<Part> allParts = FXCollections.observableArrayList();
     /**
-     * Holds an observable list of all the products that have been created.
+     * Holds an observable list of all the products that have been created. This is the view shown by the tables.
      */
     private static ObservableList<Product> allProducts = FXCollections.observableArrayList();
     /**
-     * The id for the next part to be added.
+     * Holds if the JavaFX platform has started, after which changes to the observable lists are made on its thread.
+     */
+    private static volatile boolean fxStarted = false;
+    /**
+     * Holds the fields of the parts as columns, row i is the part at index i of the parts list.
+     */
+    private static ColumnStore partColumns = new ColumnStore();
+    /**
+     * Holds the fields of the products as columns, row i is the product at index i of the products list.
+     */
+    private static ColumnStore productColumns = new ColumnStore();
+    /**
+     * Holds an index of the parts keyed by their id.
+     */
+    private static IdIndex<Part> partsById = new IdIndex<>();
+    /**
+     * Holds an index of the products keyed by their id.
+     */
+    private static IdIndex<Product> productsById = new IdIndex<>();
+    /**
+     * Holds an n-gram index of the part names used for the partial name search.
+     */
+    private static NameIndex<Part> partNames = new NameIndex<>(Part::getId, Part::getName);
+    /**
+     * Holds an n-gram index of the product names used for the partial name search.
+     */
+    private static NameIndex<Product> productNames = new NameIndex<>(Product::getId, Product::getName);
+    /**
+     * Holds a prefix tree of the part names used for the search suggestions.
+     */
+    private static NameTrie<Part> partNameTrie = new NameTrie<>(Part::getName);
+    /**
+     * Holds a prefix tree of the product names used for the search suggestions.
+     */
+    private static NameTrie<Product> productNameTrie = new NameTrie<>(Product::getName);
+    /**
+     * Holds one copy of each distinct part and product name in the inventory, shared by every item with that name.
+     */
+    private static final StringPool itemNames = new StringPool();
+    /**
+     * Holds a low stock index of the parts, ordered by how far their stock is above their minimum.
+     */
+    private static ReorderIndex<Part> partReorder = new ReorderIndex<>(Part::getId, Part::getStock, Part::getMin);
+    /**
+     * Holds a low stock index of the products, ordered by how far their stock is above their minimum.
+     */
+    private static ReorderIndex<Product> productReorder =
+            new ReorderIndex<>(Product::getId, Product::getStock, Product::getMin);
+    /**
+     * Holds an ordered index of the parts by price, used for price range searches.
+     */
+    private static RangeIndex<Part> partPrices = new RangeIndex<>(Part::getId, Part::getPrice);
+    /**
+     * Holds an ordered index of the parts by stock, used for stock range searches.
+     */
+    private static RangeIndex<Part> partStocks = new RangeIndex<>(Part::getId, Part::getStock);
+    /**
+     * Holds an ordered index of the products by price, used for price range searches.
+     */
+    private static RangeIndex<Product> productPrices = new RangeIndex<>(Product::getId, Product::getPrice);
+    /**
+     * Holds an ordered index of the products by stock, used for stock range searches.
+     */
+    private static RangeIndex<Product> productStocks = new RangeIndex<>(Product::getId, Product::getStock);
+    /**
+     * Holds if the part name and range indexes have not been built since the inventory was loaded from a snapshot or an
+     * import put them off. While they are pending the indexes are not kept up to date, they are built from the parts
+     * list on first use. The low stock index is always kept up to date, so the low stock panel never has to wait for a
+     * build.
+     */
+    private static volatile boolean partIndexesPending = false;
+    /**
+     * Holds if the product name and range indexes have not been built since the inventory was loaded from a snapshot or
+     * an import put them off.
+     */
+    private static volatile boolean productIndexesPending = false;
+    /**
+     * Holds the where-used index, which maps a part id to the products that have that part associated with them.
+     */
+    private static IdIndex<IdIndex<Product>> productsByPart = new IdIndex<>();
+    /**
+     * Holds the where-used index for sub-assemblies, which maps a product id to the products that use that product as a
+     * sub-assembly.
+     */
+    private static IdIndex<IdIndex<Product>> productsBySubAssembly = new IdIndex<>();
+    /**
+     * Holds the rollup that works out the values each product rolls up from its components, over the indexes above.
+     */
+    private static final ProductRollup rollup = new ProductRollup(partsById, productsById, productsBySubAssembly);
+    /**
+     * The first index in the parts list whose stored slot in the id index may be out of date after a delete.
+     */
+    private static int partSlotsStaleFrom = Integer.MAX_VALUE;
+    /**
+     * The first index in the products list whose stored slot in the id index may be out of date after a delete.
+     */
+    private static int productSlotsStaleFrom = Integer.MAX_VALUE;
+    /**
+     * Holds the number of ids each thread reserves at a time from the id allocators.
+     */
+    private static final int ID_BLOCK_SIZE = 64;
+    /**
+     * Allocator that hands out the ids for new parts.
+     */
+    private static final IdAllocator partIds = new IdAllocator(1, ID_BLOCK_SIZE, id -> lookupPart(id) != null);
+    /**
+     * Allocator that hands out the ids for new products.
+     */
+    private static final IdAllocator productIds =
+            new IdAllocator(1, ID_BLOCK_SIZE, id -> lookupProduct(id) != null);
+    /**
+     * Holds the write-ahead log the changes are recorded in, or null if the inventory is not being saved.
+     */
+    private static volatile WriteAheadLog log;
+    /**
+     * Holds the LSN of the last record each thread added to the log that it has not yet waited on.
      */
-    private static int partIdGen = 4;
+    private static final ThreadLocal<long[]> unwaitedLsn = ThreadLocal.withInitial(() -> new long[1]);
     /**
-     * The id for the next product to be added.
+     * Holds the name of the snapshot file kept in the log directory.
      */
-    private static int productIdGen = 3;
+    public static final String SNAPSHOT_FILE_NAME = "inventory.snapshot";
 
     /**
      * Method to add a new part to the observable parts list.
      * @param newPart part to be added to the list
      */
     public static void addPart(Part newPart) {
-
-        allParts.add(newPart);
+        long stamp = lock.writeLock();
+        try {
+            insertPart(newPart);
+            publish(() -> allParts.add(newPart));
+        }
+        finally {
+            unlockWrite(stamp);
+        }
     }
 
     /**
@@ -40,167 +197,1928 @@ public class Inventory {
      * @param newProduct product to be added to the list
      */
     public static void addProduct(Product newProduct) {
-        allProducts.add(newProduct);
+        long stamp = lock.writeLock();
+        try {
+            checkSubAssemblies(newProduct, newProduct.getId());
+            insertProduct(newProduct);
+            publish(() -> allProducts.add(newProduct));
+            publishProducts(rollup.rollUpWithAncestors(Collections.singletonList(newProduct)));
+        }
+        finally {
+            unlockWrite(stamp);
+        }
     }
 
     /**
-     * Method to look up a part from the observable parts list by the partID.
+     * Method to look up a part from the observable parts list by the partID. The part is found through the id index, so
+     * the search does not have to go through the whole list. The lookup is an optimistic read that only falls back to
+     * taking the read lock if a change was made while it ran.
      * @param partId part id to be used in the search
      * @return Returns the part if it is found in the observable parts list or returns null if it wasn't in the list.
      */
     public static Part lookupPart(int partId) {
-        for (Part part : getAllParts()) {
-            if (partId == part.getId()) {
-                return part;
-            }
+        long stamp = lock.tryOptimisticRead();
+        Part part = partsById.get(partId);
+        if (lock.validate(stamp)) {
+            return part;
+        }
+        stamp = lock.readLock();
+        try {
+            return partsById.get(partId);
+        }
+        finally {
+            lock.unlockRead(stamp);
         }
-
-        return null;
     }
 
     /**
-     * Method to look up a product from the observable products list by the productID.
+     * Method to look up a product from the observable products list by the productID. The product is found through the
+     * id index, so the search does not have to go through the whole list. The lookup is an optimistic read that only
+     * falls back to taking the read lock if a change was made while it ran.
      * @param productId product id to be used in the search
      * @return Returns the product if it is found in the observable products list or returns null if it wasn't in the list.
      */
     public static Product lookupProduct(int productId) {
-        for (Product product : getAllProducts()) {
-            if (productId == product.getId()) {
-                return product;
-            }
+        long stamp = lock.tryOptimisticRead();
+        Product product = productsById.get(productId);
+        if (lock.validate(stamp)) {
+            return product;
+        }
+        stamp = lock.readLock();
+        try {
+            return productsById.get(productId);
+        }
+        finally {
+            lock.unlockRead(stamp);
         }
-        return null;
     }
 
     /**
-     * Method to get an observable list of parts returned with the parts that match the partial name search.
+     * Method to get an observable list of parts returned with the parts that match the partial name search. The search
+     * goes through the name index, so only the parts sharing the rarest piece of the name are checked. An empty name
+     * matches every part, which is copied straight from the parts list.
      * @param name name to be used in the partial name search
      * @return Returns an observable list of parts that can either contain parts if they were found during the search,
      * or can be empty if no matching parts were found in the search.
      */
     public static ObservableList<Part> lookupPart(String name) {
-        ObservableList<Part> searchedParts = FXCollections.observableArrayList();
-        for (Part part : getAllParts()) {
-            String listName = part.getName().toLowerCase();
-            String searchName = name.toLowerCase();
-            if (listName.contains(searchName)) {
-                searchedParts.add(part);
+        if (name.isEmpty()) {
+            long stamp = lock.readLock();
+            try {
+                return FXCollections.observableArrayList(parts);
+            }
+            finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        if (partIndexesPending) {
+            long stamp = lock.writeLock();
+            try {
+                buildPendingIndexes();
             }
+            finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        long stamp = lock.readLock();
+        try {
+            return FXCollections.observableArrayList(partNames.search(name));
+        }
+        finally {
+            lock.unlockRead(stamp);
         }
-        return searchedParts;
     }
 
     /**
-     * Method to get an observable list of products from a search that utilizes a partial name match.
+     * Method to get an observable list of products from a search that utilizes a partial name match. The search goes
+     * through the name index, so only the products sharing the rarest piece of the name are checked. An empty name
+     * matches every product, which is copied straight from the products list.
      * @param name name to be used in the search
      * @return Returns an observable list of products that can either contain products if they were found during the search,
      * or can be empty if no matching parts were found in the search.
      */
     public static ObservableList<Product> lookupProduct(String name) {
-        ObservableList<Product> searchedProducts = FXCollections.observableArrayList();
-        for (Product product : getAllProducts()) {
-            String listName = product.getName().toLowerCase();
-            String searchName = name.toLowerCase();
-            if (listName.contains(searchName)) {
-                searchedProducts.add(product);
+        if (name.isEmpty()) {
+            long stamp = lock.readLock();
+            try {
+                return FXCollections.observableArrayList(products);
+            }
+            finally {
+                lock.unlockRead(stamp);
             }
         }
-        return searchedProducts;
+        if (productIndexesPending) {
+            long stamp = lock.writeLock();
+            try {
+                buildPendingIndexes();
+            }
+            finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        long stamp = lock.readLock();
+        try {
+            return FXCollections.observableArrayList(productNames.search(name));
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     /**
-     * Method to replace the part stored in the observable parts list at the index provided with the part provided.
-     * @param index index in the observable parts list of the part to be replaced
-     * @param selectedPart part to be used as the replacement part
+     * Method to get the names of the parts that start with a prefix, ignoring case, for the search suggestions. The
+     * names are written into a buffer given by the caller, so nothing is created on each key press.
+     * @param prefix text the names must start with
+     * @param names buffer the names are written into, its length is the most names returned
+     * @return Returns an int value representing the number of names written.
+     */
+    public static int suggestPartNames(String prefix, String[] names) {
+        if (partIndexesPending) {
+            long stamp = lock.writeLock();
+            try {
+                buildPendingIndexes();
+            }
+            finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        long stamp = lock.readLock();
+        try {
+            return partNameTrie.suggest(prefix, names);
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Method to get the names of the products that start with a prefix, ignoring case, for the search suggestions.
+     * @param prefix text the names must start with
+     * @param names buffer the names are written into, its length is the most names returned
+     * @return Returns an int value representing the number of names written.
      */
-    public static void updatePart(int index, Part selectedPart) {
-        allParts.set(index, selectedPart);
+    public static int suggestProductNames(String prefix, String[] names) {
+        if (productIndexesPending) {
+            long stamp = lock.writeLock();
+            try {
+                buildPendingIndexes();
+            }
+            finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        long stamp = lock.readLock();
+        try {
+            return productNameTrie.suggest(prefix, names);
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
 
+    /**
+     * Method to replace the part that has the id provided with the part provided. The part's place in the observable
+     * parts list is found through the id index, so this works the same whether or not the table is showing a filtered
+     * search result.
+     * @param partId id of the part to be replaced
+     * @param selectedPart part to be used as the replacement part
+     * @return Returns true if the part was replaced, and false if there is no part with that id.
+     */
+    public static boolean updatePart(int partId, Part selectedPart) {
+        long stamp = lock.writeLock();
+        try {
+            int index = partIndex(partsById.get(partId));
+            if (index < 0) {
+                return false;
+            }
+            replacePartAt(index, selectedPart);
+            publish(() -> allParts.set(index, selectedPart));
+            return true;
+        }
+        finally {
+            unlockWrite(stamp);
+        }
     }
 
     /**
-     * Method to replace the product stored in the observable products list at the index provided with the product provided.
-     * @param index index in the observable products list of the product to be replaced
+     * Method to replace the product that has the id provided with the product provided. The product's place in the
+     * observable products list is found through the id index, so this works the same whether or not the table is showing
+     * a filtered search result.
+     * @param productId id of the product to be replaced
      * @param newProduct product to be used as the replacement product
+     * @return Returns true if the product was replaced, and false if there is no product with that id.
      */
-    public static void updateProduct(int index, Product newProduct) {
-        allProducts.set(index, newProduct);
-
+    public static boolean updateProduct(int productId, Product newProduct) {
+        long stamp = lock.writeLock();
+        try {
+            int index = productIndex(productsById.get(productId));
+            if (index < 0) {
+                return false;
+            }
+            replaceProductAt(index, newProduct);
+            publish(() -> allProducts.set(index, newProduct));
+            return true;
+        }
+        finally {
+            unlockWrite(stamp);
+        }
     }
 
     /**
-     * Method to delete a selected part from the observable parts list.
+     * Method to delete a selected part from the observable parts list. The part is also removed from the bills of
+     * materials of the products that use it, found through the where-used index, so no product is left with a
+     * component that is not in the inventory. Those products and their ancestors are rolled up again. The products
+     * that will lose the part can be listed beforehand with getProductsUsingPart.
      * @param selectedPart part to be deleted
      * @return Returns true if the part was deleted from the list, and false if it has not been deleted.
      */
     public static boolean deletePart(Part selectedPart) {
-        boolean partRemoved = false;
-        partRemoved = allParts.remove(selectedPart);
-        return partRemoved;
+        long stamp = lock.writeLock();
+        try {
+            return removePart(selectedPart);
+        }
+        finally {
+            unlockWrite(stamp);
+        }
     }
 
     /**
      * Method to delete a selected product from the observable products list, but it can only be deleted if there are no
-     * associated parts.
+     * associated parts or sub-assemblies, and no other product uses it as a sub-assembly.
      * @param selectedProduct product to be deleted
-     * @return Returns true if the product was deleted, and returns false if the product had an associated part and could
-     * not be deleted.
+     * @return Returns true if the product was deleted, and returns false if the product had a component or was used as
+     * one and could not be deleted.
      */
     public static boolean deleteProduct(Product selectedProduct) {
-        boolean productRemoved = false;
-        if (selectedProduct.getAssociatedPartsListSize() == 0) {
-            productRemoved = allProducts.remove(selectedProduct);
+        long stamp = lock.writeLock();
+        try {
+            boolean productRemoved = false;
+            if (isDeletable(selectedProduct)) {
+                productRemoved = removeProduct(selectedProduct);
+            }
+            return productRemoved;
         }
+        finally {
+            unlockWrite(stamp);
+        }
+    }
 
-        return productRemoved;
+    /**
+     * Method to add a batch of new parts to the observable parts list. The indexes are updated for every part, but the
+     * observable list only fires a single change, so the tables only lay themselves out once for the whole batch.
+     * Parts whose id is already in use, by the inventory or by an earlier part in the batch, are skipped. The check is
+     * made under the write lock, so a part added from another thread while the batch was being built is never
+     * overwritten and never fails the rest of the batch.
+     * @param newParts parts to be added to the list
+     * @return Returns the parts that were skipped because their id was already in use, in batch order.
+     */
+    public static List<Part> addParts(Collection<? extends Part> newParts) {
+        List<Part> batch = new ArrayList<>(newParts);
+        List<Part> skipped = new ArrayList<>();
+        long stamp = lock.writeLock();
+        try {
+            parts.ensureCapacity(parts.size() + batch.size());
+            partColumns.ensureCapacity(parts.size() + batch.size());
+            List<Part> added = new ArrayList<>(batch.size());
+            try {
+                for (Part newPart : batch) {
+                    if (partsById.get(newPart.getId()) != null) {
+                        skipped.add(newPart);
+                        continue;
+                    }
+                    insertPart(newPart);
+                    added.add(newPart);
+                }
+            }
+            finally {
+                publish(() -> allParts.addAll(added));
+            }
+            return skipped;
+        }
+        finally {
+            unlockWrite(stamp);
+        }
     }
 
     /**
-     * Method to get the observable parts list.
-     * @return Returns the observable parts list.
+     * Method to add a batch of new products to the observable products list. The indexes are updated for every product,
+     * but the observable list only fires a single change. Products whose id is already in use, by the inventory or by
+     * an earlier product in the batch, are skipped, with the check made under the write lock as in addParts.
+     * @param newProducts products to be added to the list
+     * @return Returns the products that were skipped because their id was already in use, in batch order.
      */
-    public static ObservableList<Part> getAllParts() {
-        return allParts;
+    public static List<Product> addProducts(Collection<? extends Product> newProducts) {
+        List<Product> batch = new ArrayList<>(newProducts);
+        List<Product> skipped = new ArrayList<>();
+        long stamp = lock.writeLock();
+        try {
+            products.ensureCapacity(products.size() + batch.size());
+            productColumns.ensureCapacity(products.size() + batch.size());
+            List<Product> added = new ArrayList<>(batch.size());
+            try {
+                for (Product newProduct : batch) {
+                    if (productsById.get(newProduct.getId()) != null) {
+                        skipped.add(newProduct);
+                        continue;
+                    }
+                    checkSubAssemblies(newProduct, newProduct.getId());
+                    insertProduct(newProduct);
+                    added.add(newProduct);
+                }
+            }
+            finally {
+                rollup.rollUpAll(added);
+                publish(() -> allProducts.addAll(added));
+                List<Product> users = new ArrayList<>();
+                for (Product product : added) {
+                    if (productsBySubAssembly.get(product.getId()) != null) {
+                        users.add(product);
+                    }
+                }
+                publishProducts(rollup.rollUpWithAncestors(users));
+            }
+            return skipped;
+        }
+        finally {
+            unlockWrite(stamp);
+        }
     }
 
     /**
-     * Method to get the observable products list.
-     * @return Returns the observable products list.
+     * Method to replace a batch of parts, each keyed by the id of the part it replaces. The observable list only fires a
+     * single change for the whole batch.
+     * @param updatedParts replacement parts keyed by the id of the part to be replaced
+     * @return Returns the number of parts that were replaced. Ids that are not in the inventory are skipped.
      */
-    public static ObservableList<Product> getAllProducts() {
-        return allProducts;
+    public static int updateParts(Map<Integer, ? extends Part> updatedParts) {
+        long stamp = lock.writeLock();
+        try {
+            int replaced = 0;
+            try {
+                for (Map.Entry<Integer, ? extends Part> entry : updatedParts.entrySet()) {
+                    int index = partIndex(partsById.get(entry.getKey()));
+                    if (index >= 0) {
+                        replacePartAt(index, entry.getValue());
+                        replaced += 1;
+                    }
+                }
+            }
+            finally {
+                if (replaced != 0) {
+                    List<Part> view = new ArrayList<>(parts);
+                    publish(() -> allParts.setAll(view));
+                }
+            }
+            return replaced;
+        }
+        finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Method to replace a batch of products, each keyed by the id of the product it replaces. The observable list only
+     * fires a single change for the whole batch.
+     * @param updatedProducts replacement products keyed by the id of the product to be replaced
+     * @return Returns the number of products that were replaced. Ids that are not in the inventory are skipped.
+     */
+    public static int updateProducts(Map<Integer, ? extends Product> updatedProducts) {
+        long stamp = lock.writeLock();
+        try {
+            int replaced = 0;
+            try {
+                for (Map.Entry<Integer, ? extends Product> entry : updatedProducts.entrySet()) {
+                    int index = productIndex(productsById.get(entry.getKey()));
+                    if (index >= 0) {
+                        replaceProductAt(index, entry.getValue());
+                        replaced += 1;
+                    }
+                }
+            }
+            finally {
+                if (replaced != 0) {
+                    List<Product> view = new ArrayList<>(products);
+                    publish(() -> allProducts.setAll(view));
+                }
+            }
+            return replaced;
+        }
+        finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Method to delete a batch of parts from the observable parts list. Just like deletePart, each part is also removed
+     * from the products that use it. The parts list is compacted in one pass and the observable list only fires a
+     * single change.
+     * @param selectedParts parts to be deleted
+     * @return Returns the number of parts that were deleted.
+     */
+    public static int deleteParts(Collection<? extends Part> selectedParts) {
+        long stamp = lock.writeLock();
+        try {
+            Set<Part> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+            Set<Product> users = Collections.newSetFromMap(new IdentityHashMap<>());
+            try {
+                for (Part part : selectedParts) {
+                    if (part != null && partsById.get(part.getId()) == part && !removed.contains(part)) {
+                        users.addAll(removeFromProducts(part.getId()));
+                        if (log != null) {
+                            record(LogRecordCodec.deletePart(part.getId()));
+                        }
+                        removed.add(part);
+                        partsById.remove(part.getId());
+                        unindexPart(part);
+                    }
+                }
+            }
+            finally {
+                if (!removed.isEmpty()) {
+                    partColumns.removeAll(rowsOf(parts, removed));
+                    parts.removeIf(removed::contains);
+                    partSlotsStaleFrom = 0;
+                    publish(() -> allParts.removeAll(removed));
+                }
+                publishProducts(rollup.rollUpWithAncestors(users));
+            }
+            return removed.size();
+        }
+        finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Method to delete a batch of products from the observable products list. Just like deleteProduct, a product is
+     * only deleted if it has no components and is not used as a sub-assembly. The observable list only fires a single
+     * change.
+     * @param selectedProducts products to be deleted
+     * @return Returns the number of products that were deleted.
+     */
+    public static int deleteProducts(Collection<? extends Product> selectedProducts) {
+        long stamp = lock.writeLock();
+        try {
+            Set<Product> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+            try {
+                for (Product product : selectedProducts) {
+                    if (product != null && isDeletable(product) && productsById.get(product.getId()) == product
+                            && !removed.contains(product)) {
+                        if (log != null) {
+                            record(LogRecordCodec.deleteProduct(product.getId()));
+                        }
+                        removed.add(product);
+                        productsById.remove(product.getId());
+                        unindexProduct(product);
+                        unlinkAssociatedParts(product);
+                    }
+                }
+            }
+            finally {
+                if (!removed.isEmpty()) {
+                    productColumns.removeAll(rowsOf(products, removed));
+                    products.removeIf(removed::contains);
+                    productSlotsStaleFrom = 0;
+                    publish(() -> allProducts.removeAll(removed));
+                }
+            }
+            return removed.size();
+        }
+        finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Method to get the total value of the parts in stock, the sum of price times stock over every part. The total is
+     * computed by a sequential scan over the price and stock columns.
+     * @return Returns a double value representing the value of all the parts in stock.
+     */
+    public static double getTotalPartValue() {
+        long stamp = lock.readLock();
+        try {
+            return partColumns.sumPriceTimesStock();
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Method to get the parts priced between two values, including both values. The parts are read from the price
+     * index, so only the matching parts are visited.
+     * @param low lowest price to match
+     * @param high highest price to match
+     * @return Returns an observable list of the matching parts ordered by price and then by id.
+     */
+    public static ObservableList<Part> lookupPartsByPrice(double low, double high) {
+        return lookupPartsByPrice(low, high, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Method to get a page of the parts priced between two values, including both values. Each page takes logarithmic
+     * time to find plus the time to read it.
+     * @param low lowest price to match
+     * @param high highest price to match
+     * @param after last part of the page before, or null for the first page
+     * @param limit most parts to return
+     * @return Returns an observable list of up to limit matching parts ordered by price and then by id, empty once
+     * there are no more.
+     */
+    public static ObservableList<Part> lookupPartsByPrice(double low, double high, Part after, int limit) {
+        return FXCollections.observableArrayList(readIndexes(() -> partPrices.range(low, high, after, limit)));
+    }
+
+    /**
+     * Method to get the parts with a stock between two values, including both values, read from the stock index.
+     * @param low lowest stock to match
+     * @param high highest stock to match
+     * @return Returns an observable list of the matching parts ordered by stock and then by id.
+     */
+    public static ObservableList<Part> lookupPartsByStock(int low, int high) {
+        return lookupPartsByStock(low, high, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Method to get a page of the parts with a stock between two values, including both values.
+     * @param low lowest stock to match
+     * @param high highest stock to match
+     * @param after last part of the page before, or null for the first page
+     * @param limit most parts to return
+     * @return Returns an observable list of up to limit matching parts ordered by stock and then by id, empty once
+     * there are no more.
+     */
+    public static ObservableList<Part> lookupPartsByStock(int low, int high, Part after, int limit) {
+        return FXCollections.observableArrayList(readIndexes(() -> partStocks.range(low, high, after, limit)));
+    }
+
+    /**
+     * Method to get the products priced between two values, including both values, read from the price index.
+     * @param low lowest price to match
+     * @param high highest price to match
+     * @return Returns an observable list of the matching products ordered by price and then by id.
+     */
+    public static ObservableList<Product> lookupProductsByPrice(double low, double high) {
+        return lookupProductsByPrice(low, high, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Method to get a page of the products priced between two values, including both values.
+     * @param low lowest price to match
+     * @param high highest price to match
+     * @param after last product of the page before, or null for the first page
+     * @param limit most products to return
+     * @return Returns an observable list of up to limit matching products ordered by price and then by id, empty once
+     * there are no more.
+     */
+    public static ObservableList<Product> lookupProductsByPrice(double low, double high, Product after, int limit) {
+        return FXCollections.observableArrayList(readIndexes(() -> productPrices.range(low, high, after, limit)));
+    }
+
+    /**
+     * Method to get the products with a stock between two values, including both values, read from the stock index.
+     * @param low lowest stock to match
+     * @param high highest stock to match
+     * @return Returns an observable list of the matching products ordered by stock and then by id.
+     */
+    public static ObservableList<Product> lookupProductsByStock(int low, int high) {
+        return lookupProductsByStock(low, high, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Method to get a page of the products with a stock between two values, including both values.
+     * @param low lowest stock to match
+     * @param high highest stock to match
+     * @param after last product of the page before, or null for the first page
+     * @param limit most products to return
+     * @return Returns an observable list of up to limit matching products ordered by stock and then by id, empty once
+     * there are no more.
+     */
+    public static ObservableList<Product> lookupProductsByStock(int low, int high, Product after, int limit) {
+        return FXCollections.observableArrayList(readIndexes(() -> productStocks.range(low, high, after, limit)));
+    }
+
+    /**
+     * Method to choose the plan for a query from the current indexes, building any indexes that were put off first.
+     * @param query query to be planned
+     * @param <T> type of item searched, either part or product
+     * @return Returns the plan that is expected to read the fewest items.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> QueryPlan<T> planQuery(InventoryQuery<T> query) {
+        if (query.isForParts()) {
+            InventoryQuery<Part> partQuery = (InventoryQuery<Part>) query;
+            return (QueryPlan<T>) readIndexes(() -> new QueryPlan<>(partQuery, partsById, partNames, partReorder,
+                    partPrices, partStocks, parts, partColumns));
+        }
+        InventoryQuery<Product> productQuery = (InventoryQuery<Product>) query;
+        return (QueryPlan<T>) readIndexes(() -> new QueryPlan<>(productQuery, productsById, productNames,
+                productReorder, productPrices, productStocks, products, productColumns));
+    }
+
+    /**
+     * Method to read the items a query plan gives while holding the read lock.
+     * @param plan plan of the query
+     * @param after last item read from the plan before, or null for the first batch
+     * @param limit most items to read from a paged plan
+     * @param <T> type of item searched, either part or product
+     * @return Returns the items read in the order of the plan.
+     */
+    static <T> List<T> readCandidates(QueryPlan<T> plan, T after, int limit) {
+        return readIndexes(() -> plan.candidates(after, limit));
+    }
+
+    /**
+     * Method to visit every part's row in the column store in list order. The same cursor is moved from row to row, so
+     * the visitor must not keep it after the call returns. The read lock is held for the whole scan.
+     * @param visitor visitor called once for each row
+     */
+    public static void scanParts(Consumer<RowCursor> visitor) {
+        long stamp = lock.readLock();
+        try {
+            scan(partColumns, row -> parts.get(row).getId(), row -> parts.get(row).getName(), visitor);
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Method to visit every product's row in the column store in list order. The same cursor is moved from row to row,
+     * so the visitor must not keep it after the call returns. The read lock is held for the whole scan.
+     * @param visitor visitor called once for each row
+     */
+    public static void scanProducts(Consumer<RowCursor> visitor) {
+        long stamp = lock.readLock();
+        try {
+            scan(productColumns, row -> products.get(row).getId(), row -> products.get(row).getName(), visitor);
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Method to get the products that have a part associated with them, using the where-used index.
+     * @param partId id of the part
+     * @return Returns an observable list of the products using the part, ordered by product id. The list is empty if no
+     * product uses the part.
+     */
+    public static ObservableList<Product> getProductsUsingPart(int partId) {
+        ObservableList<Product> users = FXCollections.observableArrayList();
+        long stamp = lock.readLock();
+        try {
+            IdIndex<Product> index = productsByPart.get(partId);
+            if (index != null) {
+                users.addAll(index.values());
+            }
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+        users.sort(Comparator.comparingInt(Product::getId));
+        return users;
+    }
+
+    /**
+     * Method to check if any product has a part associated with it.
+     * @param partId id of the part
+     * @return Returns true if at least one product uses the part.
+     */
+    public static boolean isPartUsed(int partId) {
+        long stamp = lock.readLock();
+        try {
+            return productsByPart.get(partId) != null;
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Method to check if any product uses a product as one of its sub-assemblies.
+     * @param productId id of the product
+     * @return Returns true if at least one product uses the product as a sub-assembly.
+     */
+    public static boolean isUsedAsSubAssembly(int productId) {
+        long stamp = lock.readLock();
+        try {
+            return productsBySubAssembly.get(productId) != null;
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Method to get how many more units of a product could be built from the parts in stock. The quantity is kept up to
+     * date as part stock, components, and sub-assemblies change, so this is only an id lookup.
+     * @param productId id of the product
+     * @return Returns the number of units that could be built, or -1 if there is no product with that id.
+     */
+    public static int getBuildableQuantity(int productId) {
+        long stamp = lock.readLock();
+        try {
+            Product product = productsById.get(productId);
+            return product == null ? -1 : product.getBuildableQuantity();
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     /**
-     * Method to get the id number for the next part to be added.
-     * @return Returns an int value representing the next part's id number.
+     * Method to get the total quantity of each part needed to build one unit of a product, following its sub-assemblies
+     * down to the parts. A sub-assembly used in more than one place is only expanded once.
+     * @param productId id of the product
+     * @return Returns the quantity of each part needed keyed by part id in ascending order, or an empty map if there is
+     * no product with that id.
      */
-    public static int getPartIdGen() {
-        return partIdGen;
+    public static Map<Integer, Long> getLeafPartDemand(int productId) {
+        long stamp = lock.readLock();
+        try {
+            Product product = productsById.get(productId);
+            return product == null ? Collections.emptyMap() : rollup.leafPartDemand(product);
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     /**
-     * Method to increase the part id generator by one after a new part has been added.
+     * Method to get the products that use a product as a sub-assembly, using the where-used index for sub-assemblies.
+     * @param productId id of the product used as a sub-assembly
+     * @return Returns an observable list of the products using it, ordered by product id. The list is empty if no
+     * product uses it.
      */
-    public static void increasePartIdGen() {
-        partIdGen +=1;
+    public static ObservableList<Product> getProductsUsingSubAssembly(int productId) {
+        ObservableList<Product> users = FXCollections.observableArrayList();
+        long stamp = lock.readLock();
+        try {
+            IdIndex<Product> index = productsBySubAssembly.get(productId);
+            if (index != null) {
+                users.addAll(index.values());
+            }
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+        users.sort(Comparator.comparingInt(Product::getId));
+        return users;
     }
 
     /**
-     * Method to get the id number for the next product to be added.
-     * @return Returns an int value representing the id number for the next part to be added.
+     * Method to get the parts whose stock is at or below their minimum. They are read from the front of the low stock
+     * index, so only the matching parts are visited.
+     * @return Returns an observable list of the parts at or below their minimum, the least stock above the minimum
+     * first and then by id.
      */
-    public static int getProductIdGen() {
-        return productIdGen;
+    public static ObservableList<Part> getPartsAtOrBelowMin() {
+        return FXCollections.observableArrayList(readLowStock(() -> partReorder.atOrBelowReorderPoint()));
     }
 
     /**
-     * Method to increase the product id generator by one after a new product has been added.
+     * Method to get the products whose stock is at or below their minimum, in the same way as getPartsAtOrBelowMin.
+     * @return Returns an observable list of the products at or below their minimum, the least stock above the minimum
+     * first and then by id.
      */
-    public static void increaseProductIdGen() {
-        productIdGen += 1;
+    public static ObservableList<Product> getProductsAtOrBelowMin() {
+        return FXCollections.observableArrayList(readLowStock(() -> productReorder.atOrBelowReorderPoint()));
     }
 
+    /**
+     * Method to get the parts closest to running out, the ones with the least stock above their minimum.
+     * @param limit most parts to return
+     * @return Returns an observable list of up to limit parts, the least stock above the minimum first and then by id.
+     */
+    public static ObservableList<Part> getPartsClosestToStockout(int limit) {
+        return FXCollections.observableArrayList(readLowStock(() -> partReorder.closestToStockout(limit)));
+    }
 
+    /**
+     * Method to get the products closest to running out, the ones with the least stock above their minimum.
+     * @param limit most products to return
+     * @return Returns an observable list of up to limit products, the least stock above the minimum first and then by
+     * id.
+     */
+    public static ObservableList<Product> getProductsClosestToStockout(int limit) {
+        return FXCollections.observableArrayList(readLowStock(() -> productReorder.closestToStockout(limit)));
+    }
 
+    /**
+     * Method to count the parts whose stock is at or below their minimum. The count is kept by the low stock index, so
+     * the parts are not scanned.
+     * @return Returns an int value representing the number of parts at or below their minimum stock.
+     */
+    public static int countPartsAtOrBelowMin() {
+        return readLowStock(() -> partReorder.countAtOrBelowReorderPoint());
+    }
+
+    /**
+     * Method to count the products whose stock is at or below their minimum. The count is kept by the low stock index,
+     * so the products are not scanned.
+     * @return Returns an int value representing the number of products at or below their minimum.
+     */
+    public static int countProductsAtOrBelowMin() {
+        return readLowStock(() -> productReorder.countAtOrBelowReorderPoint());
+    }
+
+    /**
+     * Method to read everything the low stock panel shows under a single hold of the read lock, so a refresh costs one
+     * lock round trip however many rows it shows, and the counts and rows all come from the same moment.
+     * @param limit most parts and most products closest to running out to return
+     * @return Returns the low stock counts and the parts and products closest to running out.
+     */
+    public static LowStock getLowStock(int limit) {
+        return readLowStock(() -> new LowStock(partReorder.countAtOrBelowReorderPoint(),
+                productReorder.countAtOrBelowReorderPoint(), partReorder.closestToStockout(limit),
+                productReorder.closestToStockout(limit)));
+    }
+
+    /**
+     * Method to roll up the parts cost and buildable quantity of every product again, spread across the common fork/join
+     * pool. The values are normally kept up to date as changes are made, so this is only needed if a part or product
+     * was changed in place instead of being replaced through the inventory.
+     */
+    public static void recomputeRollups() {
+        long stamp = lock.writeLock();
+        try {
+            rollup.rollUpAll(products);
+            List<Product> view = new ArrayList<>(products);
+            publish(() -> allProducts.setAll(view));
+        }
+        finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Method to get a copy of the parts list that is safe to read from any thread.
+     * @return Returns a list of the parts in the order they were added.
+     */
+    public static List<Part> getPartsSnapshot() {
+        long stamp = lock.readLock();
+        try {
+            return new ArrayList<>(parts);
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Method to get a copy of the products list that is safe to read from any thread.
+     * @return Returns a list of the products in the order they were added.
+     */
+    public static List<Product> getProductsSnapshot() {
+        long stamp = lock.readLock();
+        try {
+            return new ArrayList<>(products);
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Method to get the products and their bills of materials as they were at one moment, for an export. A bill of
+     * materials array is never changed in place, so only the references to the arrays are copied.
+     * @return Returns the view of the products.
+     */
+    static InventoryExporter.ProductsView getProductsView() {
+        long stamp = lock.readLock();
+        try {
+            Product[] productArray = products.toArray(new Product[0]);
+            int[][] boms = new int[productArray.length][];
+            for (int i = 0; i < productArray.length; ++i) {
+                boms[i] = productArray[i].bom();
+            }
+            return new InventoryExporter.ProductsView(productArray, boms);
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Method called by a product to add to or take away from the quantity of one of its components. The change is made
+     * while holding the write lock, and for products that are already in the inventory the where-used indexes, the
+     * rolled up values of the product and its ancestors, and the log are brought up to date along with it.
+     * @param product product whose bill of materials is changed
+     * @param componentId id of the part, or the negated id of a sub-assembly
+     * @param delta amount to add to the quantity, negative to take away
+     * @return Returns true if the quantity was changed, and false if it would have gone below zero.
+     * @throws IllegalArgumentException if a sub-assembly is added that would make a cycle
+     */
+    static boolean changeComponentQuantity(Product product, int componentId, int delta) {
+        long stamp = lock.writeLock();
+        try {
+            int quantity = product.getAssociatedPartQuantity(componentId) + delta;
+            if (quantity < 0) {
+                return false;
+            }
+            componentQuantityChanged(product, componentId, quantity);
+            return true;
+        }
+        finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Method called by a product to set the quantity of one of its components, in the same way as
+     * changeComponentQuantity.
+     * @param product product whose bill of materials is changed
+     * @param componentId id of the part, or the negated id of a sub-assembly
+     * @param quantity new quantity of the component, zero to remove it
+     * @throws IllegalArgumentException if a sub-assembly is added that would make a cycle
+     */
+    static void setComponentQuantity(Product product, int componentId, int quantity) {
+        long stamp = lock.writeLock();
+        try {
+            componentQuantityChanged(product, componentId, quantity);
+        }
+        finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Method to set the quantity of a component in a product's bill of materials and, if the product is in the
+     * inventory, update the where-used indexes, roll up the product and its ancestors, and record the change. The write
+     * lock must be held.
+     * @param product product whose bill of materials is changed
+     * @param componentId id of the part, or the negated id of a sub-assembly
+     * @param quantity new quantity of the component, zero to remove it
+     * @throws IllegalArgumentException if a sub-assembly is added that would make a cycle
+     */
+    private static void componentQuantityChanged(Product product, int componentId, int quantity) {
+        if (componentId < 0 && quantity != 0 && rollup.createsCycle(product.getId(), -componentId)) {
+            throw new IllegalArgumentException("Product " + -componentId + " already uses product " + product.getId()
+                    + ", so it can not be one of its sub-assemblies.");
+        }
+        int oldQuantity = product.getAssociatedPartQuantity(componentId);
+        if (oldQuantity == quantity) {
+            return;
+        }
+        boolean inInventory = productsById.get(product.getId()) == product;
+        if (inInventory && log != null) {
+            record(LogRecordCodec.setAssociatedPartQuantity(product.getId(), componentId, quantity));
+        }
+        product.putQuantity(componentId, quantity);
+        if (!inInventory) {
+            return;
+        }
+        if (oldQuantity == 0) {
+            link(componentId, product);
+        }
+        else if (quantity == 0) {
+            unlink(componentId, product);
+        }
+        publishProducts(rollup.rollUpWithAncestors(Collections.singletonList(product)));
+    }
+
+    /**
+     * Method to check that none of the sub-assemblies of a product being added or replaced already uses it, which would
+     * make a cycle. The write lock must be held.
+     * @param product product being added or used as a replacement
+     * @param replacedId id of the product being replaced, or the product's own id if it is being added
+     * @throws IllegalArgumentException if a sub-assembly already uses the product or the product it replaces
+     */
+    private static void checkSubAssemblies(Product product, int replacedId) {
+        for (int subAssemblyId : product.getSubAssemblyIds()) {
+            if (rollup.createsCycle(product.getId(), subAssemblyId) || rollup.createsCycle(replacedId, subAssemblyId)) {
+                throw new IllegalArgumentException("Product " + subAssemblyId + " already uses product "
+                        + product.getId() + ", so it can not be one of its sub-assemblies.");
+            }
+        }
+    }
+
+    /**
+     * Method to check if a product can be deleted, which is when it has no components and no product uses it as a
+     * sub-assembly. The write lock must be held.
+     * @param product product to be checked
+     * @return Returns true if the product can be deleted.
+     */
+    private static boolean isDeletable(Product product) {
+        return product.bom().length == 0 && productsBySubAssembly.get(product.getId()) == null;
+    }
+
+    /**
+     * Method to add a part to the end of the parts list and to the indexes. The write lock must be held.
+     * @param newPart part to be added
+     * @throws IllegalArgumentException if another part already has the same id
+     */
+    private static void insertPart(Part newPart) {
+        if (partsById.get(newPart.getId()) != null) {
+            throw new IllegalArgumentException("Part id " + newPart.getId() + " is already in use.");
+        }
+        if (log != null) {
+            record(LogRecordCodec.addPart(newPart));
+        }
+        newPart.setName(itemNames.acquire(newPart.getName()));
+        parts.add(newPart);
+        partColumns.append(newPart.getPrice(), newPart.getStock(), newPart.getMin(), newPart.getMax());
+        partIds.observe(newPart.getId());
+        partsById.put(newPart.getId(), newPart);
+        partsById.setSlot(newPart.getId(), parts.size() - 1);
+        indexPart(newPart);
+    }
+
+    /**
+     * Method to add a product to the end of the products list and to the indexes. The write lock must be held.
+     * @param newProduct product to be added
+     * @throws IllegalArgumentException if another product already has the same id
+     */
+    private static void insertProduct(Product newProduct) {
+        if (productsById.get(newProduct.getId()) != null) {
+            throw new IllegalArgumentException("Product id " + newProduct.getId() + " is already in use.");
+        }
+        if (log != null) {
+            record(LogRecordCodec.addProduct(newProduct));
+        }
+        newProduct.setName(itemNames.acquire(newProduct.getName()));
+        products.add(newProduct);
+        productColumns.append(newProduct.getPrice(), newProduct.getStock(), newProduct.getMin(), newProduct.getMax());
+        productIds.observe(newProduct.getId());
+        productsById.put(newProduct.getId(), newProduct);
+        productsById.setSlot(newProduct.getId(), products.size() - 1);
+        indexProduct(newProduct);
+        linkAssociatedParts(newProduct);
+    }
+
+    /**
+     * Method to replace the part at an index in the parts list and update the indexes. The write lock must be held.
+     * @param index index of the part to be replaced
+     * @param selectedPart part to be used as the replacement part
+     * @throws IllegalArgumentException if the replacement has the id of another part
+     */
+    private static void replacePartAt(int index, Part selectedPart) {
+        Part holder = partsById.get(selectedPart.getId());
+        if (holder != null && holder != parts.get(index)) {
+            throw new IllegalArgumentException("Part id " + selectedPart.getId() + " is already in use.");
+        }
+        if (log != null) {
+            record(LogRecordCodec.updatePart(parts.get(index).getId(), selectedPart));
+        }
+        selectedPart.setName(itemNames.acquire(selectedPart.getName()));
+        Part oldPart = parts.set(index, selectedPart);
+        itemNames.release(oldPart.getName());
+        partColumns.set(index, selectedPart.getPrice(), selectedPart.getStock(), selectedPart.getMin(),
+                selectedPart.getMax());
+        partIds.observe(selectedPart.getId());
+        if (partsById.get(oldPart.getId()) == oldPart) {
+            partsById.remove(oldPart.getId());
+        }
+        partsById.put(selectedPart.getId(), selectedPart);
+        partsById.setSlot(selectedPart.getId(), index);
+        reindexPart(oldPart, selectedPart);
+        replaceInProducts(oldPart, selectedPart);
+    }
+
+    /**
+     * Method to replace the product at an index in the products list and update the indexes. The write lock must be
+     * held.
+     * @param index index of the product to be replaced
+     * @param newProduct product to be used as the replacement product
+     * @throws IllegalArgumentException if the replacement has the id of another product, or would make a cycle
+     */
+    private static void replaceProductAt(int index, Product newProduct) {
+        Product holder = productsById.get(newProduct.getId());
+        if (holder != null && holder != products.get(index)) {
+            throw new IllegalArgumentException("Product id " + newProduct.getId() + " is already in use.");
+        }
+        checkSubAssemblies(newProduct, products.get(index).getId());
+        if (log != null) {
+            record(LogRecordCodec.updateProduct(products.get(index).getId(), newProduct));
+        }
+        newProduct.setName(itemNames.acquire(newProduct.getName()));
+        Product oldProduct = products.set(index, newProduct);
+        itemNames.release(oldProduct.getName());
+        productColumns.set(index, newProduct.getPrice(), newProduct.getStock(), newProduct.getMin(),
+                newProduct.getMax());
+        productIds.observe(newProduct.getId());
+        if (productsById.get(oldProduct.getId()) == oldProduct) {
+            productsById.remove(oldProduct.getId());
+        }
+        productsById.put(newProduct.getId(), newProduct);
+        productsById.setSlot(newProduct.getId(), index);
+        reindexProduct(oldProduct, newProduct);
+        unlinkAssociatedParts(oldProduct);
+        linkAssociatedParts(newProduct);
+        replaceInAssemblies(oldProduct, newProduct);
+        publishProducts(rollup.rollUpWithAncestors(Collections.singletonList(newProduct)));
+    }
+
+    /**
+     * Method to remove a part from the parts list, the indexes, and the products that use it. The write lock must be
+     * held.
+     * @param selectedPart part to be removed
+     * @return Returns true if the part was removed.
+     */
+    private static boolean removePart(Part selectedPart) {
+        int index = partIndex(selectedPart);
+        if (index < 0) {
+            return false;
+        }
+        List<Product> users = removeFromProducts(selectedPart.getId());
+        if (log != null) {
+            record(LogRecordCodec.deletePart(selectedPart.getId()));
+        }
+        parts.remove(index);
+        partColumns.remove(index);
+        itemNames.release(selectedPart.getName());
+        partSlotsStaleFrom = Math.min(partSlotsStaleFrom, index);
+        if (partsById.get(selectedPart.getId()) == selectedPart) {
+            partsById.remove(selectedPart.getId());
+        }
+        unindexPart(selectedPart);
+        publish(() -> allParts.remove(index));
+        publishProducts(rollup.rollUpWithAncestors(users));
+        return true;
+    }
+
+    /**
+     * Method to remove a product from the products list and the indexes. The write lock must be held.
+     * @param selectedProduct product to be removed
+     * @return Returns true if the product was removed.
+     */
+    private static boolean removeProduct(Product selectedProduct) {
+        int index = productIndex(selectedProduct);
+        if (index < 0) {
+            return false;
+        }
+        if (log != null) {
+            record(LogRecordCodec.deleteProduct(selectedProduct.getId()));
+        }
+        products.remove(index);
+        productColumns.remove(index);
+        itemNames.release(selectedProduct.getName());
+        productSlotsStaleFrom = Math.min(productSlotsStaleFrom, index);
+        if (productsById.get(selectedProduct.getId()) == selectedProduct) {
+            productsById.remove(selectedProduct.getId());
+        }
+        unindexProduct(selectedProduct);
+        unlinkAssociatedParts(selectedProduct);
+        publish(() -> allProducts.remove(index));
+        return true;
+    }
+
+    /**
+     * Method to load the inventory from a log directory and record every later change in its write-ahead log. If the
+     * directory holds a snapshot it is loaded first, and then only the log records after the snapshot are replayed.
+     * This should be called once at startup before anything else changes the inventory.
+     * @param directory directory the snapshot and log are kept in
+     * @param durability durability mode of the log
+     * @return Returns true if a saved inventory was loaded, and false if the directory was empty.
+     * @throws IOException can throw an IOException if the snapshot or log can not be read or created.
+     */
+    public static boolean openLog(Path directory, WriteAheadLog.Durability durability) throws IOException {
+        if (log != null) {
+            throw new IllegalStateException("A write-ahead log is already open.");
+        }
+        long snapshotLsn = 0;
+        boolean loaded = false;
+        Path snapshotFile = directory.resolve(SNAPSHOT_FILE_NAME);
+        if (Files.isDirectory(directory)) {
+            InventorySnapshot.deleteTemporaryFiles(snapshotFile);
+        }
+        if (Files.exists(snapshotFile)) {
+            InventorySnapshot snapshot = InventorySnapshot.open(snapshotFile);
+            long stamp = lock.writeLock();
+            try {
+                restoreSnapshot(snapshot);
+            }
+            finally {
+                lock.unlockWrite(stamp);
+            }
+            snapshotLsn = snapshot.getLsn();
+            loaded = true;
+        }
+        long[] replayed = new long[1];
+        WriteAheadLog opened = WriteAheadLog.open(directory, durability, snapshotLsn, payload -> {
+            LogRecordCodec.apply(payload);
+            replayed[0] += 1;
+        });
+        log = opened;
+        partIds.setReservationListener(mark -> record(LogRecordCodec.partIdReservation(mark)));
+        productIds.setReservationListener(mark -> record(LogRecordCodec.productIdReservation(mark)));
+        return loaded || replayed[0] > 0;
+    }
+
+    /**
+     * Method to write out every change waiting in the write-ahead log and close it, then save a snapshot so the next
+     * startup does not have to replay the log, and delete the log segments the snapshot covers. Changes made afterwards
+     * are no longer recorded.
+     * @throws IOException can throw an IOException if the snapshot can not be written.
+     */
+    public static void closeLog() throws IOException {
+        WriteAheadLog current = log;
+        if (current == null) {
+            return;
+        }
+        partIds.setReservationListener(null);
+        productIds.setReservationListener(null);
+        InventorySnapshot.State state;
+        long stamp = lock.writeLock();
+        try {
+            log = null;
+            state = captureState(current.getLastLsn());
+        }
+        finally {
+            lock.unlockWrite(stamp);
+        }
+        current.close();
+        InventorySnapshot.write(current.getDirectory().resolve(SNAPSHOT_FILE_NAME), state);
+        current.deleteSegmentsCoveredBy(state.getLsn());
+    }
+
+    /**
+     * Method to get the write-ahead log the changes are recorded in.
+     * @return Returns the open log, or null if no log is open.
+     */
+    static WriteAheadLog getLog() {
+        return log;
+    }
+
+    /**
+     * Method to write a snapshot of the inventory to a file. The inventory is copied while holding the read lock, and
+     * the file is written after the lock is released, so changes are only held up for as long as the copy takes.
+     * @param file snapshot file to be written
+     * @return Returns the LSN of the last log record included in the snapshot, or 0 if no log is open.
+     * @throws IOException can throw an IOException if the snapshot can not be written.
+     */
+    public static long saveSnapshot(Path file) throws IOException {
+        InventorySnapshot.State state;
+        long stamp = lock.readLock();
+        try {
+            WriteAheadLog current = log;
+            state = captureState(current == null ? 0 : current.getLastLsn());
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+        InventorySnapshot.write(file, state);
+        return state.getLsn();
+    }
+
+    /**
+     * Method to copy the inventory for a snapshot. The read or write lock must be held, so the copy matches the log up
+     * to the LSN given.
+     * @param lsn LSN of the last log record included in the copy
+     * @return Returns the copy of the inventory.
+     */
+    private static InventorySnapshot.State captureState(long lsn) {
+        int[][] boms = new int[products.size()][];
+        for (int i = 0; i < products.size(); ++i) {
+            boms[i] = products.get(i).bom();
+        }
+        return new InventorySnapshot.State(lsn, partIds.getHighWaterMark(), productIds.getHighWaterMark(),
+                new ArrayList<>(parts), new ArrayList<>(products), boms);
+    }
+
+    /**
+     * Method to load every part and product in a snapshot into the inventory. The inventory holds its items as objects,
+     * so every record is decoded here rather than when it is first read, with the part records decoded across the
+     * common pool. The columns, id indexes, and low stock indexes are filled as each item is added, and building the
+     * name and range indexes is put off until they are first used. The write lock must be held.
+     * @param snapshot snapshot to be loaded
+     */
+    private static void restoreSnapshot(InventorySnapshot snapshot) {
+        partIndexesPending = true;
+        productIndexesPending = true;
+        Part[] decodedParts = snapshot.decodeParts();
+        parts.ensureCapacity(parts.size() + snapshot.getPartCount());
+        partColumns.ensureCapacity(parts.size() + snapshot.getPartCount());
+        for (int row = 0; row < snapshot.getPartCount(); ++row) {
+            insertPart(decodedParts[row]);
+        }
+        products.ensureCapacity(products.size() + snapshot.getProductCount());
+        productColumns.ensureCapacity(products.size() + snapshot.getProductCount());
+        for (int row = 0; row < snapshot.getProductCount(); ++row) {
+            insertProduct(snapshot.decodeProduct(row));
+        }
+        rollup.rollUpAll(products);
+        partIds.restore(snapshot.getPartHighWaterMark());
+        productIds.restore(snapshot.getProductHighWaterMark());
+        List<Part> partView = new ArrayList<>(parts);
+        List<Product> productView = new ArrayList<>(products);
+        publish(() -> {
+            allParts.setAll(partView);
+            allProducts.setAll(productView);
+        });
+    }
+
+    /**
+     * Method to stop keeping the name and range indexes up to date, so a large import does not pay to update them row
+     * by row. The indexes are rebuilt from the lists by buildIndexes at the end of the import, or the next time they
+     * are used.
+     */
+    static void deferIndexes() {
+        if (partIndexesPending && productIndexesPending) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            partIndexesPending = true;
+            productIndexesPending = true;
+        }
+        finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Method to build the name and range indexes that were put off, on the calling thread. An import calls this once
+     * it has committed its last row, so the first search afterwards does not build them on the FX thread.
+     */
+    static void buildIndexes() {
+        if (!partIndexesPending && !productIndexesPending) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            buildPendingIndexes();
+        }
+        finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Method to build the name and range indexes that were put off when a snapshot was loaded or during an import. The
+     * write lock must be held.
+     */
+    private static void buildPendingIndexes() {
+        if (partIndexesPending) {
+            partNames.clear();
+            partNameTrie.clear();
+            partPrices.clear();
+            partStocks.clear();
+            for (Part part : parts) {
+                partNames.add(part);
+                partNameTrie.add(part);
+                partPrices.add(part);
+                partStocks.add(part);
+            }
+            partIndexesPending = false;
+        }
+        if (productIndexesPending) {
+            productNames.clear();
+            productNameTrie.clear();
+            productPrices.clear();
+            productStocks.clear();
+            for (Product product : products) {
+                productNames.add(product);
+                productNameTrie.add(product);
+                productPrices.add(product);
+                productStocks.add(product);
+            }
+            productIndexesPending = false;
+        }
+    }
+
+    /**
+     * Method to run a query against the low stock indexes while holding the read lock. They are never put off, so
+     * nothing is built first, and the low stock panel can refresh on every list change while an import is running.
+     * @param query query to be run
+     * @param <R> type of the result of the query
+     * @return Returns the result of the query.
+     */
+    private static <R> R readLowStock(Supplier<R> query) {
+        long stamp = lock.readLock();
+        try {
+            return query.get();
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Method to run a query against the name, low stock, or range indexes while holding the read lock, building any
+     * indexes that were put off first.
+     * @param query query to be run
+     * @param <R> type of the result of the query
+     * @return Returns the result of the query.
+     */
+    private static <R> R readIndexes(Supplier<R> query) {
+        if (partIndexesPending || productIndexesPending) {
+            long stamp = lock.writeLock();
+            try {
+                buildPendingIndexes();
+            }
+            finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        long stamp = lock.readLock();
+        try {
+            return query.get();
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Method to add a part to the low stock index, and to the name and range indexes unless they are pending. The write
+     * lock must be held.
+     * @param part part to be indexed
+     */
+    private static void indexPart(Part part) {
+        partReorder.add(part);
+        if (!partIndexesPending) {
+            partNames.add(part);
+            partNameTrie.add(part);
+            partPrices.add(part);
+            partStocks.add(part);
+        }
+    }
+
+    /**
+     * Method to replace a part in the low stock index, and in the name and range indexes unless they are pending. The
+     * write lock must be held.
+     * @param oldPart part to be replaced
+     * @param newPart part used as the replacement
+     */
+    private static void reindexPart(Part oldPart, Part newPart) {
+        partReorder.replace(oldPart, newPart);
+        if (!partIndexesPending) {
+            partNames.replace(oldPart, newPart);
+            partNameTrie.replace(oldPart, newPart);
+            partPrices.replace(oldPart, newPart);
+            partStocks.replace(oldPart, newPart);
+        }
+    }
+
+    /**
+     * Method to remove a part from the low stock index, and from the name and range indexes unless they are pending.
+     * The write lock must be held.
+     * @param part part to be removed
+     */
+    private static void unindexPart(Part part) {
+        partReorder.remove(part);
+        if (!partIndexesPending) {
+            partNames.remove(part);
+            partNameTrie.remove(part);
+            partPrices.remove(part);
+            partStocks.remove(part);
+        }
+    }
+
+    /**
+     * Method to add a product to the low stock index, and to the name and range indexes unless they are pending. The
+     * write lock must be held.
+     * @param product product to be indexed
+     */
+    private static void indexProduct(Product product) {
+        productReorder.add(product);
+        if (!productIndexesPending) {
+            productNames.add(product);
+            productNameTrie.add(product);
+            productPrices.add(product);
+            productStocks.add(product);
+        }
+    }
+
+    /**
+     * Method to replace a product in the low stock index, and in the name and range indexes unless they are pending.
+     * The write lock must be held.
+     * @param oldProduct product to be replaced
+     * @param newProduct product used as the replacement
+     */
+    private static void reindexProduct(Product oldProduct, Product newProduct) {
+        productReorder.replace(oldProduct, newProduct);
+        if (!productIndexesPending) {
+            productNames.replace(oldProduct, newProduct);
+            productNameTrie.replace(oldProduct, newProduct);
+            productPrices.replace(oldProduct, newProduct);
+            productStocks.replace(oldProduct, newProduct);
+        }
+    }
+
+    /**
+     * Method to remove a product from the low stock index, and from the name and range indexes unless they are
+     * pending. The write lock must be held.
+     * @param product product to be removed
+     */
+    private static void unindexProduct(Product product) {
+        productReorder.remove(product);
+        if (!productIndexesPending) {
+            productNames.remove(product);
+            productNameTrie.remove(product);
+            productPrices.remove(product);
+            productStocks.remove(product);
+        }
+    }
+
+    /**
+     * Method to add a record to the write-ahead log, if one is open. Inventory changes call this while holding the write
+     * lock, so the records are in the same order as the changes, and only encode the record when a log is open.
+     * @param payload bytes of the record
+     */
+    private static void record(byte[] payload) {
+        WriteAheadLog current = log;
+        if (current != null) {
+            unwaitedLsn.get()[0] = current.append(payload);
+        }
+    }
+
+    /**
+     * Method to release the write lock and then wait until the records the thread added to the log are stored as the
+     * durability mode asks. The wait happens after the lock is released, so other threads can keep making changes that
+     * join the same group commit.
+     * @param stamp stamp of the write lock
+     */
+    private static void unlockWrite(long stamp) {
+        lock.unlockWrite(stamp);
+        long[] unwaited = unwaitedLsn.get();
+        WriteAheadLog current = log;
+        if (unwaited[0] != 0 && current != null) {
+            long lsn = unwaited[0];
+            unwaited[0] = 0;
+            current.awaitDurable(lsn);
+        }
+    }
+
+    /**
+     * Method called once the JavaFX platform has started, so later changes to the observable lists are handed to the
+     * JavaFX application thread.
+     */
+    static void startPublishing() {
+        fxStarted = true;
+    }
+
+    /**
+     * Method to apply a change to the observable lists on the JavaFX application thread. If the change is made on that
+     * thread, or before the JavaFX platform has started, it is applied right away. Changes are applied in the same order
+     * they were made to the inventory.
+     * @param change change to be applied to the observable lists
+     */
+    private static void publish(Runnable change) {
+        if (!fxStarted || Platform.isFxApplicationThread()) {
+            change.run();
+        }
+        else {
+            Platform.runLater(change);
+        }
+    }
+
+    /**
+     * Method to find the index of a part in the parts list using the slot stored in the id index. The slots
+     * after a delete are only renumbered the next time one of them is needed.
+     * @param part part to find
+     * @return Returns the index of the part, or -1 if it is not in the list.
+     */
+    private static int partIndex(Part part) {
+        if (part == null) {
+            return -1;
+        }
+        int index = partsById.getSlot(part.getId());
+        if (index >= 0 && index < parts.size() && parts.get(index) == part) {
+            return index;
+        }
+        if (partSlotsStaleFrom < parts.size()) {
+            for (int i = partSlotsStaleFrom; i < parts.size(); ++i) {
+                Part listPart = parts.get(i);
+                if (partsById.get(listPart.getId()) == listPart) {
+                    partsById.setSlot(listPart.getId(), i);
+                }
+            }
+            partSlotsStaleFrom = Integer.MAX_VALUE;
+            index = partsById.getSlot(part.getId());
+            if (index >= 0 && index < parts.size() && parts.get(index) == part) {
+                return index;
+            }
+        }
+        return parts.indexOf(part);
+    }
+
+    /**
+     * Method to find the index of a product in the products list using the slot stored in the id index. The
+     * slots after a delete are only renumbered the next time one of them is needed.
+     * @param product product to find
+     * @return Returns the index of the product, or -1 if it is not in the list.
+     */
+    private static int productIndex(Product product) {
+        if (product == null) {
+            return -1;
+        }
+        int index = productsById.getSlot(product.getId());
+        if (index >= 0 && index < products.size() && products.get(index) == product) {
+            return index;
+        }
+        if (productSlotsStaleFrom < products.size()) {
+            for (int i = productSlotsStaleFrom; i < products.size(); ++i) {
+                Product listProduct = products.get(i);
+                if (productsById.get(listProduct.getId()) == listProduct) {
+                    productsById.setSlot(listProduct.getId(), i);
+                }
+            }
+            productSlotsStaleFrom = Integer.MAX_VALUE;
+            index = productsById.getSlot(product.getId());
+            if (index >= 0 && index < products.size() && products.get(index) == product) {
+                return index;
+            }
+        }
+        return products.indexOf(product);
+    }
+
+    /**
+     * Method to move one cursor over every row of a column store.
+     * @param store store to scan
+     * @param idAt function that gets the id of the item in a row
+     * @param nameAt function that gets the name of the item in a row
+     * @param visitor visitor called once for each row
+     */
+    private static void scan(ColumnStore store, IntUnaryOperator idAt, IntFunction<String> nameAt,
+                             Consumer<RowCursor> visitor) {
+        RowCursor cursor = new RowCursor(store, idAt, nameAt);
+        for (int row = 0; row < store.size(); ++row) {
+            cursor.moveTo(row);
+            visitor.accept(cursor);
+        }
+    }
+
+    /**
+     * Method to find the rows of a list that hold any of a set of items.
+     * @param list list to search
+     * @param items items to find, compared by identity
+     * @param <T> type of item in the list
+     * @return Returns the rows holding the items.
+     */
+    private static <T> BitSet rowsOf(List<T> list, Set<T> items) {
+        BitSet rows = new BitSet(list.size());
+        for (int row = 0; row < list.size(); ++row) {
+            if (items.contains(list.get(row))) {
+                rows.set(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Method to add every component of a product to the where-used indexes.
+     * @param product product to be linked
+     */
+    private static void linkAssociatedParts(Product product) {
+        int[] bom = product.bom();
+        for (int entry = 0; entry < bom.length >>> 1; ++entry) {
+            link(bom[entry], product);
+        }
+    }
+
+    /**
+     * Method to remove every component of a product from the where-used indexes.
+     * @param product product to be unlinked
+     */
+    private static void unlinkAssociatedParts(Product product) {
+        int[] bom = product.bom();
+        for (int entry = 0; entry < bom.length >>> 1; ++entry) {
+            unlink(bom[entry], product);
+        }
+    }
+
+    /**
+     * Method to record in the where-used indexes that a product uses a component.
+     * @param componentId id of the part, or the negated id of a sub-assembly
+     * @param product product that uses the component
+     */
+    private static void link(int componentId, Product product) {
+        IdIndex<IdIndex<Product>> index = componentId < 0 ? productsBySubAssembly : productsByPart;
+        IdIndex<Product> users = index.get(Math.abs(componentId));
+        if (users == null) {
+            users = new IdIndex<>();
+            index.put(Math.abs(componentId), users);
+        }
+        users.put(product.getId(), product);
+    }
+
+    /**
+     * Method to remove the record in the where-used indexes that a product uses a component.
+     * @param componentId id of the part, or the negated id of a sub-assembly
+     * @param product product that no longer uses the component
+     */
+    private static void unlink(int componentId, Product product) {
+        IdIndex<IdIndex<Product>> index = componentId < 0 ? productsBySubAssembly : productsByPart;
+        IdIndex<Product> users = index.get(Math.abs(componentId));
+        if (users != null && users.get(product.getId()) == product) {
+            users.remove(product.getId());
+            if (users.size() == 0) {
+                index.remove(Math.abs(componentId));
+            }
+        }
+    }
+
+    /**
+     * Method to take a part that is being deleted out of the bills of materials of every product that uses it, and out
+     * of the where-used index. The products are found through the where-used index. The caller rolls up the products
+     * and their ancestors afterwards. The write lock must be held.
+     * @param partId id of the part being deleted
+     * @return Returns the products that used the part.
+     */
+    private static List<Product> removeFromProducts(int partId) {
+        IdIndex<Product> users = productsByPart.get(partId);
+        if (users == null) {
+            return Collections.emptyList();
+        }
+        if (log != null) {
+            for (Product product : users.values()) {
+                record(LogRecordCodec.setAssociatedPartQuantity(product.getId(), partId, 0));
+            }
+        }
+        productsByPart.remove(partId);
+        for (Product product : users.values()) {
+            product.putQuantity(partId, 0);
+        }
+        return users.values();
+    }
+
+    /**
+     * Method to bring the products that use a replaced part up to date. Products refer to their parts by id, so if the
+     * replacement keeps the id only their rolled up values change; if the id changed, the quantity of the old id is
+     * moved over to the new one. Only the products found through the where-used index are touched.
+     * @param oldPart part that was replaced
+     * @param newPart part used as the replacement
+     */
+    private static void replaceInProducts(Part oldPart, Part newPart) {
+        IdIndex<Product> users = productsByPart.get(oldPart.getId());
+        if (users == null) {
+            return;
+        }
+        List<Product> changed = new ArrayList<>(users.values());
+        for (Product product : changed) {
+            if (oldPart.getId() != newPart.getId()) {
+                int quantity = product.putQuantity(oldPart.getId(), 0);
+                unlink(oldPart.getId(), product);
+                product.putQuantity(newPart.getId(), product.getAssociatedPartQuantity(newPart.getId()) + quantity);
+                link(newPart.getId(), product);
+            }
+        }
+        publishProducts(rollup.rollUpWithAncestors(changed));
+    }
+
+    /**
+     * Method to bring the products that use a replaced product as a sub-assembly up to date. If the replacement keeps
+     * the id nothing needs to change, since sub-assemblies are looked up by id; if the id changed, the quantity of the
+     * old id is moved over to the new one. The caller rolls up the replacement and its ancestors afterwards.
+     * @param oldProduct product that was replaced
+     * @param newProduct product used as the replacement
+     */
+    private static void replaceInAssemblies(Product oldProduct, Product newProduct) {
+        IdIndex<Product> users = productsBySubAssembly.get(oldProduct.getId());
+        if (users == null || oldProduct.getId() == newProduct.getId()) {
+            return;
+        }
+        int oldKey = Product.subAssemblyKey(oldProduct.getId());
+        int newKey = Product.subAssemblyKey(newProduct.getId());
+        for (Product product : new ArrayList<>(users.values())) {
+            int quantity = product.putQuantity(oldKey, 0);
+            unlink(oldKey, product);
+            product.putQuantity(newKey, product.getAssociatedPartQuantity(newKey) + quantity);
+            link(newKey, product);
+        }
+    }
+
+    /**
+     * Method to have the observable products list report products whose rolled up values changed, so the tables show
+     * the new values. A single product is set back in its place. More than one is published as a single change that
+     * replaces the whole list, the same as the batch updates, so a rollup that reaches many products only makes the
+     * listeners run once. The write lock must be held.
+     * @param changed products whose rolled up values changed
+     */
+    private static void publishProducts(Collection<Product> changed) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        if (changed.size() == 1) {
+            Product product = changed.iterator().next();
+            int index = productIndex(product);
+            if (index >= 0) {
+                publish(() -> allProducts.set(index, product));
+            }
+            return;
+        }
+        List<Product> view = new ArrayList<>(products);
+        publish(() -> allProducts.setAll(view));
+    }
+
+    /**
+     * Method to get the observable parts list. The list should only be read on the JavaFX application thread.
+     * @return Returns the observable parts list.
+     */
+    public static ObservableList<Part> getAllParts() {
+        return allParts;
+    }
+
+    /**
+     * Method to get the observable products list. The list should only be read on the JavaFX application thread.
+     * @return Returns the observable products list.
+     */
+    public static ObservableList<Product> getAllProducts() {
+        return allProducts;
+    }
+
+    /**
+     * Method to get a new id for a part that is about to be added. The id is never handed out again, even when
+     * called from more than one thread at once, and is never one already used by a part in the inventory.
+     * @return Returns an int value representing the new part's id number.
+     */
+    public static int nextPartId() {
+        return partIds.nextId();
+    }
+
+    /**
+     * Method to get a new id for a product that is about to be added. The id is never handed out again, even when
+     * called from more than one thread at once, and is never one already used by a product in the inventory.
+     * @return Returns an int value representing the new product's id number.
+     */
+    public static int nextProductId() {
+        return productIds.nextId();
+    }
+
+    /**
+     * Method to get the allocator that hands out part ids.
+     * @return Returns the part id allocator.
+     */
+    static IdAllocator getPartIdAllocator() {
+        return partIds;
+    }
+
+    /**
+     * Method to get the allocator that hands out product ids.
+     * @return Returns the product id allocator.
+     */
+    static IdAllocator getProductIdAllocator() {
+        return productIds;
+    }
+
+    /**
+     * This class holds what the low stock panel shows, read from the low stock indexes at one moment.
+     */
+    public static class LowStock {
+        /**
+         * Holds the number of parts at or below their minimum.
+         */
+        private final int partsLow;
+        /**
+         * Holds the number of products at or below their minimum.
+         */
+        private final int productsLow;
+        /**
+         * Holds the parts closest to running out.
+         */
+        private final List<Part> closestParts;
+        /**
+         * Holds the products closest to running out.
+         */
+        private final List<Product> closestProducts;
+
+        /**
+         * Constructor for the low stock reading.
+         * @param partsLow number of parts at or below their minimum
+         * @param productsLow number of products at or below their minimum
+         * @param closestParts parts closest to running out
+         * @param closestProducts products closest to running out
+         */
+        private LowStock(int partsLow, int productsLow, List<Part> closestParts, List<Product> closestProducts) {
+            this.partsLow = partsLow;
+            this.productsLow = productsLow;
+            this.closestParts = closestParts;
+            this.closestProducts = closestProducts;
+        }
+
+        /**
+         * Method to get the number of parts at or below their minimum.
+         * @return Returns an int value representing the number of parts at or below their minimum stock.
+         */
+        public int getPartsLow() {
+            return partsLow;
+        }
+
+        /**
+         * Method to get the number of products at or below their minimum.
+         * @return Returns an int value representing the number of products at or below their minimum stock.
+         */
+        public int getProductsLow() {
+            return productsLow;
+        }
+
+        /**
+         * Method to get the parts closest to running out.
+         * @return Returns the parts with the least stock above their minimum first and then by id.
+         */
+        public List<Part> getClosestParts() {
+            return Collections.unmodifiableList(closestParts);
+        }
+
+        /**
+         * Method to get the products closest to running out.
+         * @return Returns the products with the least stock above their minimum first and then by id.
+         */
+        public List<Product> getClosestProducts() {
+            return Collections.unmodifiableList(closestProducts);
+        }
+    }
 }
@@ -0,0 +1,500 @@
+package nstaley.inventorysystem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class exports the parts or products of the inventory to CSV or JSON files. The inventory is only locked for as
+ * long as it takes to copy the references to its items, so edits can go on while a large export is written. Every field
+ * is encoded straight into a direct buffer that is written to a FileChannel when it fills, without building a string for
+ * each row. The CSV files use the same columns as the CsvImporter, so an export can be imported again. The file is
+ * written under a temporary name and moved into place when it is complete.
+ * @author Nicholas Staley
+ */
+public class InventoryExporter {
+    /**
+     * This enum lists the file formats that can be exported.
+     */
+    public enum Format {
+        /**
+         * Comma separated values with a header line.
+         */
+        CSV,
+        /**
+         * A JSON array with one object for each item.
+         */
+        JSON
+    }
+
+    /**
+     * Holds the size of the buffer filled before each write to the file.
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * This class holds a consistent view of the products and their bills of materials, taken while holding the read
+     * lock. A bill of materials array is never changed in place, so the view holds the arrays themselves and does not
+     * copy them.
+     */
+    static class ProductsView {
+        /**
+         * Holds the products in list order.
+         */
+        private final Product[] products;
+        /**
+         * Holds the bill of materials array of each product, the part ids followed by the quantity of each.
+         */
+        private final int[][] boms;
+
+        /**
+         * The constructor that initializes the view.
+         * @param products products in list order
+         * @param boms bill of materials array of each product
+         */
+        ProductsView(Product[] products, int[][] boms) {
+            this.products = products;
+            this.boms = boms;
+        }
+    }
+
+    /**
+     * Method to export every part in the inventory.
+     * @param file file to be written
+     * @param format format of the file
+     * @return Returns the number of parts exported.
+     * @throws IOException can throw an IOException if the file can not be written.
+     */
+    public static int exportParts(Path file, Format format) throws IOException {
+        Part[] parts = Inventory.getPartsSnapshot().toArray(new Part[0]);
+        try (ChannelWriter out = new ChannelWriter(file)) {
+            if (format == Format.CSV) {
+                out.ascii("id,type,name,price,stock,min,max,machineIdOrCompanyName\n");
+            }
+            else {
+                out.ascii("[");
+            }
+            for (int i = 0; i < parts.length; ++i) {
+                Part part = parts[i];
+                boolean inHouse = part instanceof InHouse;
+                if (format == Format.CSV) {
+                    out.integer(part.getId());
+                    out.ascii(inHouse ? ",InHouse," : ",Outsourced,");
+                    out.csvText(part.getName());
+                    out.ascii(",");
+                    out.decimal(part.getPrice(), false);
+                    writeCsvStock(out, part.getStock(), part.getMin(), part.getMax());
+                    out.ascii(",");
+                    if (inHouse) {
+                        out.integer(((InHouse) part).getMachineID());
+                    }
+                    else if (((Outsourced) part).getCompanyName() != null) {
+                        out.csvText(((Outsourced) part).getCompanyName());
+                    }
+                    out.ascii("\n");
+                }
+                else {
+                    out.ascii(i == 0 ? "\n{\"id\":" : ",\n{\"id\":");
+                    out.integer(part.getId());
+                    out.ascii(inHouse ? ",\"type\":\"InHouse\",\"name\":" : ",\"type\":\"Outsourced\",\"name\":");
+                    out.jsonText(part.getName());
+                    out.ascii(",\"price\":");
+                    out.decimal(part.getPrice(), true);
+                    writeJsonStock(out, part.getStock(), part.getMin(), part.getMax());
+                    if (inHouse) {
+                        out.ascii(",\"machineId\":");
+                        out.integer(((InHouse) part).getMachineID());
+                    }
+                    else {
+                        out.ascii(",\"companyName\":");
+                        String companyName = ((Outsourced) part).getCompanyName();
+                        if (companyName == null) {
+                            out.ascii("null");
+                        }
+                        else {
+                            out.jsonText(companyName);
+                        }
+                    }
+                    out.ascii("}");
+                }
+            }
+            if (format == Format.JSON) {
+                out.ascii("\n]\n");
+            }
+            out.commit();
+        }
+        return parts.length;
+    }
+
+    /**
+     * Method to export every product in the inventory along with its bill of materials. In a CSV file a part's id is
+     * repeated once for each unit of its quantity, which is how the CsvImporter reads quantities, and sub-assemblies
+     * are left out since the importer has no column for them; in a JSON file each part and each sub-assembly is written
+     * once with its quantity.
+     * @param file file to be written
+     * @param format format of the file
+     * @return Returns the number of products exported.
+     * @throws IOException can throw an IOException if the file can not be written.
+     */
+    public static int exportProducts(Path file, Format format) throws IOException {
+        ProductsView view = Inventory.getProductsView();
+        try (ChannelWriter out = new ChannelWriter(file)) {
+            if (format == Format.CSV) {
+                out.ascii("id,name,price,stock,min,max,partIds\n");
+            }
+            else {
+                out.ascii("[");
+            }
+            for (int i = 0; i < view.products.length; ++i) {
+                Product product = view.products[i];
+                if (format == Format.CSV) {
+                    out.integer(product.getId());
+                    out.ascii(",");
+                    out.csvText(product.getName());
+                    out.ascii(",");
+                    out.decimal(product.getPrice(), false);
+                    writeCsvStock(out, product.getStock(), product.getMin(), product.getMax());
+                    out.ascii(",");
+                    int[] bom = view.boms[i];
+                    int entries = bom.length >>> 1;
+                    boolean first = true;
+                    for (int entry = subAssemblyCount(bom); entry < entries; ++entry) {
+                        for (int unit = 0; unit < bom[entries + entry]; ++unit) {
+                            if (!first) {
+                                out.ascii(";");
+                            }
+                            out.integer(bom[entry]);
+                            first = false;
+                        }
+                    }
+                    out.ascii("\n");
+                }
+                else {
+                    out.ascii(i == 0 ? "\n{\"id\":" : ",\n{\"id\":");
+                    out.integer(product.getId());
+                    out.ascii(",\"name\":");
+                    out.jsonText(product.getName());
+                    out.ascii(",\"price\":");
+                    out.decimal(product.getPrice(), true);
+                    writeJsonStock(out, product.getStock(), product.getMin(), product.getMax());
+                    int[] bom = view.boms[i];
+                    int entries = bom.length >>> 1;
+                    int subAssemblies = subAssemblyCount(bom);
+                    out.ascii(",\"associatedParts\":[");
+                    for (int entry = subAssemblies; entry < entries; ++entry) {
+                        out.ascii(entry == subAssemblies ? "{\"id\":" : ",{\"id\":");
+                        out.integer(bom[entry]);
+                        out.ascii(",\"quantity\":");
+                        out.integer(bom[entries + entry]);
+                        out.ascii("}");
+                    }
+                    out.ascii("],\"subAssemblies\":[");
+                    for (int entry = subAssemblies - 1; entry >= 0; --entry) {
+                        out.ascii(entry == subAssemblies - 1 ? "{\"id\":" : ",{\"id\":");
+                        out.integer(-bom[entry]);
+                        out.ascii(",\"quantity\":");
+                        out.integer(bom[entries + entry]);
+                        out.ascii("}");
+                    }
+                    out.ascii("]}");
+                }
+            }
+            if (format == Format.JSON) {
+                out.ascii("\n]\n");
+            }
+            out.commit();
+        }
+        return view.products.length;
+    }
+
+    /**
+     * Method to count the sub-assemblies at the front of a bill of materials, which are held under negated ids.
+     * @param bom bill of materials array
+     * @return Returns the number of sub-assembly entries.
+     */
+    private static int subAssemblyCount(int[] bom) {
+        int entries = bom.length >>> 1;
+        int count = 0;
+        while (count < entries && bom[count] < 0) {
+            ++count;
+        }
+        return count;
+    }
+
+    /**
+     * Method to write the stock, min, and max columns of a CSV row.
+     * @param out writer to write to
+     * @param stock stock of the item
+     * @param min minimum stock of the item
+     * @param max maximum stock of the item
+     * @throws IOException can throw an IOException if the file can not be written.
+     */
+    private static void writeCsvStock(ChannelWriter out, int stock, int min, int max) throws IOException {
+        out.ascii(",");
+        out.integer(stock);
+        out.ascii(",");
+        out.integer(min);
+        out.ascii(",");
+        out.integer(max);
+    }
+
+    /**
+     * Method to write the stock, min, and max members of a JSON object.
+     * @param out writer to write to
+     * @param stock stock of the item
+     * @param min minimum stock of the item
+     * @param max maximum stock of the item
+     * @throws IOException can throw an IOException if the file can not be written.
+     */
+    private static void writeJsonStock(ChannelWriter out, int stock, int min, int max) throws IOException {
+        out.ascii(",\"stock\":");
+        out.integer(stock);
+        out.ascii(",\"min\":");
+        out.integer(min);
+        out.ascii(",\"max\":");
+        out.integer(max);
+    }
+
+    /**
+     * This class encodes text and numbers as UTF-8 into a direct buffer and writes the buffer to a temporary file each
+     * time it fills. The temporary file is moved over the target when the export is committed, and deleted otherwise.
+     */
+    private static class ChannelWriter implements AutoCloseable {
+        /**
+         * Holds the file being exported to.
+         */
+        private final Path target;
+        /**
+         * Holds the temporary file written until the export is complete.
+         */
+        private final Path temporary;
+        /**
+         * Holds the channel of the temporary file.
+         */
+        private final FileChannel channel;
+        /**
+         * Holds the bytes waiting to be written.
+         */
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        /**
+         * Holds the digits of a number while it is being written, from the last digit back.
+         */
+        private final byte[] digits = new byte[20];
+        /**
+         * Holds if the export was completed and moved into place.
+         */
+        private boolean committed = false;
+
+        /**
+         * The constructor that opens a temporary file next to the target.
+         * @param target file being exported to
+         * @throws IOException can throw an IOException if the temporary file can not be created.
+         */
+        private ChannelWriter(Path target) throws IOException {
+            this.target = target;
+            Path directory = target.toAbsolutePath().getParent();
+            this.temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+            this.channel = FileChannel.open(temporary, StandardOpenOption.WRITE);
+        }
+
+        /**
+         * Method to write text that is known to only hold ASCII characters.
+         * @param text text to be written
+         * @throws IOException can throw an IOException if the file can not be written.
+         */
+        private void ascii(String text) throws IOException {
+            for (int i = 0; i < text.length(); ++i) {
+                put((byte) text.charAt(i));
+            }
+        }
+
+        /**
+         * Method to write an int in decimal.
+         * @param value value to be written
+         * @throws IOException can throw an IOException if the file can not be written.
+         */
+        private void integer(int value) throws IOException {
+            long number = value;
+            if (number < 0) {
+                put((byte) '-');
+                number = -number;
+            }
+            unsigned(number, 1);
+        }
+
+        /**
+         * Method to write a non-negative number in decimal.
+         * @param number number to be written
+         * @param minimumDigits fewest digits to write, padded with leading zeros
+         * @throws IOException can throw an IOException if the file can not be written.
+         */
+        private void unsigned(long number, int minimumDigits) throws IOException {
+            int count = 0;
+            do {
+                digits[count++] = (byte) ('0' + number % 10);
+                number /= 10;
+            } while (number != 0 || count < minimumDigits);
+            while (count > 0) {
+                put(digits[--count]);
+            }
+        }
+
+        /**
+         * Method to write a double. Prices that are a whole number of cents, which is nearly all of them, are written
+         * with two decimal places without building a string; any other value falls back to Double.toString.
+         * @param value value to be written
+         * @param json true if the value is written to JSON, where values that are not finite are written as null
+         * @throws IOException can throw an IOException if the file can not be written.
+         */
+        private void decimal(double value, boolean json) throws IOException {
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                ascii(json ? "null" : Double.toString(value));
+                return;
+            }
+            long cents = Math.round(value * 100);
+            if (Math.abs(value) < 1e13 && cents / 100.0 == value) {
+                if (cents < 0) {
+                    put((byte) '-');
+                    cents = -cents;
+                }
+                unsigned(cents / 100, 1);
+                put((byte) '.');
+                unsigned(cents % 100, 2);
+            }
+            else {
+                ascii(Double.toString(value));
+            }
+        }
+
+        /**
+         * Method to write text as a quoted CSV field, doubling any quotes inside it.
+         * @param text text to be written
+         * @throws IOException can throw an IOException if the file can not be written.
+         */
+        private void csvText(String text) throws IOException {
+            put((byte) '"');
+            for (int i = 0; i < text.length(); ++i) {
+                char c = text.charAt(i);
+                if (c == '"') {
+                    put((byte) '"');
+                }
+                i = utf8(text, i);
+            }
+            put((byte) '"');
+        }
+
+        /**
+         * Method to write text as a JSON string, escaping quotes, backslashes, and control characters.
+         * @param text text to be written
+         * @throws IOException can throw an IOException if the file can not be written.
+         */
+        private void jsonText(String text) throws IOException {
+            put((byte) '"');
+            for (int i = 0; i < text.length(); ++i) {
+                char c = text.charAt(i);
+                if (c == '"' || c == '\\') {
+                    put((byte) '\\');
+                    put((byte) c);
+                }
+                else if (c < 0x20) {
+                    ascii("\\u00");
+                    put((byte) Character.forDigit(c >> 4, 16));
+                    put((byte) Character.forDigit(c & 0xF, 16));
+                }
+                else {
+                    i = utf8(text, i);
+                }
+            }
+            put((byte) '"');
+        }
+
+        /**
+         * Method to write the character at an index of some text as UTF-8, along with the next character if the two
+         * make up a surrogate pair.
+         * @param text text holding the character
+         * @param index index of the character
+         * @return Returns the index of the last character written.
+         * @throws IOException can throw an IOException if the file can not be written.
+         */
+        private int utf8(String text, int index) throws IOException {
+            char c = text.charAt(index);
+            if (c < 0x80) {
+                put((byte) c);
+            }
+            else if (c < 0x800) {
+                put((byte) (0xC0 | (c >> 6)));
+                put((byte) (0x80 | (c & 0x3F)));
+            }
+            else if (Character.isHighSurrogate(c) && index + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(index + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(index + 1));
+                put((byte) (0xF0 | (codePoint >> 18)));
+                put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                put((byte) (0x80 | (codePoint & 0x3F)));
+                return index + 1;
+            }
+            else if (Character.isSurrogate(c)) {
+                put((byte) '?');
+            }
+            else {
+                put((byte) (0xE0 | (c >> 12)));
+                put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                put((byte) (0x80 | (c & 0x3F)));
+            }
+            return index;
+        }
+
+        /**
+         * Method to add a byte to the buffer, writing the buffer to the file first if it is full.
+         * @param b byte to be added
+         * @throws IOException can throw an IOException if the file can not be written.
+         */
+        private void put(byte b) throws IOException {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put(b);
+        }
+
+        /**
+         * Method to write the bytes in the buffer to the file.
+         * @throws IOException can throw an IOException if the file can not be written.
+         */
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        /**
+         * Method to finish the export, writing out the buffer, syncing the file, and moving it over the target.
+         * @throws IOException can throw an IOException if the file can not be written or moved.
+         */
+        private void commit() throws IOException {
+            drain();
+            channel.force(false);
+            channel.close();
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        /**
+         * Method to close the file, deleting it if the export was not committed.
+         * @throws IOException can throw an IOException if the file can not be closed or deleted.
+         */
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                channel.close();
+                Files.deleteIfExists(temporary);
+            }
+        }
+    }
+}
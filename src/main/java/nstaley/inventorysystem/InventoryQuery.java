@@ -0,0 +1,477 @@
+package nstaley.inventorysystem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * This class is a search over the parts or the products in the inventory that combines any number of conditions: the
+ * id, part of the name, a price range, a stock range, a stock at or below the minimum or above the maximum, and for
+ * parts the type, the machine id, and the company name. An item matches when it meets every condition. Setting a
+ * condition again replaces it. When the query is run a plan is chosen that reads the items from the index expected to
+ * give the fewest of them, or scans the column store if no index does better, and checks the other conditions on each
+ * item read. The results are read a page at a time, and explain shows the plan that was chosen.
+ * @param <T> type of item searched, either part or product
+ * @author Nicholas Staley
+ */
+public class InventoryQuery<T> {
+    /**
+     * Holds whether the query searches the parts rather than the products.
+     */
+    private final boolean forParts;
+    /**
+     * Function used to get the id of an item.
+     */
+    private final ToIntFunction<T> idOf;
+    /**
+     * Function used to get the name of an item.
+     */
+    private final Function<T, String> nameOf;
+    /**
+     * Function used to get the price of an item.
+     */
+    private final ToDoubleFunction<T> priceOf;
+    /**
+     * Function used to get the stock of an item.
+     */
+    private final ToIntFunction<T> stockOf;
+    /**
+     * Function used to get the minimum stock of an item.
+     */
+    private final ToIntFunction<T> minOf;
+    /**
+     * Function used to get the maximum stock of an item.
+     */
+    private final ToIntFunction<T> maxOf;
+    /**
+     * Holds the id to match, or null to match any id.
+     */
+    private Integer id = null;
+    /**
+     * Holds the text the name must contain, or null to match any name.
+     */
+    private String nameText = null;
+    /**
+     * Holds the lower case text the name must contain, or null to match any name.
+     */
+    private String lowerNameText = null;
+    /**
+     * Holds whether the price must be in a range.
+     */
+    private boolean hasPriceRange = false;
+    /**
+     * Holds the lowest price to match.
+     */
+    private double priceLow = Double.NEGATIVE_INFINITY;
+    /**
+     * Holds the highest price to match.
+     */
+    private double priceHigh = Double.POSITIVE_INFINITY;
+    /**
+     * Holds whether the stock must be in a range.
+     */
+    private boolean hasStockRange = false;
+    /**
+     * Holds the lowest stock to match.
+     */
+    private int stockLow = Integer.MIN_VALUE;
+    /**
+     * Holds the highest stock to match.
+     */
+    private int stockHigh = Integer.MAX_VALUE;
+    /**
+     * Holds whether the stock must be at or below the minimum.
+     */
+    private boolean atOrBelowMin = false;
+    /**
+     * Holds whether the stock must be above the maximum.
+     */
+    private boolean aboveMax = false;
+    /**
+     * Holds the type of part to match, or null to match either type.
+     */
+    private Class<? extends Part> partType = null;
+    /**
+     * Holds the machine id to match, or null to match any machine id.
+     */
+    private Integer machineId = null;
+    /**
+     * Holds the company name to match, or null to match any company.
+     */
+    private String companyName = null;
+    /**
+     * Holds whether each code of the company name dictionary matches the company name, worked out once per code so a
+     * part is checked by its code alone. It is replaced with a longer one when a part has a code added since.
+     */
+    private volatile boolean[] companyCodeMatches = new boolean[0];
+
+    /**
+     * The constructor that initializes a query that matches every item.
+     * @param forParts true if the query searches the parts, false if it searches the products
+     * @param idOf function that gets the id of an item
+     * @param nameOf function that gets the name of an item
+     * @param priceOf function that gets the price of an item
+     * @param stockOf function that gets the stock of an item
+     * @param minOf function that gets the minimum stock of an item
+     * @param maxOf function that gets the maximum stock of an item
+     */
+    private InventoryQuery(boolean forParts, ToIntFunction<T> idOf, Function<T, String> nameOf,
+                           ToDoubleFunction<T> priceOf, ToIntFunction<T> stockOf, ToIntFunction<T> minOf,
+                           ToIntFunction<T> maxOf) {
+        this.forParts = forParts;
+        this.idOf = idOf;
+        this.nameOf = nameOf;
+        this.priceOf = priceOf;
+        this.stockOf = stockOf;
+        this.minOf = minOf;
+        this.maxOf = maxOf;
+    }
+
+    /**
+     * Method to start a query over the parts that matches every part until conditions are added.
+     * @return Returns a new part query.
+     */
+    public static InventoryQuery<Part> forParts() {
+        return new InventoryQuery<>(true, Part::getId, Part::getName, Part::getPrice, Part::getStock, Part::getMin,
+                Part::getMax);
+    }
+
+    /**
+     * Method to start a query over the products that matches every product until conditions are added.
+     * @return Returns a new product query.
+     */
+    public static InventoryQuery<Product> forProducts() {
+        return new InventoryQuery<>(false, Product::getId, Product::getName, Product::getPrice, Product::getStock,
+                Product::getMin, Product::getMax);
+    }
+
+    /**
+     * Method to match only the item with an id.
+     * @param id id to match
+     * @return Returns this query.
+     */
+    public InventoryQuery<T> id(int id) {
+        this.id = id;
+        return this;
+    }
+
+    /**
+     * Method to match only the items that have some text in their name, ignoring case.
+     * @param text text the name must contain
+     * @return Returns this query.
+     */
+    public InventoryQuery<T> nameContains(String text) {
+        nameText = text;
+        lowerNameText = text.toLowerCase();
+        return this;
+    }
+
+    /**
+     * Method to match only the items priced between two values, including both values.
+     * @param low lowest price to match
+     * @param high highest price to match
+     * @return Returns this query.
+     */
+    public InventoryQuery<T> priceBetween(double low, double high) {
+        hasPriceRange = true;
+        priceLow = low;
+        priceHigh = high;
+        return this;
+    }
+
+    /**
+     * Method to match only the items with a stock between two values, including both values.
+     * @param low lowest stock to match
+     * @param high highest stock to match
+     * @return Returns this query.
+     */
+    public InventoryQuery<T> stockBetween(int low, int high) {
+        hasStockRange = true;
+        stockLow = low;
+        stockHigh = high;
+        return this;
+    }
+
+    /**
+     * Method to match only the items with a stock at or below their minimum.
+     * @return Returns this query.
+     */
+    public InventoryQuery<T> atOrBelowMin() {
+        atOrBelowMin = true;
+        return this;
+    }
+
+    /**
+     * Method to match only the items with a stock above their maximum.
+     * @return Returns this query.
+     */
+    public InventoryQuery<T> aboveMax() {
+        aboveMax = true;
+        return this;
+    }
+
+    /**
+     * Method to match only the parts made in house.
+     * @return Returns this query.
+     * @throws IllegalStateException if the query searches the products
+     */
+    public InventoryQuery<T> inHouse() {
+        requireParts("type");
+        partType = InHouse.class;
+        return this;
+    }
+
+    /**
+     * Method to match only the outsourced parts.
+     * @return Returns this query.
+     * @throws IllegalStateException if the query searches the products
+     */
+    public InventoryQuery<T> outsourced() {
+        requireParts("type");
+        partType = Outsourced.class;
+        return this;
+    }
+
+    /**
+     * Method to match only the parts made in house on a machine.
+     * @param machineId machine id to match
+     * @return Returns this query.
+     * @throws IllegalStateException if the query searches the products
+     */
+    public InventoryQuery<T> machineId(int machineId) {
+        requireParts("machine id");
+        partType = InHouse.class;
+        this.machineId = machineId;
+        return this;
+    }
+
+    /**
+     * Method to match only the parts outsourced to a company, ignoring case.
+     * @param companyName company name to match
+     * @return Returns this query.
+     * @throws IllegalStateException if the query searches the products
+     */
+    public InventoryQuery<T> companyName(String companyName) {
+        requireParts("company name");
+        partType = Outsourced.class;
+        this.companyName = companyName;
+        companyCodeMatches = new boolean[0];
+        return this;
+    }
+
+    /**
+     * Method to run the query. The plan is chosen now, and the items are read as the pages are asked for, so the query
+     * should not be changed while its results are being read.
+     * @return Returns the results of the query, read a page at a time.
+     */
+    public QueryResult<T> run() {
+        return new QueryResult<>(this, Inventory.planQuery(this));
+    }
+
+    /**
+     * Method to show the plan that would be chosen if the query were run now, without running it.
+     * @return Returns a description of the plan, the estimated number of items each way of reading them would give,
+     * and the conditions checked on each item read.
+     */
+    public String explain() {
+        return Inventory.planQuery(this).explain();
+    }
+
+    /**
+     * Method to check if an item meets every condition of the query.
+     * @param item item to check
+     * @return Returns true if the item matches, false if it does not.
+     */
+    public boolean matches(T item) {
+        if (id != null && idOf.applyAsInt(item) != id) {
+            return false;
+        }
+        if (lowerNameText != null && !nameOf.apply(item).toLowerCase().contains(lowerNameText)) {
+            return false;
+        }
+        double price = priceOf.applyAsDouble(item);
+        if (hasPriceRange && !(price >= priceLow && price <= priceHigh)) {
+            return false;
+        }
+        int stock = stockOf.applyAsInt(item);
+        if (hasStockRange && (stock < stockLow || stock > stockHigh)) {
+            return false;
+        }
+        if (atOrBelowMin && stock > minOf.applyAsInt(item)) {
+            return false;
+        }
+        if (aboveMax && stock <= maxOf.applyAsInt(item)) {
+            return false;
+        }
+        if (partType != null && !partType.isInstance(item)) {
+            return false;
+        }
+        if (machineId != null && ((InHouse) item).getMachineID() != machineId) {
+            return false;
+        }
+        return companyName == null || companyMatches(((Outsourced) item).getCompanyNameCode());
+    }
+
+    /**
+     * Method to check if the query searches the parts.
+     * @return Returns true if the query searches the parts, false if it searches the products.
+     */
+    boolean isForParts() {
+        return forParts;
+    }
+
+    /**
+     * Method to get the id to match.
+     * @return Returns the id to match, or null if any id matches.
+     */
+    Integer getId() {
+        return id;
+    }
+
+    /**
+     * Method to get the text the name must contain.
+     * @return Returns the text the name must contain, or null if any name matches.
+     */
+    String getNameText() {
+        return nameText;
+    }
+
+    /**
+     * Method to check if the price must be in a range.
+     * @return Returns true if the query has a price range.
+     */
+    boolean hasPriceRange() {
+        return hasPriceRange;
+    }
+
+    /**
+     * Method to get the lowest price to match.
+     * @return Returns a double value representing the lowest price to match.
+     */
+    double getPriceLow() {
+        return priceLow;
+    }
+
+    /**
+     * Method to get the highest price to match.
+     * @return Returns a double value representing the highest price to match.
+     */
+    double getPriceHigh() {
+        return priceHigh;
+    }
+
+    /**
+     * Method to check if the stock must be in a range.
+     * @return Returns true if the query has a stock range.
+     */
+    boolean hasStockRange() {
+        return hasStockRange;
+    }
+
+    /**
+     * Method to get the lowest stock to match.
+     * @return Returns an int value representing the lowest stock to match.
+     */
+    int getStockLow() {
+        return stockLow;
+    }
+
+    /**
+     * Method to get the highest stock to match.
+     * @return Returns an int value representing the highest stock to match.
+     */
+    int getStockHigh() {
+        return stockHigh;
+    }
+
+    /**
+     * Method to check if the stock must be at or below the minimum.
+     * @return Returns true if only items at or below their minimum match.
+     */
+    boolean isAtOrBelowMin() {
+        return atOrBelowMin;
+    }
+
+    /**
+     * Method to check if the stock must be above the maximum.
+     * @return Returns true if only items above their maximum match.
+     */
+    boolean isAboveMax() {
+        return aboveMax;
+    }
+
+    /**
+     * Method to describe the conditions of the query, leaving out the ones a plan already meets by the way it reads
+     * the items.
+     * @param met plan that reads the items, or null to describe every condition
+     * @return Returns a list with a description of each condition.
+     */
+    List<String> describeConditions(QueryPlan.Access met) {
+        List<String> conditions = new ArrayList<>();
+        boolean scan = met == QueryPlan.Access.SCAN;
+        if (id != null && met != QueryPlan.Access.ID) {
+            conditions.add("id = " + id);
+        }
+        if (nameText != null && met != QueryPlan.Access.NAME) {
+            conditions.add("name contains \"" + nameText + "\"");
+        }
+        if (hasPriceRange && met != QueryPlan.Access.PRICE && !scan) {
+            conditions.add("price between " + priceLow + " and " + priceHigh);
+        }
+        if (hasStockRange && met != QueryPlan.Access.STOCK && !scan) {
+            conditions.add("stock between " + stockLow + " and " + stockHigh);
+        }
+        if (atOrBelowMin && met != QueryPlan.Access.LOW_STOCK && !scan) {
+            conditions.add("stock at or below min");
+        }
+        if (aboveMax && !scan) {
+            conditions.add("stock above max");
+        }
+        if (machineId != null) {
+            conditions.add("machine id = " + machineId);
+        }
+        else if (companyName != null) {
+            conditions.add("company name = \"" + companyName + "\"");
+        }
+        else if (partType != null) {
+            conditions.add(partType == InHouse.class ? "in house" : "outsourced");
+        }
+        return conditions;
+    }
+
+    /**
+     * Method to check if a company name code matches the company name of the query, ignoring case. The codes that match
+     * are worked out from the company name dictionary, which holds far fewer names than there are parts, so each part
+     * only costs an array read.
+     * @param code company name code of a part, or -1 if it has none
+     * @return Returns true if the company name with the code matches.
+     */
+    private boolean companyMatches(int code) {
+        if (code < 0) {
+            return false;
+        }
+        boolean[] matches = companyCodeMatches;
+        if (code >= matches.length) {
+            StringDictionary companies = StringDictionary.COMPANY_NAMES;
+            matches = new boolean[companies.size()];
+            for (int known = 0; known < matches.length; ++known) {
+                matches[known] = companyName.equalsIgnoreCase(companies.decode(known));
+            }
+            companyCodeMatches = matches;
+        }
+        return code < matches.length && matches[code];
+    }
+
+    /**
+     * Method to make sure a part-only condition is not added to a product query.
+     * @param condition name of the condition being added
+     * @throws IllegalStateException if the query searches the products
+     */
+    private void requireParts(String condition) {
+        if (!forParts) {
+            throw new IllegalStateException("Products do not have a " + condition + ".");
+        }
+    }
+}
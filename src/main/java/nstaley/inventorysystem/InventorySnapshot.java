@@ -0,0 +1,505 @@
+package nstaley.inventorysystem;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+/**
+ * This class reads and writes binary snapshots of the whole inventory. A snapshot has a fixed header, a section of
+ * fixed-width part records, a section of fixed-width product records, the bills of materials of the products, and a
+ * string area the records point into. Because every record has the same width, a snapshot is read by mapping the file
+ * into memory and any record can be decoded on its own, without parsing the records before it, which lets a load decode
+ * the records on every core at once. The header holds checksums of the records and of the string area, so a damaged
+ * snapshot is turned down when it is opened instead of loading wrong values. Snapshots are written to a temporary file
+ * that is synced and then moved into place, so a crash never leaves a half-written snapshot behind, and two snapshots
+ * being written at once do not share a temporary file.
+ * @author Nicholas Staley
+ */
+public class InventorySnapshot {
+    /**
+     * Holds the bytes that start every snapshot file.
+     */
+    private static final long MAGIC = 0x494E56534E415031L;
+    /**
+     * Holds the version of the snapshot format written by this class.
+     */
+    public static final int VERSION = 3;
+    /**
+     * Holds the size of the header in bytes.
+     */
+    private static final int HEADER_SIZE = 64;
+    /**
+     * Holds the offset in the header of the checksum of the rest of the header.
+     */
+    private static final int HEADER_CRC = 12;
+    /**
+     * Holds the offset in the header of the checksum of the part, product, and bill of materials records.
+     */
+    private static final int BODY_CRC = 52;
+    /**
+     * Holds the offset in the header of the checksum of the string area.
+     */
+    private static final int STRINGS_CRC = 56;
+    /**
+     * Holds the size of a part record in bytes.
+     */
+    private static final int PART_RECORD_SIZE = 48;
+    /**
+     * Holds the size of a product record in bytes.
+     */
+    private static final int PRODUCT_RECORD_SIZE = 40;
+    /**
+     * Holds the marker for an in-house part.
+     */
+    private static final byte IN_HOUSE = 0;
+    /**
+     * Holds the marker for an outsourced part.
+     */
+    private static final byte OUTSOURCED = 1;
+    /**
+     * Holds the length written for a string that is null.
+     */
+    private static final int NO_STRING = -1;
+
+    /**
+     * Holds the mapped contents of the snapshot file.
+     */
+    private final ByteBuffer buffer;
+    /**
+     * Holds the LSN of the last log record included in the snapshot.
+     */
+    private final long lsn;
+    /**
+     * Holds the high-water mark of the part id allocator.
+     */
+    private final int partHighWaterMark;
+    /**
+     * Holds the high-water mark of the product id allocator.
+     */
+    private final int productHighWaterMark;
+    /**
+     * Holds the number of parts in the inventory.
+     */
+    private final int partCount;
+    /**
+     * Holds the number of part records.
+     */
+    private final int partRecordCount;
+    /**
+     * Holds the number of products in the inventory.
+     */
+    private final int productCount;
+    /**
+     * Holds the offset of the part records.
+     */
+    private final int partsStart;
+    /**
+     * Holds the offset of the product records.
+     */
+    private final int productsStart;
+    /**
+     * Holds the offset of the bills of materials.
+     */
+    private final int linksStart;
+    /**
+     * Holds the offset of the string area.
+     */
+    private final int stringsStart;
+
+    /**
+     * This class holds a consistent copy of the inventory taken to be written as a snapshot.
+     */
+    public static class State {
+        /**
+         * Holds the LSN of the last log record included in the state.
+         */
+        private final long lsn;
+        /**
+         * Holds the high-water mark of the part id allocator.
+         */
+        private final int partHighWaterMark;
+        /**
+         * Holds the high-water mark of the product id allocator.
+         */
+        private final int productHighWaterMark;
+        /**
+         * Holds the parts in list order.
+         */
+        private final List<Part> parts;
+        /**
+         * Holds the products in list order.
+         */
+        private final List<Product> products;
+        /**
+         * Holds the bill of materials array of each product when the state was taken.
+         */
+        private final int[][] boms;
+
+        /**
+         * The constructor that initializes the state.
+         * @param lsn LSN of the last log record included in the state
+         * @param partHighWaterMark high-water mark of the part id allocator
+         * @param productHighWaterMark high-water mark of the product id allocator
+         * @param parts parts in list order
+         * @param products products in list order
+         * @param boms bill of materials array of each product
+         */
+        public State(long lsn, int partHighWaterMark, int productHighWaterMark, List<Part> parts,
+                     List<Product> products, int[][] boms) {
+            this.lsn = lsn;
+            this.partHighWaterMark = partHighWaterMark;
+            this.productHighWaterMark = productHighWaterMark;
+            this.parts = parts;
+            this.products = products;
+            this.boms = boms;
+        }
+
+        /**
+         * Method to get the LSN of the last log record included in the state.
+         * @return Returns a long value representing the LSN.
+         */
+        public long getLsn() {
+            return lsn;
+        }
+    }
+
+    /**
+     * The constructor that reads the header of a mapped snapshot.
+     * @param buffer mapped contents of the snapshot file
+     * @throws IOException can throw an IOException if the file is not a snapshot this version can read.
+     */
+    private InventorySnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getLong(0) != MAGIC) {
+            throw new IOException("The file is not an inventory snapshot.");
+        }
+        int version = buffer.getInt(8);
+        if (version != VERSION) {
+            throw new IOException("Snapshot version " + version + " can not be read, expected version " + VERSION + ".");
+        }
+        if (buffer.getInt(HEADER_CRC) != headerCrc(buffer)) {
+            throw new IOException("The snapshot header is damaged.");
+        }
+        lsn = buffer.getLong(16);
+        partHighWaterMark = buffer.getInt(24);
+        productHighWaterMark = buffer.getInt(28);
+        partCount = buffer.getInt(32);
+        partRecordCount = buffer.getInt(36);
+        productCount = buffer.getInt(40);
+        partsStart = HEADER_SIZE;
+        productsStart = partsStart + partRecordCount * PART_RECORD_SIZE;
+        linksStart = productsStart + productCount * PRODUCT_RECORD_SIZE;
+        stringsStart = linksStart + buffer.getInt(44) * 4;
+        if (stringsStart + buffer.getInt(48) != buffer.capacity()) {
+            throw new IOException("The snapshot is not the size its header says.");
+        }
+        if (buffer.getInt(BODY_CRC) != crc(buffer, partsStart, stringsStart)) {
+            throw new IOException("The snapshot records are damaged.");
+        }
+        if (buffer.getInt(STRINGS_CRC) != crc(buffer, stringsStart, buffer.capacity())) {
+            throw new IOException("The snapshot strings are damaged.");
+        }
+    }
+
+    /**
+     * Method to open a snapshot file by mapping it into memory. The header is read and the checksums of the records and
+     * strings are checked, but nothing is decoded until it is asked for.
+     * @param file snapshot file
+     * @return Returns the opened snapshot.
+     * @throws IOException can throw an IOException if the file can not be read or is not a valid snapshot.
+     */
+    public static InventorySnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshots are limited to 2 GB.");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new InventorySnapshot(mapped.order(ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    /**
+     * Method to write a snapshot file. The snapshot is written to a temporary file next to the target, synced, and then
+     * moved over the target in one step.
+     * @param file snapshot file to be written
+     * @param state copy of the inventory to be written
+     * @throws IOException can throw an IOException if the file can not be written.
+     */
+    public static void write(Path file, State state) throws IOException {
+        List<Part> partRecords = state.parts;
+        int linkCount = 0;
+        for (int[] bom : state.boms) {
+            linkCount += bom.length;
+        }
+
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        int bodySize = partRecords.size() * PART_RECORD_SIZE + state.products.size() * PRODUCT_RECORD_SIZE
+                + linkCount * 4;
+        ByteBuffer body = ByteBuffer.allocate(bodySize).order(ByteOrder.LITTLE_ENDIAN);
+        for (Part part : partRecords) {
+            int base = body.position();
+            body.putInt(base, part.getId());
+            body.put(base + 4, part instanceof InHouse ? IN_HOUSE : OUTSOURCED);
+            body.putDouble(base + 8, part.getPrice());
+            body.putInt(base + 16, part.getStock());
+            body.putInt(base + 20, part.getMin());
+            body.putInt(base + 24, part.getMax());
+            if (part instanceof InHouse) {
+                body.putInt(base + 28, ((InHouse) part).getMachineID());
+                putString(body, base + 40, strings, "");
+            }
+            else {
+                putString(body, base + 40, strings, ((Outsourced) part).getCompanyName());
+            }
+            putString(body, base + 32, strings, part.getName());
+            body.position(base + PART_RECORD_SIZE);
+        }
+        int linkIndex = 0;
+        for (int i = 0; i < state.products.size(); ++i) {
+            Product product = state.products.get(i);
+            int base = body.position();
+            body.putInt(base, product.getId());
+            body.putInt(base + 4, product.getStock());
+            body.putDouble(base + 8, product.getPrice());
+            body.putInt(base + 16, product.getMin());
+            body.putInt(base + 20, product.getMax());
+            putString(body, base + 24, strings, product.getName());
+            body.putInt(base + 32, linkIndex);
+            body.putInt(base + 36, state.boms[i].length >>> 1);
+            linkIndex += state.boms[i].length;
+            body.position(base + PRODUCT_RECORD_SIZE);
+        }
+        for (int[] bom : state.boms) {
+            for (int value : bom) {
+                body.putInt(value);
+            }
+        }
+        body.flip();
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putLong(0, MAGIC);
+        header.putInt(8, VERSION);
+        header.putLong(16, state.lsn);
+        header.putInt(24, state.partHighWaterMark);
+        header.putInt(28, state.productHighWaterMark);
+        header.putInt(32, state.parts.size());
+        header.putInt(36, partRecords.size());
+        header.putInt(40, state.products.size());
+        header.putInt(44, linkCount);
+        header.putInt(48, strings.size());
+        ByteBuffer stringArea = ByteBuffer.wrap(strings.toByteArray());
+        header.putInt(BODY_CRC, crc(body, 0, body.limit()));
+        header.putInt(STRINGS_CRC, crc(stringArea, 0, stringArea.limit()));
+        header.putInt(HEADER_CRC, headerCrc(header));
+
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            for (ByteBuffer section : new ByteBuffer[] {header, body, stringArea}) {
+                while (section.hasRemaining()) {
+                    channel.write(section);
+                }
+            }
+            channel.force(true);
+        }
+        catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(directory);
+    }
+
+    /**
+     * Method to delete the temporary files left next to a snapshot file by writes that were cut short by a crash.
+     * @param file snapshot file
+     * @throws IOException can throw an IOException if the directory can not be read.
+     */
+    public static void deleteTemporaryFiles(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        String prefix = file.getFileName().toString();
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory, prefix + "*.tmp")) {
+            for (Path leftover : leftovers) {
+                Files.deleteIfExists(leftover);
+            }
+        }
+    }
+
+    /**
+     * Method to sync a directory, so a file just moved into it is still there after a crash. Some platforms can not
+     * open a directory for syncing, and there the move is left to the file system.
+     * @param directory directory to be synced
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+        catch (IOException e) {
+            // The directory can not be synced on this platform.
+        }
+    }
+
+    /**
+     * Method to get the LSN of the last log record included in the snapshot. Only log records after it need to be
+     * replayed on top of the snapshot.
+     * @return Returns a long value representing the LSN.
+     */
+    public long getLsn() {
+        return lsn;
+    }
+
+    /**
+     * Method to get the high-water mark of the part id allocator when the snapshot was taken.
+     * @return Returns an int value representing the first part id not reserved.
+     */
+    public int getPartHighWaterMark() {
+        return partHighWaterMark;
+    }
+
+    /**
+     * Method to get the high-water mark of the product id allocator when the snapshot was taken.
+     * @return Returns an int value representing the first product id not reserved.
+     */
+    public int getProductHighWaterMark() {
+        return productHighWaterMark;
+    }
+
+    /**
+     * Method to get the number of parts in the inventory when the snapshot was taken.
+     * @return Returns an int value representing the number of parts.
+     */
+    public int getPartCount() {
+        return partCount;
+    }
+
+    /**
+     * Method to get the number of products in the inventory when the snapshot was taken.
+     * @return Returns an int value representing the number of products.
+     */
+    public int getProductCount() {
+        return productCount;
+    }
+
+    /**
+     * Method to decode the parts of the snapshot, in list order. Every record is decoded on its own, so the records are
+     * split between the threads of the common pool.
+     * @return Returns an array of the decoded parts.
+     */
+    public Part[] decodeParts() {
+        Part[] decoded = new Part[partCount];
+        IntStream.range(0, partCount).parallel().forEach(row -> decoded[row] = decodePart(row));
+        return decoded;
+    }
+
+    /**
+     * Method to decode one part record.
+     * @param row row of the part
+     * @return Returns the decoded part.
+     */
+    public Part decodePart(int row) {
+        int base = partsStart + row * PART_RECORD_SIZE;
+        int id = buffer.getInt(base);
+        String name = getString(base + 32);
+        double price = buffer.getDouble(base + 8);
+        int stock = buffer.getInt(base + 16);
+        int min = buffer.getInt(base + 20);
+        int max = buffer.getInt(base + 24);
+        if (buffer.get(base + 4) == IN_HOUSE) {
+            return new InHouse(id, name, price, stock, min, max, buffer.getInt(base + 28));
+        }
+        return new Outsourced(id, name, price, stock, min, max, getString(base + 40));
+    }
+
+    /**
+     * Method to decode one product record along with its bill of materials.
+     * @param row row of the product
+     * @return Returns the decoded product.
+     */
+    public Product decodeProduct(int row) {
+        int base = productsStart + row * PRODUCT_RECORD_SIZE;
+        Product product = new Product(buffer.getInt(base), getString(base + 24), buffer.getDouble(base + 8),
+                buffer.getInt(base + 4), buffer.getInt(base + 16), buffer.getInt(base + 20));
+        int firstLink = buffer.getInt(base + 32);
+        int linkCount = buffer.getInt(base + 36);
+        int[] bom = new int[linkCount * 2];
+        for (int i = 0; i < bom.length; ++i) {
+            bom[i] = buffer.getInt(linksStart + (firstLink + i) * 4);
+        }
+        product.setBom(bom);
+        return product;
+    }
+
+    /**
+     * Method to decode a string the record at an offset points to.
+     * @param offset offset of the string's offset and length in the record
+     * @return Returns the decoded string, or null if the record holds no string.
+     */
+    private String getString(int offset) {
+        int length = buffer.getInt(offset + 4);
+        if (length == NO_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(stringsStart + buffer.getInt(offset), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Method to add a string to the string area and write its offset and length into a record.
+     * @param body buffer holding the record
+     * @param offset offset in the body to write the string's offset and length at
+     * @param strings string area being built
+     * @param value string to be added, or null to mark the record as holding no string
+     */
+    private static void putString(ByteBuffer body, int offset, ByteArrayOutputStream strings, String value) {
+        if (value == null) {
+            body.putInt(offset, strings.size());
+            body.putInt(offset + 4, NO_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        body.putInt(offset, strings.size());
+        body.putInt(offset + 4, bytes.length);
+        strings.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Method to compute the checksum of the header, leaving out the checksum field itself.
+     * @param header buffer holding the header
+     * @return Returns the checksum of the header.
+     */
+    private static int headerCrc(ByteBuffer header) {
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < HEADER_SIZE; ++i) {
+            if (i < HEADER_CRC || i >= HEADER_CRC + 4) {
+                crc.update(header.get(i));
+            }
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Method to compute the checksum of a range of a buffer without moving its position.
+     * @param buffer buffer holding the bytes
+     * @param from offset of the first byte
+     * @param to offset just past the last byte
+     * @return Returns the checksum of the range.
+     */
+    private static int crc(ByteBuffer buffer, int from, int to) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().limit(to).position(from));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,168 @@
+package nstaley.inventorysystem;
+
+/**
+ * This class holds the rules used to check the fields of a part or product before it is saved. The add and modify forms
+ * and the CSV importer all use these rules, so a record that would be turned down by a form is also turned down by an
+ * import.
+ * @author Nicholas Staley
+ */
+public class ItemValidator {
+    /**
+     * Holds the message for a part without a name.
+     */
+    private static final String PART_NAME_ERROR = "Must enter a part name into the Name text field.\n";
+    /**
+     * Holds the message for a product without a name.
+     */
+    private static final String PRODUCT_NAME_ERROR = "Must enter a product name into the Name text field.\n";
+    /**
+     * Holds the message for a name that begins with a number.
+     */
+    private static final String NAME_NUMBER_ERROR = "Name must not begin with a number.\n";
+    /**
+     * Holds the message for an inventory that is not an integer.
+     */
+    private static final String INV_ERROR = "Must enter an integer into the Inventory text field.\n";
+    /**
+     * Holds the message for a price that is not a double.
+     */
+    private static final String PRICE_ERROR = "Must enter a double into the Price/Cost text Field.\n";
+    /**
+     * Holds the message for a max that is not an integer.
+     */
+    private static final String MAX_ERROR = "Must enter an integer into the Max text field.\n";
+    /**
+     * Holds the message for a min that is not an integer.
+     */
+    private static final String MIN_ERROR = "Must enter an integer into the Min text field.\n";
+    /**
+     * Holds the message for a machine ID that is not an integer.
+     */
+    private static final String MACHINE_ID_ERROR = "Must enter an integer into the Machine ID text field.\n";
+    /**
+     * Holds the message for an outsourced part without a company name.
+     */
+    private static final String COMPANY_NAME_ERROR = "Must enter a name into the Company Name text field. \n";
+    /**
+     * Holds the message for a max below the min.
+     */
+    private static final String MAX_LESS_THAN_MIN_ERROR = "Max must be greater than the Min.\n";
+    /**
+     * Holds the message for an inventory outside the min and max.
+     */
+    private static final String INVENTORY_MAX_MIN_ERROR = "Inventory must be between the Min and Max values.\n";
+
+    /**
+     * Method to check the fields of a part.
+     * @param name name of the part
+     * @param stock inventory of the part
+     * @param price price of the part
+     * @param max maximum stock of the part
+     * @param min minimum stock of the part
+     * @param inHouse true if the part is made in house, false if it is outsourced
+     * @param machineIdOrCompanyName machine ID of an in-house part or company name of an outsourced part
+     * @return Returns a message listing every problem found, or an empty string if the part is valid.
+     */
+    public static String validatePart(String name, String stock, String price, String max, String min, boolean inHouse,
+                                      String machineIdOrCompanyName) {
+        String alertMessage = checkCommonFields(PART_NAME_ERROR, name, stock, price, max, min);
+        if (inHouse) {
+            if (!isInteger(machineIdOrCompanyName)) {
+                alertMessage = alertMessage.concat(MACHINE_ID_ERROR);
+            }
+        }
+        else if (machineIdOrCompanyName.isEmpty()) {
+            alertMessage = alertMessage.concat(COMPANY_NAME_ERROR);
+        }
+        return checkRanges(alertMessage, stock, max, min);
+    }
+
+    /**
+     * Method to check the fields of a product.
+     * @param name name of the product
+     * @param stock inventory of the product
+     * @param price price of the product
+     * @param max maximum stock of the product
+     * @param min minimum stock of the product
+     * @return Returns a message listing every problem found, or an empty string if the product is valid.
+     */
+    public static String validateProduct(String name, String stock, String price, String max, String min) {
+        String alertMessage = checkCommonFields(PRODUCT_NAME_ERROR, name, stock, price, max, min);
+        return checkRanges(alertMessage, stock, max, min);
+    }
+
+    /**
+     * Method to check the name and number fields shared by parts and products.
+     * @param nameErrorMessage message used when the name is empty
+     * @param name name of the item
+     * @param stock inventory of the item
+     * @param price price of the item
+     * @param max maximum stock of the item
+     * @param min minimum stock of the item
+     * @return Returns a message listing every problem found, or an empty string if there were none.
+     */
+    private static String checkCommonFields(String nameErrorMessage, String name, String stock, String price,
+                                            String max, String min) {
+        String alertMessage = "";
+        if (name.isEmpty()) {
+            alertMessage = alertMessage.concat(nameErrorMessage);
+        }
+        else if (Character.isDigit(name.charAt(0))) {
+            alertMessage = alertMessage.concat(NAME_NUMBER_ERROR);
+        }
+        if (!isInteger(stock)) {
+            alertMessage = alertMessage.concat(INV_ERROR);
+        }
+        try {
+            Double.parseDouble(price);
+        }
+        catch (NumberFormatException e) {
+            alertMessage = alertMessage.concat(PRICE_ERROR);
+        }
+        if (!isInteger(max)) {
+            alertMessage = alertMessage.concat(MAX_ERROR);
+        }
+        if (!isInteger(min)) {
+            alertMessage = alertMessage.concat(MIN_ERROR);
+        }
+        return alertMessage;
+    }
+
+    /**
+     * Method to check that the max is at least the min and the inventory is between them. These are only checked if
+     * no other problem was found, since they need every number to be valid.
+     * @param alertMessage problems found so far
+     * @param stock inventory of the item
+     * @param max maximum stock of the item
+     * @param min minimum stock of the item
+     * @return Returns the problems found so far along with any range problem.
+     */
+    private static String checkRanges(String alertMessage, String stock, String max, String min) {
+        if (!alertMessage.isEmpty()) {
+            return alertMessage;
+        }
+        if (Integer.parseInt(max) < Integer.parseInt(min)) {
+            return alertMessage.concat(MAX_LESS_THAN_MIN_ERROR);
+        }
+        int inventory = Integer.parseInt(stock);
+        if (inventory > Integer.parseInt(max) || inventory < Integer.parseInt(min)) {
+            return alertMessage.concat(INVENTORY_MAX_MIN_ERROR);
+        }
+        return alertMessage;
+    }
+
+    /**
+     * Method to check if text is an integer.
+     * @param text text to check
+     * @return Returns true if the text can be parsed as an int.
+     */
+    private static boolean isInteger(String text) {
+        try {
+            Integer.parseInt(text);
+            return true;
+        }
+        catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
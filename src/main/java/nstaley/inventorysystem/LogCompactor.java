@@ -0,0 +1,249 @@
+package nstaley.inventorysystem;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class keeps the write-ahead log from growing without bound. On a background thread it saves a snapshot of the
+ * inventory, starts a new log segment, and deletes the segments the snapshot covers. The snapshot is copied under the
+ * read lock and written after the lock is released, so neither the JavaFX application thread nor other writers wait on
+ * the file being written. The order of the steps keeps the inventory recoverable if the program stops at any point: the
+ * old segments are only deleted after the new snapshot is safely in place, and until then the old snapshot and the full
+ * log are still there.
+ * @author Nicholas Staley
+ */
+public class LogCompactor implements AutoCloseable {
+    /**
+     * This enum names the steps of a compaction that leave the log directory in a different state.
+     */
+    enum Step {
+        /**
+         * The new snapshot has been moved into place.
+         */
+        SNAPSHOT_SAVED,
+        /**
+         * A new log segment has been started.
+         */
+        LOG_ROLLED,
+        /**
+         * The segments covered by the snapshot have been deleted.
+         */
+        SEGMENTS_DELETED
+    }
+
+    /**
+     * Holds the thread the compactions run on.
+     */
+    private final ScheduledExecutorService scheduler;
+    /**
+     * Holds the LSN covered by the last snapshot saved by the compactor.
+     */
+    private long compactedLsn = -1;
+    /**
+     * Holds the number of compactions that have finished.
+     */
+    private volatile long compactionCount = 0;
+    /**
+     * Holds how long the last compaction took in milliseconds.
+     */
+    private volatile long lastDurationMillis = 0;
+    /**
+     * Holds how long the longest compaction took in milliseconds.
+     */
+    private volatile long maxDurationMillis = 0;
+    /**
+     * Holds how long all the compactions took together in milliseconds.
+     */
+    private volatile long totalDurationMillis = 0;
+    /**
+     * Holds the size in bytes of the log before the last compaction.
+     */
+    private volatile long logBytesBefore = 0;
+    /**
+     * Holds the size in bytes of the log after the last compaction.
+     */
+    private volatile long logBytesAfter = 0;
+    /**
+     * Holds the size in bytes of the last snapshot saved.
+     */
+    private volatile long snapshotBytes = 0;
+    /**
+     * Holds the number of log segments deleted by every compaction together.
+     */
+    private volatile long segmentsDeleted = 0;
+    /**
+     * Holds the error from the last compaction that failed, or null if none have failed.
+     */
+    private volatile Exception lastFailure;
+
+    /**
+     * The constructor that creates the compactor. No compactions run until it is started.
+     */
+    public LogCompactor() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-log-compactor");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Method to run a compaction on the background thread every interval.
+     * @param interval time between compactions
+     * @param unit unit of the interval
+     */
+    public void start(long interval, TimeUnit unit) {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                compactNow();
+            }
+            catch (IOException | RuntimeException e) {
+                lastFailure = e;
+            }
+        }, interval, interval, unit);
+    }
+
+    /**
+     * Method to run a compaction on the calling thread. Nothing is done if no log is open or nothing has been recorded
+     * since the last compaction.
+     * @return Returns true if a compaction was run.
+     * @throws IOException can throw an IOException if the snapshot can not be written or a segment can not be deleted.
+     */
+    public synchronized boolean compactNow() throws IOException {
+        WriteAheadLog log = Inventory.getLog();
+        if (log == null || log.getLastLsn() == compactedLsn) {
+            return false;
+        }
+        long start = System.nanoTime();
+        long bytesBefore = log.getSizeOnDisk();
+        Path snapshotFile = log.getDirectory().resolve(Inventory.SNAPSHOT_FILE_NAME);
+        long lsn = Inventory.saveSnapshot(snapshotFile);
+        stepFinished(Step.SNAPSHOT_SAVED);
+        log.roll();
+        stepFinished(Step.LOG_ROLLED);
+        int deleted = log.deleteSegmentsCoveredBy(lsn);
+        stepFinished(Step.SEGMENTS_DELETED);
+        long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        compactedLsn = lsn;
+        logBytesBefore = bytesBefore;
+        logBytesAfter = log.getSizeOnDisk();
+        snapshotBytes = Files.size(snapshotFile);
+        segmentsDeleted += deleted;
+        lastDurationMillis = duration;
+        maxDurationMillis = Math.max(maxDurationMillis, duration);
+        totalDurationMillis += duration;
+        compactionCount += 1;
+        return true;
+    }
+
+    /**
+     * Method called after each step of a compaction, before the next one starts. It does nothing here; a test can
+     * override it to stop a compaction part way through, the way the program stopping would.
+     * @param step step that just finished
+     * @throws IOException can throw an IOException to stop the compaction.
+     */
+    void stepFinished(Step step) throws IOException {
+    }
+
+    /**
+     * Method to stop the background thread, waiting for a compaction that is running to finish.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Method to get the number of compactions that have finished.
+     * @return Returns a long value representing the number of compactions.
+     */
+    public long getCompactionCount() {
+        return compactionCount;
+    }
+
+    /**
+     * Method to get how long the last compaction took.
+     * @return Returns a long value representing the duration in milliseconds.
+     */
+    public long getLastDurationMillis() {
+        return lastDurationMillis;
+    }
+
+    /**
+     * Method to get how long the longest compaction took.
+     * @return Returns a long value representing the duration in milliseconds.
+     */
+    public long getMaxDurationMillis() {
+        return maxDurationMillis;
+    }
+
+    /**
+     * Method to get how long all the compactions took together.
+     * @return Returns a long value representing the duration in milliseconds.
+     */
+    public long getTotalDurationMillis() {
+        return totalDurationMillis;
+    }
+
+    /**
+     * Method to get the size of the log before the last compaction.
+     * @return Returns a long value representing the size in bytes.
+     */
+    public long getLogBytesBefore() {
+        return logBytesBefore;
+    }
+
+    /**
+     * Method to get the size of the log after the last compaction.
+     * @return Returns a long value representing the size in bytes.
+     */
+    public long getLogBytesAfter() {
+        return logBytesAfter;
+    }
+
+    /**
+     * Method to get the current size of the log on disk.
+     * @return Returns a long value representing the size in bytes, or 0 if no log is open.
+     * @throws IOException can throw an IOException if the log directory can not be read.
+     */
+    public long getLogBytes() throws IOException {
+        WriteAheadLog log = Inventory.getLog();
+        return log == null ? 0 : log.getSizeOnDisk();
+    }
+
+    /**
+     * Method to get the size of the last snapshot saved.
+     * @return Returns a long value representing the size in bytes.
+     */
+    public long getSnapshotBytes() {
+        return snapshotBytes;
+    }
+
+    /**
+     * Method to get the number of log segments deleted by every compaction together.
+     * @return Returns a long value representing the number of segments.
+     */
+    public long getSegmentsDeleted() {
+        return segmentsDeleted;
+    }
+
+    /**
+     * Method to get the error from the last compaction that failed on the background thread.
+     * @return Returns the error, or null if no compaction has failed.
+     */
+    public Exception getLastFailure() {
+        return lastFailure;
+    }
+}
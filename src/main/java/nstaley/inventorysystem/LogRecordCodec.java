@@ -0,0 +1,372 @@
+package nstaley.inventorysystem;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * This class turns the changes made to the inventory into the records kept in the write-ahead log, and applies those
+ * records back to the inventory when the log is replayed. Every record starts with a byte giving its type. Parts are
+ * written out in full, including the fields of their subclass, and products are written with their bill of materials
+ * as pairs of part id and quantity.
+ * @author Nicholas Staley
+ */
+public class LogRecordCodec {
+    /**
+     * Holds the type of a record for a part being added.
+     */
+    private static final byte ADD_PART = 1;
+    /**
+     * Holds the type of a record for a part being replaced.
+     */
+    private static final byte UPDATE_PART = 2;
+    /**
+     * Holds the type of a record for a part being deleted.
+     */
+    private static final byte DELETE_PART = 3;
+    /**
+     * Holds the type of a record for a product being added with its bill of materials.
+     */
+    private static final byte ADD_PRODUCT = 4;
+    /**
+     * Holds the type of a record for a product being replaced with its bill of materials.
+     */
+    private static final byte UPDATE_PRODUCT = 5;
+    /**
+     * Holds the type of a record for a product being deleted.
+     */
+    private static final byte DELETE_PRODUCT = 6;
+    /**
+     * Holds the type of a record for the quantity of a part or sub-assembly in a product's bill of materials being set.
+     */
+    private static final byte SET_ASSOCIATED_PART_QUANTITY = 7;
+    /**
+     * Holds the type of a record for a new high-water mark of the part id allocator.
+     */
+    private static final byte PART_ID_RESERVATION = 8;
+    /**
+     * Holds the type of a record for a new high-water mark of the product id allocator.
+     */
+    private static final byte PRODUCT_ID_RESERVATION = 9;
+    /**
+     * Holds the marker written before an in-house part.
+     */
+    private static final byte IN_HOUSE = 0;
+    /**
+     * Holds the marker written before an outsourced part.
+     */
+    private static final byte OUTSOURCED = 1;
+    /**
+     * Holds the marker written before an outsourced part that has no company name, which is then left out.
+     */
+    private static final byte OUTSOURCED_NO_COMPANY = 2;
+
+    /**
+     * Method to encode a part being added.
+     * @param part part that was added
+     * @return Returns the bytes of the record.
+     */
+    public static byte[] addPart(Part part) {
+        Writer out = new Writer(ADD_PART);
+        out.part(part);
+        return out.toBytes();
+    }
+
+    /**
+     * Method to encode a part being replaced.
+     * @param oldId id of the part that was replaced
+     * @param part part used as the replacement
+     * @return Returns the bytes of the record.
+     */
+    public static byte[] updatePart(int oldId, Part part) {
+        Writer out = new Writer(UPDATE_PART);
+        out.integer(oldId);
+        out.part(part);
+        return out.toBytes();
+    }
+
+    /**
+     * Method to encode a part being deleted.
+     * @param partId id of the part that was deleted
+     * @return Returns the bytes of the record.
+     */
+    public static byte[] deletePart(int partId) {
+        Writer out = new Writer(DELETE_PART);
+        out.integer(partId);
+        return out.toBytes();
+    }
+
+    /**
+     * Method to encode a product being added.
+     * @param product product that was added
+     * @return Returns the bytes of the record.
+     */
+    public static byte[] addProduct(Product product) {
+        Writer out = new Writer(ADD_PRODUCT);
+        out.product(product);
+        return out.toBytes();
+    }
+
+    /**
+     * Method to encode a product being replaced.
+     * @param oldId id of the product that was replaced
+     * @param product product used as the replacement
+     * @return Returns the bytes of the record.
+     */
+    public static byte[] updateProduct(int oldId, Product product) {
+        Writer out = new Writer(UPDATE_PRODUCT);
+        out.integer(oldId);
+        out.product(product);
+        return out.toBytes();
+    }
+
+    /**
+     * Method to encode a product being deleted.
+     * @param productId id of the product that was deleted
+     * @return Returns the bytes of the record.
+     */
+    public static byte[] deleteProduct(int productId) {
+        Writer out = new Writer(DELETE_PRODUCT);
+        out.integer(productId);
+        return out.toBytes();
+    }
+
+    /**
+     * Method to encode the quantity of a part or sub-assembly in a product's bill of materials being set.
+     * @param productId id of the product
+     * @param partId id of the part, or the negated id of a sub-assembly
+     * @param quantity new quantity of the component, zero if it was removed
+     * @return Returns the bytes of the record.
+     */
+    public static byte[] setAssociatedPartQuantity(int productId, int partId, int quantity) {
+        Writer out = new Writer(SET_ASSOCIATED_PART_QUANTITY);
+        out.integer(productId);
+        out.integer(partId);
+        out.integer(quantity);
+        return out.toBytes();
+    }
+
+    /**
+     * Method to encode a new high-water mark of the part id allocator.
+     * @param highWaterMark first part id not reserved by any block
+     * @return Returns the bytes of the record.
+     */
+    public static byte[] partIdReservation(int highWaterMark) {
+        Writer out = new Writer(PART_ID_RESERVATION);
+        out.integer(highWaterMark);
+        return out.toBytes();
+    }
+
+    /**
+     * Method to encode a new high-water mark of the product id allocator.
+     * @param highWaterMark first product id not reserved by any block
+     * @return Returns the bytes of the record.
+     */
+    public static byte[] productIdReservation(int highWaterMark) {
+        Writer out = new Writer(PRODUCT_ID_RESERVATION);
+        out.integer(highWaterMark);
+        return out.toBytes();
+    }
+
+    /**
+     * Method to apply a record read from the log to the inventory. Records for parts or products that are no longer
+     * in the inventory are skipped, just like the change they record was.
+     * @param payload bytes of the record
+     */
+    public static void apply(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            byte type = in.readByte();
+            switch (type) {
+                case ADD_PART:
+                    Inventory.addPart(readPart(in));
+                    break;
+                case UPDATE_PART: {
+                    int oldId = in.readInt();
+                    Inventory.updatePart(oldId, readPart(in));
+                    break;
+                }
+                case DELETE_PART: {
+                    Part part = Inventory.lookupPart(in.readInt());
+                    if (part != null) {
+                        Inventory.deletePart(part);
+                    }
+                    break;
+                }
+                case ADD_PRODUCT:
+                    Inventory.addProduct(readProduct(in));
+                    break;
+                case UPDATE_PRODUCT: {
+                    int oldId = in.readInt();
+                    Inventory.updateProduct(oldId, readProduct(in));
+                    break;
+                }
+                case DELETE_PRODUCT: {
+                    Product product = Inventory.lookupProduct(in.readInt());
+                    if (product != null) {
+                        Inventory.deleteProduct(product);
+                    }
+                    break;
+                }
+                case SET_ASSOCIATED_PART_QUANTITY: {
+                    Product product = Inventory.lookupProduct(in.readInt());
+                    int partId = in.readInt();
+                    int quantity = in.readInt();
+                    if (product != null) {
+                        Inventory.setComponentQuantity(product, partId, quantity);
+                    }
+                    break;
+                }
+                case PART_ID_RESERVATION:
+                    Inventory.getPartIdAllocator().restore(in.readInt());
+                    break;
+                case PRODUCT_ID_RESERVATION:
+                    Inventory.getProductIdAllocator().restore(in.readInt());
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown log record type " + type + ".");
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Log record could not be read.", e);
+        }
+    }
+
+    /**
+     * Method to read a part written by the part method of the writer.
+     * @param in stream to read from
+     * @return Returns the part that was read.
+     * @throws IOException can throw an IOException if the record is cut short.
+     */
+    private static Part readPart(DataInputStream in) throws IOException {
+        byte kind = in.readByte();
+        int id = in.readInt();
+        String name = in.readUTF();
+        double price = in.readDouble();
+        int stock = in.readInt();
+        int min = in.readInt();
+        int max = in.readInt();
+        if (kind == IN_HOUSE) {
+            return new InHouse(id, name, price, stock, min, max, in.readInt());
+        }
+        return new Outsourced(id, name, price, stock, min, max, kind == OUTSOURCED ? in.readUTF() : null);
+    }
+
+    /**
+     * Method to read a product written by the product method of the writer, along with its bill of materials.
+     * @param in stream to read from
+     * @return Returns the product that was read.
+     * @throws IOException can throw an IOException if the record is cut short.
+     */
+    private static Product readProduct(DataInputStream in) throws IOException {
+        Product product = new Product(in.readInt(), in.readUTF(), in.readDouble(), in.readInt(), in.readInt(),
+                in.readInt());
+        int[] bom = new int[in.readInt() * 2];
+        for (int i = 0; i < bom.length; ++i) {
+            bom[i] = in.readInt();
+        }
+        product.setBom(bom);
+        return product;
+    }
+
+    /**
+     * This class builds the bytes of one record.
+     */
+    private static class Writer {
+        /**
+         * Holds the bytes written so far.
+         */
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        /**
+         * Holds the stream used to write the fields.
+         */
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        /**
+         * The constructor that starts a record of a type.
+         * @param type type of the record
+         */
+        private Writer(byte type) {
+            try {
+                out.writeByte(type);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Method to write an int.
+         * @param value value to be written
+         */
+        private void integer(int value) {
+            try {
+                out.writeInt(value);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Method to write every field of a part.
+         * @param part part to be written
+         */
+        private void part(Part part) {
+            try {
+                String companyName = part instanceof Outsourced ? ((Outsourced) part).getCompanyName() : null;
+                out.writeByte(part instanceof InHouse ? IN_HOUSE : companyName != null ? OUTSOURCED
+                        : OUTSOURCED_NO_COMPANY);
+                out.writeInt(part.getId());
+                out.writeUTF(part.getName());
+                out.writeDouble(part.getPrice());
+                out.writeInt(part.getStock());
+                out.writeInt(part.getMin());
+                out.writeInt(part.getMax());
+                if (part instanceof InHouse) {
+                    out.writeInt(((InHouse) part).getMachineID());
+                }
+                else if (companyName != null) {
+                    out.writeUTF(companyName);
+                }
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Method to write every field of a product, then the number of entries in its bill of materials followed by the
+         * part ids and then the quantities.
+         * @param product product to be written
+         */
+        private void product(Product product) {
+            try {
+                out.writeInt(product.getId());
+                out.writeUTF(product.getName());
+                out.writeDouble(product.getPrice());
+                out.writeInt(product.getStock());
+                out.writeInt(product.getMin());
+                out.writeInt(product.getMax());
+                int[] bom = product.bom();
+                out.writeInt(bom.length >>> 1);
+                for (int value : bom) {
+                    out.writeInt(value);
+                }
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Method to get the bytes of the finished record.
+         * @return Returns the bytes of the record.
+         */
+        private byte[] toBytes() {
+            return bytes.toByteArray();
+        }
+    }
+}
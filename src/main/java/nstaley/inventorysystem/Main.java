@@ -6,17 +6,41 @@ import javafx.scene.Scene;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
 
 
 /**
- * This class is the main class which loads the test data used, and launches the application.
- * FUTURE ENHANCEMENT - In the future I would like to add database storage for the parts and products. This would not only
- * allow the data to be saved between runs of the program, but would allow much more advanced searches and use for the
- * data that is stored.
+ * This class is the main class which loads the saved inventory, or the test data on the first run, and launches the
+ * application. The parts and products are saved between runs in a snapshot and a write-ahead log kept in the data
+ * directory, which defaults to .inventorysystem in the user's home directory and can be changed with the
+ * inventory.dataDir system property. Setting the inventory.durability system property to batched syncs the log on a
+ * timer instead of after every change. The log is compacted into the snapshot in the background every few minutes, set
+ * by the inventory.compactionMinutes system property.
+ * FUTURE ENHANCEMENT - In the future I would like to add database storage for the parts and products. This would allow
+ * much more advanced searches and use for the data that is stored.
  * RUNTIME/LOGIC ERROR - located in the ModifyPartFormController backToMain method.
  * @author Nicholas Staley
  */
 public class Main extends Application {
+    /**
+     * Holds the name of the system property that sets the directory the inventory is saved in.
+     */
+    public static final String DATA_DIR_PROPERTY = "inventory.dataDir";
+    /**
+     * Holds the name of the system property that sets the durability of the write-ahead log, either sync or batched.
+     */
+    public static final String DURABILITY_PROPERTY = "inventory.durability";
+    /**
+     * Holds the name of the system property that sets the number of minutes between log compactions.
+     */
+    public static final String COMPACTION_MINUTES_PROPERTY = "inventory.compactionMinutes";
+    /**
+     * Holds the compactor that snapshots the inventory and trims the log in the background.
+     */
+    private static final LogCompactor compactor = new LogCompactor();
 
     /**
      * Method to start the graphical application and load the main screen.
@@ -25,6 +49,7 @@ public class Main extends Application {
      */
     @Override
     public void start(Stage stage) throws IOException {
+        Inventory.startPublishing();
         FXMLLoader fxmlLoader = new FXMLLoader(Main.class.getResource("MainForm.fxml"));
         Scene scene = new Scene(fxmlLoader.load(), 1123, 542);
         stage.setTitle("Inventory Management System");
@@ -32,13 +57,46 @@ public class Main extends Application {
         stage.show();
     }
 
+    /**
+     * Method to stop the log compactor, then write out the changes still waiting in the write-ahead log and save a
+     * snapshot when the application is closed.
+     * @throws IOException can throw an IOException if the snapshot can not be written.
+     */
+    @Override
+    public void stop() throws IOException {
+        compactor.close();
+        Inventory.closeLog();
+    }
+
     /**
      * Method main method that starts the application.
      * JavaDocs located at InventorySystem\src\main\JavaDocs\index.html
      * @param args arguments
      */
     public static void main(String[] args) {
+        Path dataDir = Paths.get(System.getProperty(DATA_DIR_PROPERTY,
+                Paths.get(System.getProperty("user.home"), ".inventorysystem").toString()));
+        WriteAheadLog.Durability durability = "batched".equalsIgnoreCase(System.getProperty(DURABILITY_PROPERTY))
+                ? WriteAheadLog.Durability.BATCHED : WriteAheadLog.Durability.SYNC;
+        boolean loaded;
+        try {
+            loaded = Inventory.openLog(dataDir, durability);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("The saved inventory could not be loaded from " + dataDir + ".", e);
+        }
+        if (!loaded) {
+            seedTestData();
+        }
+        compactor.start(Long.getLong(COMPACTION_MINUTES_PROPERTY, 5), TimeUnit.MINUTES);
+
+        launch(args);
+    }
 
+    /**
+     * Method to add the test data to the inventory, used the first time the program is run.
+     */
+    private static void seedTestData() {
         Outsourced part1 = new Outsourced(1, "Frame", 25.00, 20, 1, 100, "Bike Frame Superstore");
         InHouse part2 = new InHouse(2, "Large Tires", 12.99, 56, 1, 999, 1223);
         InHouse part3 = new InHouse(3, "Small Tires", 4.99, 33, 1, 270, 1224);
@@ -56,8 +114,5 @@ public class Main extends Application {
         Inventory.addPart(part3);
         Inventory.addProduct(product1);
         Inventory.addProduct(product2);
-
-
-        launch(args);
     }
 }
\ No newline at end of file
@@ -1,7 +1,9 @@
 package nstaley.inventorysystem;
 
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.collections.WeakListChangeListener;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
@@ -14,16 +16,24 @@ import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
 
 /**
  * This class is the controller for the main form of the inventory management system. It has a table to view the parts
- * and products that are in the inventory system. It also has a search box for both the parts table and the products table.
+ * and products that are in the inventory system, along with what each product's parts cost, its margin, and how
+ * many more could be built. It also has a search box for both the parts table and the products table, and a low stock
+ * panel listing the parts and products closest to running out, which is read from the inventory's low stock indexes
+ * whenever the lists change.
  * There are buttons to add, modify, and delete both parts and products. There is also a button to exit the program.
  * @author Nicholas Staley
  */
 public class MainFormController implements Initializable {
+    /**
+     * Holds the number of parts and products listed in the low stock panel.
+     */
+    private static final int LOW_STOCK_SHOWN = 10;
 
     /**
      * Button used to access the add part screen.
@@ -69,6 +79,18 @@ public class MainFormController implements Initializable {
      * Table column to hold the product's price.
      */
     public TableColumn<Product, Double> tableProductPrice;
+    /**
+     * Table column to hold the total price of the product's associated parts.
+     */
+    public TableColumn<Product, Double> tableProductPartsCost;
+    /**
+     * Table column to hold the product's price less the cost of its parts.
+     */
+    public TableColumn<Product, Double> tableProductMargin;
+    /**
+     * Table column to hold how many more units of the product could be built from the parts in stock.
+     */
+    public TableColumn<Product, Integer> tableProductBuildable;
     /**
      * Table view to hold the parts list.
      */
@@ -105,6 +127,28 @@ public class MainFormController implements Initializable {
      * Button to delete a product.
      */
     public Button deleteProductButton;
+    /**
+     * Label showing how many parts and products are at or below their minimum stock.
+     */
+    public Label lowStockSummary;
+    /**
+     * List of the parts and products closest to running out.
+     */
+    public ListView<String> lowStockList;
+    /**
+     * Listener that updates the form when the parts list changes. It is kept here so the weak listener added to the
+     * inventory's list lives as long as the form.
+     */
+    private final ListChangeListener<Part> partsListener = change -> refreshLowStock();
+    /**
+     * Listener that updates the form when the products list changes, kept here for the same reason as partsListener.
+     */
+    private final ListChangeListener<Product> productsListener = change -> {
+        if (productsTable.getItems() != Inventory.getAllProducts()) {
+            productsTable.refresh();
+        }
+        refreshLowStock();
+    };
 
     /**
      * Method called when main form is accessed, it sets up the parts and products table views.
@@ -118,15 +162,67 @@ public class MainFormController implements Initializable {
         tableProductName.setCellValueFactory(new PropertyValueFactory<>("name"));
         tableProductInventory.setCellValueFactory(new PropertyValueFactory<>("stock"));
         tableProductPrice.setCellValueFactory(new PropertyValueFactory<>("price"));
+        tableProductPartsCost.setCellValueFactory(new PropertyValueFactory<>("partsCost"));
+        tableProductMargin.setCellValueFactory(new PropertyValueFactory<>("margin"));
+        tableProductBuildable.setCellValueFactory(new PropertyValueFactory<>("buildableQuantity"));
+        Inventory.getAllProducts().addListener(new WeakListChangeListener<>(productsListener));
 
         partsTable.setItems(Inventory.getAllParts());
         tablePartId.setCellValueFactory(new PropertyValueFactory<>("id"));
         tablePartName.setCellValueFactory(new PropertyValueFactory<>("name"));
         tablePartInventory.setCellValueFactory(new PropertyValueFactory<>("stock"));
         tablePartPrice.setCellValueFactory(new PropertyValueFactory<>("price"));
+        Inventory.getAllParts().addListener(new WeakListChangeListener<>(partsListener));
 
+        NameSuggestions.attach(mainPartSearch, Inventory::suggestPartNames);
+        NameSuggestions.attach(mainProductSearch, Inventory::suggestProductNames);
+        refreshLowStock();
+    }
 
+    /**
+     * Method to fill the low stock panel from the inventory's low stock indexes, read in one go. The parts and products
+     * closest to running out are merged by how far their stock is above their minimum, so the panel is only as costly
+     * as the number of rows it shows.
+     */
+    private void refreshLowStock() {
+        Inventory.LowStock lowStock = Inventory.getLowStock(LOW_STOCK_SHOWN);
+        int partsLow = lowStock.getPartsLow();
+        int productsLow = lowStock.getProductsLow();
+        lowStockSummary.setText("Low Stock: " + partsLow + (partsLow == 1 ? " part and " : " parts and ") + productsLow
+                + (productsLow == 1 ? " product" : " products") + " at or below their minimum");
+        List<Part> lowParts = lowStock.getClosestParts();
+        List<Product> lowProducts = lowStock.getClosestProducts();
+        ObservableList<String> rows = FXCollections.observableArrayList();
+        int part = 0;
+        int product = 0;
+        while (rows.size() < LOW_STOCK_SHOWN && (part < lowParts.size() || product < lowProducts.size())) {
+            boolean takePart = product >= lowProducts.size() || (part < lowParts.size()
+                    && (long) lowParts.get(part).getStock() - lowParts.get(part).getMin()
+                    <= (long) lowProducts.get(product).getStock() - lowProducts.get(product).getMin());
+            if (takePart) {
+                Part next = lowParts.get(part++);
+                rows.add(lowStockRow("Part", next.getId(), next.getName(), next.getStock(), next.getMin()));
+            }
+            else {
+                Product next = lowProducts.get(product++);
+                rows.add(lowStockRow("Product", next.getId(), next.getName(), next.getStock(), next.getMin()));
+            }
+        }
+        lowStockList.setItems(rows);
+    }
 
+    /**
+     * Method to build the text of a row in the low stock panel.
+     * @param kind Part or Product
+     * @param id id of the item
+     * @param name name of the item
+     * @param stock stock of the item
+     * @param min minimum stock of the item
+     * @return Returns the text of the row.
+     */
+    private static String lowStockRow(String kind, int id, String name, int stock, int min) {
+        return kind + " " + id + " " + name + ": " + stock + " in stock, min " + min
+                + (stock <= min ? " (reorder)" : "");
     }
 
     /**
@@ -175,10 +271,6 @@ public class MainFormController implements Initializable {
             ModifyPartFormController.setOutsourcedPartModify(partToModify);
             partToModify = null;
         }
-        int indexToModify = partsTable.getSelectionModel().getSelectedIndex();
-        ModifyPartFormController.setModifyIndex(indexToModify);
-
-
 
         try {
             Parent root = FXMLLoader.load(getClass().getResource("/nstaley/inventorysystem/ModifyPartForm.fxml"));
@@ -230,9 +322,7 @@ public class MainFormController implements Initializable {
         }
 
         Product productToModify = productsTable.getSelectionModel().getSelectedItem();
-        int indexToModify = productsTable.getSelectionModel().getSelectedIndex();
         ModifyProductFormController.setModifyProduct(productToModify);
-        ModifyProductFormController.setModifyIndex(indexToModify);
         try {
             Parent root = FXMLLoader.load(getClass().getResource("/nstaley/inventorysystem/ModifyProductForm.fxml"));
             Stage stage = (Stage) ((Button) actionEvent.getSource()).getScene().getWindow();
@@ -251,7 +341,7 @@ public class MainFormController implements Initializable {
      * @param actionEvent exit button clicked
      */
     public void exitProgram(ActionEvent actionEvent) {
-        Alert alert = new Alert(Alert.AlertType.CONFIRMATION, "This will exit the program, and you will lose all data. \nDo you wish to continue?");
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION, "This will exit the program. \nDo you wish to continue?");
         Optional<ButtonType> result = alert.showAndWait();
 
         if (result.isPresent() && result.get() == ButtonType.OK) {
@@ -337,12 +427,24 @@ public class MainFormController implements Initializable {
             return;
         }
         boolean wasDeleted = false;
+        Part selectedPart = partsTable.getSelectionModel().getSelectedItem();
+        ObservableList<Product> usedBy = Inventory.getProductsUsingPart(selectedPart.getId());
+        String confirmMessage = "Are you sure you want to delete the part?";
+
+        if (usedBy.size() != 0) {
+            String productNames = "";
+            for (Product product : usedBy) {
+                productNames = productNames.concat("\n" + product.getName());
+            }
+            confirmMessage = "This part is used by the following products and will be removed from them:" + productNames
+                    + "\n\nAre you sure you want to delete the part?";
+        }
 
-        Alert alert = new Alert(Alert.AlertType.CONFIRMATION, "Are you sure you want to delete the part?");
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION, confirmMessage);
         Optional<ButtonType> result = alert.showAndWait();
 
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            wasDeleted = Inventory.deletePart(partsTable.getSelectionModel().getSelectedItem());
+            wasDeleted = Inventory.deletePart(selectedPart);
 
             if (!wasDeleted) {
                 Alert alert2 = new Alert(Alert.AlertType.ERROR);
@@ -374,12 +476,24 @@ public class MainFormController implements Initializable {
         Optional<ButtonType> result = alert.showAndWait();
 
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            wasDeleted = Inventory.deleteProduct(productsTable.getSelectionModel().getSelectedItem());
+            Product selectedProduct = productsTable.getSelectionModel().getSelectedItem();
+            wasDeleted = Inventory.deleteProduct(selectedProduct);
 
             if (!wasDeleted) {
+                String reason;
+                if (Inventory.isUsedAsSubAssembly(selectedProduct.getId())) {
+                    reason = " is used as a sub-assembly by other products and must be removed from them before it can be deleted. This can be done in the modify products page.";
+                }
+                else if (selectedProduct.getAssociatedPartIds().length > 0
+                        || selectedProduct.getSubAssemblyIds().length > 0) {
+                    reason = " has parts or sub-assemblies associated with it that must be removed before it can be deleted. This can be done in the modify products page.";
+                }
+                else {
+                    reason = " is no longer in the inventory.";
+                }
                 Alert alert2 = new Alert(Alert.AlertType.ERROR);
                 alert2.setHeaderText("Product Not Deleted");
-                alert2.setContentText(productsTable.getSelectionModel().getSelectedItem().getName() + " has parts associated with it that must be removed before it can be deleted. This can be done in the modify products page.");
+                alert2.setContentText(selectedProduct.getName() + reason);
                 alert2.showAndWait();
             }
         }
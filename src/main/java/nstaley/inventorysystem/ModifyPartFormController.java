@@ -49,10 +49,6 @@ public class ModifyPartFormController implements Initializable {
      * Outsourced part selected by the user to be modified.
      */
     private static Outsourced outsourcedPartModify = null;
-    /**
-     * Part list index for the part to be modified.
-     */
-    private static int modifyIndex = -1;
     /**
      * ID of part to be modified.
      */
@@ -192,85 +188,9 @@ public class ModifyPartFormController implements Initializable {
      * @throws IOException Throws IOException if the file can not be loaded.
      */
     public void saveModify(ActionEvent actionEvent) throws IOException {
-        boolean wasError = false;
-        String nameErrorMessage = "Must enter a part name into the Name text field.\n";
-        String nameNumberErrorMessage = "Name must not begin with a number.\n";
-        String invErrorMessage = "Must enter an integer into the Inventory text field.\n";
-        String priceErrorMessage = "Must enter a double into the Price/Cost text Field.\n";
-        String maxErrorMessage = "Must enter an integer into the Max text field.\n";
-        String minErrorMessage = "Must enter an integer into the Min text field.\n";
-        String inHouseMachineMessage = "Must enter an integer into the Machine ID text field.\n";
-        String outCompanyNameMessage = "Must enter a name into the Company Name text field. \n";
-        String maxLessThanMinMessage = "Max must be greater than the Min.\n";
-        String inventoryMaxMin = "Inventory must be between the Min and Max values.\n";
-
-        String alertMessage = "";
-
-        if (nameTxt.getText().isEmpty()) {
-            wasError = true;
-            alertMessage = alertMessage.concat(nameErrorMessage);
-        }
-        else if (Character.isDigit(nameTxt.getText().charAt(0))) {
-            wasError = true;
-            alertMessage = alertMessage.concat(nameNumberErrorMessage);
-
-        }
-        try {
-            Integer.parseInt(invTxt.getText());
-        }
-        catch (NumberFormatException e) {
-            wasError = true;
-            alertMessage = alertMessage.concat(invErrorMessage);
-        }
-        try {
-            Double.parseDouble(priceTxt.getText());
-        }
-        catch (NumberFormatException e) {
-            wasError = true;
-            alertMessage = alertMessage.concat(priceErrorMessage);
-        }
-        try {
-            Integer.parseInt(maxTxt.getText());
-        }
-        catch (NumberFormatException e) {
-            wasError = true;
-            alertMessage = alertMessage.concat(maxErrorMessage);
-        }
-        try {
-            Integer.parseInt(minTxt.getText());
-        }
-        catch (NumberFormatException e) {
-            wasError = true;
-            alertMessage = alertMessage.concat(minErrorMessage);
-        }
-        if (modifyInHousePartButton.isSelected()) {
-            try {
-                Integer.parseInt(inOrOutTxt.getText());
-            }
-            catch (NumberFormatException e) {
-                wasError = true;
-                alertMessage = alertMessage.concat(inHouseMachineMessage);
-            }
-        }
-        if (modifyOutsourcedPartButton.isSelected()) {
-            if (inOrOutTxt.getText().isEmpty()) {
-                wasError = true;
-                alertMessage = alertMessage.concat(outCompanyNameMessage);
-            }
-        }
-        if (!wasError) {
-            if (Integer.parseInt(maxTxt.getText()) < Integer.parseInt(minTxt.getText())) {
-                wasError = true;
-                alertMessage = alertMessage.concat(maxLessThanMinMessage);
-            }
-
-        }
-        if (!wasError) {
-            if ((Integer.parseInt(invTxt.getText()) > Integer.parseInt(maxTxt.getText())) || (Integer.parseInt(invTxt.getText()) < Integer.parseInt(minTxt.getText()))) {
-                wasError = true;
-                alertMessage = alertMessage.concat(inventoryMaxMin);
-            }
-        }
+        String alertMessage = ItemValidator.validatePart(nameTxt.getText(), invTxt.getText(), priceTxt.getText(),
+                maxTxt.getText(), minTxt.getText(), modifyInHousePartButton.isSelected(), inOrOutTxt.getText());
+        boolean wasError = !alertMessage.isEmpty();
 
         if (wasError) {
             Alert alert = new Alert(Alert.AlertType.ERROR);
@@ -294,12 +214,12 @@ public class ModifyPartFormController implements Initializable {
             if (modifyInHousePartButton.isSelected()) {
                 int machineId = Integer.parseInt(inOrOutTxt.getText());
                 InHouse updatedPart = new InHouse(modifyId, name, price, stock, min, max, machineId);
-                Inventory.updatePart(modifyIndex, updatedPart);
+                Inventory.updatePart(modifyId, updatedPart);
                 inHousePartModify = null;
             } else {
                 String companyName = inOrOutTxt.getText();
                 Outsourced updatedPart = new Outsourced(modifyId, name, price, stock, min, max, companyName);
-                Inventory.updatePart(modifyIndex, updatedPart);
+                Inventory.updatePart(modifyId, updatedPart);
                 outsourcedPartModify = null;
 
             }
@@ -313,12 +233,4 @@ public class ModifyPartFormController implements Initializable {
             stage.show();
         }
     }
-
-    /**
-     * Method to set the modify index field.
-     * @param index index to be set
-     */
-    public static void setModifyIndex(int index) {
-        modifyIndex = index;
-    }
 }
@@ -29,10 +29,6 @@ public class ModifyProductFormController implements Initializable {
      * Product to be modified.
      */
     private static Product modifyProduct = null;
-    /**
-     * Product list index of the product to be modified.
-     */
-    private static int modifyIndex;
     /**
      * Product's associated parts list.
      */
@@ -139,12 +135,9 @@ public class ModifyProductFormController implements Initializable {
         tablePartName.setCellValueFactory(new PropertyValueFactory<>("name"));
         tablePartInventory.setCellValueFactory(new PropertyValueFactory<>("stock"));
         tablePartPrice.setCellValueFactory(new PropertyValueFactory<>("price"));
+        NameSuggestions.attach(partSearch, Inventory::suggestPartNames);
 
-        if (modifyProduct.getAssociatedPartsListSize() != 0) {
-            for (int i = 0; i < modifyProduct.getAssociatedPartsListSize(); ++i) {
-                addPartsList.add(modifyProduct.getAssociatedPartAt(i));
-            }
-        }
+        addPartsList.addAll(modifyProduct.getAllAssociatedParts());
 
         addedPart.setItems(addPartsList);
         addedPartId.setCellValueFactory(new PropertyValueFactory<>("id"));
@@ -270,69 +263,9 @@ public class ModifyProductFormController implements Initializable {
      * @throws IOException throws IOException if file does not load
      */
     public void saveProduct(ActionEvent actionEvent) throws IOException {
-        boolean wasError = false;
-        String nameErrorMessage = "Must enter a product name into the Name text field.\n";
-        String nameNumberErrorMessage = "Name must not begin with a number.\n";
-        String invErrorMessage = "Must enter an integer into the Inventory text field.\n";
-        String priceErrorMessage = "Must enter a double into the Price/Cost text Field.\n";
-        String maxErrorMessage = "Must enter an integer into the Max text field.\n";
-        String minErrorMessage = "Must enter an integer into the Min text field.\n";
-        String maxLessThanMinMessage = "Max must be greater than the Min.\n";
-        String inventoryMaxMin = "Inventory must be between the Min and Max values.\n";
-
-        String alertMessage = "";
-
-        if (nameTxt.getText().isEmpty()) {
-            wasError = true;
-            alertMessage = alertMessage.concat(nameErrorMessage);
-        }
-        else if (Character.isDigit(nameTxt.getText().charAt(0))) {
-            wasError = true;
-            alertMessage = alertMessage.concat(nameNumberErrorMessage);
-
-        }
-        try {
-            Integer.parseInt(inventoryTxt.getText());
-        }
-        catch (NumberFormatException e) {
-            wasError = true;
-            alertMessage = alertMessage.concat(invErrorMessage);
-        }
-        try {
-            Double.parseDouble(priceTxt.getText());
-        }
-        catch (NumberFormatException e) {
-            wasError = true;
-            alertMessage = alertMessage.concat(priceErrorMessage);
-        }
-        try {
-            Integer.parseInt(maxTxt.getText());
-        }
-        catch (NumberFormatException e) {
-            wasError = true;
-            alertMessage = alertMessage.concat(maxErrorMessage);
-        }
-        try {
-            Integer.parseInt(minTxt.getText());
-        }
-        catch (NumberFormatException e) {
-            wasError = true;
-            alertMessage = alertMessage.concat(minErrorMessage);
-        }
-
-        if (!wasError) {
-            if (Integer.parseInt(maxTxt.getText()) < Integer.parseInt(minTxt.getText())) {
-                wasError = true;
-                alertMessage = alertMessage.concat(maxLessThanMinMessage);
-            }
-
-        }
-        if (!wasError) {
-            if ((Integer.parseInt(inventoryTxt.getText()) > Integer.parseInt(maxTxt.getText())) || (Integer.parseInt(inventoryTxt.getText()) < Integer.parseInt(minTxt.getText()))) {
-                wasError = true;
-                alertMessage = alertMessage.concat(inventoryMaxMin);
-            }
-        }
+        String alertMessage = ItemValidator.validateProduct(nameTxt.getText(), inventoryTxt.getText(),
+                priceTxt.getText(), maxTxt.getText(), minTxt.getText());
+        boolean wasError = !alertMessage.isEmpty();
 
         if (wasError) {
             Alert alert = new Alert(Alert.AlertType.ERROR);
@@ -359,8 +292,12 @@ public class ModifyProductFormController implements Initializable {
                     updateProduct.addAssociatedPart(addPartsList.get(i));
                 }
             }
+            for (int subAssemblyId : modifyProduct.getSubAssemblyIds()) {
+                int quantity = modifyProduct.getSubAssemblyQuantity(subAssemblyId);
+                updateProduct.setSubAssemblyQuantity(subAssemblyId, quantity);
+            }
 
-            Inventory.updateProduct(modifyIndex, updateProduct);
+            Inventory.updateProduct(id, updateProduct);
 
             addPartsList.clear();
             try {
@@ -383,12 +320,4 @@ public class ModifyProductFormController implements Initializable {
     public static void setModifyProduct(Product product) {
         modifyProduct = product;
     }
-
-    /**
-     * Method to set the index from the products list of the part to be modified.
-     * @param index index to be set
-     */
-    public static void setModifyIndex(int index) {
-        modifyIndex = index;
-    }
 }
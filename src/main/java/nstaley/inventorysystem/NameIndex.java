@@ -0,0 +1,251 @@
+package nstaley.inventorysystem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * This class is an n-gram index over the names of parts or products, used for the partial name searches. Every piece of
+ * a lower case name that is one, two, or three characters long points to the items that contain it. A search only has
+ * to check the items under the least common piece of the search text, instead of every item in the inventory, and it
+ * gives the same results as a case-insensitive contains check.
+ * @param <T> type of item held in the index
+ * @author Nicholas Staley
+ */
+public class NameIndex<T> {
+    /**
+     * Holds the longest piece of a name that is indexed.
+     */
+    private static final int GRAM_LENGTH = 3;
+    /**
+     * Holds the sets of indexed items keyed by the name pieces they contain.
+     */
+    private final HashMap<String, Set<Entry<T>>> postings = new HashMap<>();
+    /**
+     * Holds the indexed items keyed by their id.
+     */
+    private final IdIndex<Entry<T>> entries = new IdIndex<>();
+    /**
+     * Function used to get the id of an item.
+     */
+    private final ToIntFunction<T> idOf;
+    /**
+     * Function used to get the name of an item.
+     */
+    private final Function<T, String> nameOf;
+    /**
+     * The sequence number given to the next item added, used to keep search results in list order.
+     */
+    private long nextSequence = 0;
+
+    /**
+     * This class holds an item in the index along with its lower case name and its place in the list.
+     * @param <T> type of item held in the entry
+     */
+    private static final class Entry<T> {
+        /**
+         * Holds the indexed item.
+         */
+        private final T item;
+        /**
+         * Holds the lower case name of the item.
+         */
+        private final String lowerName;
+        /**
+         * Holds the sequence number that orders the item in the list.
+         */
+        private final long sequence;
+
+        /**
+         * The constructor that initializes the entry.
+         * @param item indexed item
+         * @param lowerName lower case name of the item
+         * @param sequence sequence number of the item
+         */
+        private Entry(T item, String lowerName, long sequence) {
+            this.item = item;
+            this.lowerName = lowerName;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * The constructor that initializes an empty name index.
+     * @param idOf function that gets the id of an item
+     * @param nameOf function that gets the name of an item
+     */
+    public NameIndex(ToIntFunction<T> idOf, Function<T, String> nameOf) {
+        this.idOf = idOf;
+        this.nameOf = nameOf;
+    }
+
+    /**
+     * Method to add an item to the end of the index.
+     * @param item item to be added
+     */
+    public void add(T item) {
+        insert(item, nextSequence++);
+    }
+
+    /**
+     * Method to replace an item in the index with a new item, keeping the place of the old item.
+     * @param oldItem item to be replaced
+     * @param newItem item to be used as the replacement
+     */
+    public void replace(T oldItem, T newItem) {
+        Entry<T> old = entries.get(idOf.applyAsInt(oldItem));
+        if (old == null || old.item != oldItem) {
+            add(newItem);
+            return;
+        }
+        unlink(old);
+        insert(newItem, old.sequence);
+    }
+
+    /**
+     * Method to remove an item from the index.
+     * @param item item to be removed
+     */
+    public void remove(T item) {
+        Entry<T> old = entries.get(idOf.applyAsInt(item));
+        if (old != null && old.item == item) {
+            unlink(old);
+        }
+    }
+
+    /**
+     * Method to remove every item from the index.
+     */
+    public void clear() {
+        postings.clear();
+        entries.clear();
+        nextSequence = 0;
+    }
+
+    /**
+     * Method to find the items that have the search text somewhere in their name, ignoring case. Every item matches an
+     * empty search text, which is better answered from the list itself, since the entries have to be sorted here.
+     * @param name text to search for
+     * @return Returns a list of the matching items in the order they were added to the list.
+     */
+    public List<T> search(String name) {
+        String searchName = name.toLowerCase();
+        List<Entry<T>> matches = new ArrayList<>();
+        if (searchName.isEmpty()) {
+            matches.addAll(entries.values());
+        }
+        else if (searchName.length() <= GRAM_LENGTH) {
+            matches.addAll(postings.getOrDefault(searchName, Collections.emptySet()));
+        }
+        else {
+            Set<Entry<T>> candidates = null;
+            for (int i = 0; i + GRAM_LENGTH <= searchName.length(); ++i) {
+                Set<Entry<T>> set = postings.get(searchName.substring(i, i + GRAM_LENGTH));
+                if (set == null) {
+                    return new ArrayList<>();
+                }
+                if (candidates == null || set.size() < candidates.size()) {
+                    candidates = set;
+                }
+            }
+            for (Entry<T> entry : candidates) {
+                if (entry.lowerName.contains(searchName)) {
+                    matches.add(entry);
+                }
+            }
+        }
+        matches.sort(Comparator.comparingLong(entry -> entry.sequence));
+        List<T> results = new ArrayList<>(matches.size());
+        for (Entry<T> entry : matches) {
+            results.add(entry.item);
+        }
+        return results;
+    }
+
+    /**
+     * Method to estimate how many items a search would have to check, without running it. The estimate is the size of
+     * the set under the least common piece of the search text, which is never less than the number of matches.
+     * @param name text to search for
+     * @return Returns an int value representing the most items the search would check.
+     */
+    public int estimate(String name) {
+        String searchName = name.toLowerCase();
+        if (searchName.isEmpty()) {
+            return entries.size();
+        }
+        if (searchName.length() <= GRAM_LENGTH) {
+            return postings.getOrDefault(searchName, Collections.emptySet()).size();
+        }
+        int smallest = Integer.MAX_VALUE;
+        for (int i = 0; i + GRAM_LENGTH <= searchName.length(); ++i) {
+            Set<Entry<T>> set = postings.get(searchName.substring(i, i + GRAM_LENGTH));
+            if (set == null) {
+                return 0;
+            }
+            smallest = Math.min(smallest, set.size());
+        }
+        return smallest;
+    }
+
+    /**
+     * Method to add an item to the index under every piece of its name.
+     * @param item item to be added
+     * @param sequence sequence number that orders the item in the list
+     */
+    private void insert(T item, long sequence) {
+        Entry<T> entry = new Entry<>(item, nameOf.apply(item).toLowerCase(), sequence);
+        Entry<T> replaced = entries.put(idOf.applyAsInt(item), entry);
+        if (replaced != null) {
+            unlinkGrams(replaced);
+        }
+        for (String gram : grams(entry.lowerName)) {
+            postings.computeIfAbsent(gram, key -> new HashSet<>()).add(entry);
+        }
+    }
+
+    /**
+     * Method to remove an entry from the index.
+     * @param entry entry to be removed
+     */
+    private void unlink(Entry<T> entry) {
+        entries.remove(idOf.applyAsInt(entry.item));
+        unlinkGrams(entry);
+    }
+
+    /**
+     * Method to remove an entry from the sets of every piece of its name.
+     * @param entry entry to be removed
+     */
+    private void unlinkGrams(Entry<T> entry) {
+        for (String gram : grams(entry.lowerName)) {
+            Set<Entry<T>> set = postings.get(gram);
+            if (set != null) {
+                set.remove(entry);
+                if (set.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Method to get every distinct piece of a name that is one to three characters long.
+     * @param lowerName lower case name to split
+     * @return Returns the set of pieces of the name.
+     */
+    private static Set<String> grams(String lowerName) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i < lowerName.length(); ++i) {
+            for (int length = 1; length <= GRAM_LENGTH && i + length <= lowerName.length(); ++length) {
+                grams.add(lowerName.substring(i, i + length));
+            }
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,68 @@
+package nstaley.inventorysystem;
+
+import javafx.event.ActionEvent;
+import javafx.geometry.Side;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.TextField;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * This class adds type-ahead suggestions to a search field. Each time the text changes the names starting with it are
+ * read from the inventory's name prefix trees and shown in a menu under the field. Picking a name puts it in the field
+ * and runs the field's search.
+ * @author Nicholas Staley
+ */
+public class NameSuggestions {
+    /**
+     * Holds the most suggestions shown under a search field.
+     */
+    public static final int SUGGESTIONS_SHOWN = 10;
+
+    /**
+     * Method to add suggestions to a search field.
+     * @param field search field to add the suggestions to
+     * @param suggest function that writes the names starting with a prefix into a buffer and returns how many it wrote,
+     * such as Inventory.suggestPartNames
+     */
+    public static void attach(TextField field, ToIntBiFunction<String, String[]> suggest) {
+        ContextMenu menu = new ContextMenu();
+        String[] names = new String[SUGGESTIONS_SHOWN];
+        field.textProperty().addListener((observable, oldText, newText) -> {
+            if (newText == null || newText.isEmpty() || !field.isFocused()) {
+                menu.hide();
+                return;
+            }
+            int found = suggest.applyAsInt(newText, names);
+            if (found == 0) {
+                menu.hide();
+                return;
+            }
+            List<MenuItem> items = new ArrayList<>(found);
+            for (int i = 0; i < found; ++i) {
+                String name = names[i];
+                MenuItem item = new MenuItem(name);
+                item.setMnemonicParsing(false);
+                item.setOnAction(event -> {
+                    field.setText(name);
+                    field.positionCaret(name.length());
+                    menu.hide();
+                    field.fireEvent(new ActionEvent());
+                });
+                items.add(item);
+            }
+            menu.getItems().setAll(items);
+            if (!menu.isShowing()) {
+                menu.show(field, Side.BOTTOM, 0, 0);
+            }
+        });
+        field.focusedProperty().addListener((observable, wasFocused, isFocused) -> {
+            if (!isFocused) {
+                menu.hide();
+            }
+        });
+    }
+}
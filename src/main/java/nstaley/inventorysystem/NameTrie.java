@@ -0,0 +1,386 @@
+package nstaley.inventorysystem;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * This class is a prefix tree over the names of parts or products, used for the type-ahead suggestions in the search
+ * fields. Each node stands for one more lower case character of a name, and a name ends at the node holding the name
+ * along with the number of items that have it. A name is only given nodes down to the point
+ * where it differs from every other name; below that the node holding it stands for the rest of the name, and is only
+ * split when another name needs to go through it. Names that differ only by case share a node, which keeps the spelling
+ * added first. The nodes are kept in parallel int arrays, with the children of a node in a list sorted by character,
+ * so a lookup takes one step per character of the prefix and reading the suggestions does not create any objects.
+ * @param <T> type of item held in the trie
+ * @author Nicholas Staley
+ */
+public class NameTrie<T> {
+    /**
+     * Holds the node that stands for the empty prefix.
+     */
+    private static final int ROOT = 0;
+    /**
+     * Holds the marker for no node.
+     */
+    private static final int NONE = -1;
+    /**
+     * Holds the starting number of nodes the arrays have room for.
+     */
+    private static final int DEFAULT_CAPACITY = 64;
+    /**
+     * Function used to get the name of an item.
+     */
+    private final Function<T, String> nameOf;
+    /**
+     * Holds the lower case character each node stands for.
+     */
+    private char[] label = new char[DEFAULT_CAPACITY];
+    /**
+     * Holds the parent of each node.
+     */
+    private int[] parent = new int[DEFAULT_CAPACITY];
+    /**
+     * Holds the first child of each node, the one with the lowest character.
+     */
+    private int[] firstChild = new int[DEFAULT_CAPACITY];
+    /**
+     * Holds the next sibling of each node, with a higher character. For a free node it holds the next free node.
+     */
+    private int[] nextSibling = new int[DEFAULT_CAPACITY];
+    /**
+     * Holds the name held by each node, or null.
+     */
+    private String[] held = new String[DEFAULT_CAPACITY];
+    /**
+     * Holds the number of items that have the name held by each node.
+     */
+    private int[] count = new int[DEFAULT_CAPACITY];
+    /**
+     * Holds the number of nodes that have been handed out, including free ones.
+     */
+    private int nodeCount = 0;
+    /**
+     * Holds the first free node, or NONE.
+     */
+    private int freeNode = NONE;
+    /**
+     * Holds the number of distinct names in the trie.
+     */
+    private int nameCount = 0;
+
+    /**
+     * The constructor that initializes an empty name trie.
+     * @param nameOf function that gets the name of an item
+     */
+    public NameTrie(Function<T, String> nameOf) {
+        this.nameOf = nameOf;
+        newNode(NONE, '\0');
+    }
+
+    /**
+     * Method to add the name of an item to the trie.
+     * @param item item to be added
+     */
+    public void add(T item) {
+        String name = nameOf.apply(item);
+        if (name == null) {
+            return;
+        }
+        int node = ROOT;
+        int depth = 0;
+        while (true) {
+            if (isCollapsed(node, depth)) {
+                if (sameName(held[node], name)) {
+                    count[node] += 1;
+                    return;
+                }
+                pushDown(node, depth);
+            }
+            if (depth == name.length()) {
+                if (held[node] == null) {
+                    held[node] = name;
+                    nameCount += 1;
+                }
+                count[node] += 1;
+                return;
+            }
+            char next = Character.toLowerCase(name.charAt(depth));
+            int child = findChild(node, next);
+            if (child == NONE) {
+                child = newNode(node, next);
+                held[child] = name;
+                count[child] = 1;
+                nameCount += 1;
+                return;
+            }
+            node = child;
+            depth += 1;
+        }
+    }
+
+    /**
+     * Method to replace the name of an item in the trie with the name of a new item, such as after a rename.
+     * @param oldItem item to be replaced
+     * @param newItem item to be used as the replacement
+     */
+    public void replace(T oldItem, T newItem) {
+        if (!Objects.equals(nameOf.apply(oldItem), nameOf.apply(newItem))) {
+            remove(oldItem);
+            add(newItem);
+        }
+    }
+
+    /**
+     * Method to remove the name of an item from the trie. The name stays while other items have it.
+     * @param item item to be removed
+     */
+    public void remove(T item) {
+        String name = nameOf.apply(item);
+        if (name == null) {
+            return;
+        }
+        int node = ROOT;
+        int depth = 0;
+        while (!isCollapsed(node, depth) && depth < name.length()) {
+            node = findChild(node, Character.toLowerCase(name.charAt(depth)));
+            if (node == NONE) {
+                return;
+            }
+            depth += 1;
+        }
+        if (held[node] == null || !sameName(held[node], name)) {
+            return;
+        }
+        count[node] -= 1;
+        if (count[node] > 0) {
+            return;
+        }
+        held[node] = null;
+        nameCount -= 1;
+        while (node != ROOT && held[node] == null && firstChild[node] == NONE) {
+            int up = parent[node];
+            unlink(up, node);
+            freeNode(node);
+            node = up;
+        }
+    }
+
+    /**
+     * Method to remove every name from the trie.
+     */
+    public void clear() {
+        Arrays.fill(held, 0, nodeCount, null);
+        nodeCount = 0;
+        freeNode = NONE;
+        nameCount = 0;
+        newNode(NONE, '\0');
+    }
+
+    /**
+     * Method to get the number of distinct names in the trie, ignoring case.
+     * @return Returns an int value representing the number of names.
+     */
+    public int size() {
+        return nameCount;
+    }
+
+    /**
+     * Method to find the names that start with a prefix, ignoring case, in alphabetical order. The names are written
+     * into a buffer given by the caller, and nothing else is created, so it can be called on every key press.
+     * @param prefix text the names must start with
+     * @param names buffer the names are written into, its length is the most names returned
+     * @return Returns an int value representing the number of names written.
+     */
+    public int suggest(CharSequence prefix, String[] names) {
+        if (names.length == 0) {
+            return 0;
+        }
+        int node = ROOT;
+        int depth = 0;
+        while (depth < prefix.length()) {
+            if (isCollapsed(node, depth)) {
+                if (!startsWith(held[node], prefix, depth)) {
+                    return 0;
+                }
+                names[0] = held[node];
+                return 1;
+            }
+            node = findChild(node, Character.toLowerCase(prefix.charAt(depth)));
+            if (node == NONE) {
+                return 0;
+            }
+            depth += 1;
+        }
+        int found = 0;
+        int start = node;
+        while (found < names.length) {
+            if (held[node] != null) {
+                names[found++] = held[node];
+            }
+            if (firstChild[node] != NONE) {
+                node = firstChild[node];
+                continue;
+            }
+            while (node != start && nextSibling[node] == NONE) {
+                node = parent[node];
+            }
+            if (node == start) {
+                break;
+            }
+            node = nextSibling[node];
+        }
+        return found;
+    }
+
+    /**
+     * Method to check if a node holds a name longer than the prefix it stands for, standing in for the rest of the
+     * name. Such a node has no children.
+     * @param node node to check
+     * @param depth length of the prefix the node stands for
+     * @return Returns true if the node stands in for the rest of its name.
+     */
+    private boolean isCollapsed(int node, int depth) {
+        return held[node] != null && firstChild[node] == NONE && held[node].length() > depth;
+    }
+
+    /**
+     * Method to move the name held by a collapsed node down to a new child for its next character, so another name
+     * can go through the node.
+     * @param node collapsed node
+     * @param depth length of the prefix the node stands for
+     */
+    private void pushDown(int node, int depth) {
+        char next = Character.toLowerCase(held[node].charAt(depth));
+        int child = newNode(node, next);
+        held[child] = held[node];
+        count[child] = count[node];
+        held[node] = null;
+        count[node] = 0;
+    }
+
+    /**
+     * Method to find the child of a node for a character.
+     * @param node node to search
+     * @param next lower case character of the child
+     * @return Returns the child, or NONE if the node has no child for the character.
+     */
+    private int findChild(int node, char next) {
+        for (int child = firstChild[node]; child != NONE && label[child] <= next; child = nextSibling[child]) {
+            if (label[child] == next) {
+                return child;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Method to create a node and add it to the children of a parent, keeping the children sorted by character.
+     * @param up parent of the node, or NONE for the root
+     * @param next lower case character the node stands for
+     * @return Returns the new node.
+     */
+    private int newNode(int up, char next) {
+        int node = freeNode;
+        if (node != NONE) {
+            freeNode = nextSibling[node];
+        }
+        else {
+            if (nodeCount == label.length) {
+                grow(nodeCount * 2);
+            }
+            node = nodeCount++;
+        }
+        label[node] = next;
+        parent[node] = up;
+        firstChild[node] = NONE;
+        nextSibling[node] = NONE;
+        held[node] = null;
+        count[node] = 0;
+        if (up != NONE) {
+            int before = NONE;
+            int after = firstChild[up];
+            while (after != NONE && label[after] < next) {
+                before = after;
+                after = nextSibling[after];
+            }
+            nextSibling[node] = after;
+            if (before == NONE) {
+                firstChild[up] = node;
+            }
+            else {
+                nextSibling[before] = node;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Method to remove a node from the children of its parent.
+     * @param up parent of the node
+     * @param node node to be removed
+     */
+    private void unlink(int up, int node) {
+        if (firstChild[up] == node) {
+            firstChild[up] = nextSibling[node];
+            return;
+        }
+        int before = firstChild[up];
+        while (nextSibling[before] != node) {
+            before = nextSibling[before];
+        }
+        nextSibling[before] = nextSibling[node];
+    }
+
+    /**
+     * Method to put a node on the free list so it can be handed out again.
+     * @param node node to be freed
+     */
+    private void freeNode(int node) {
+        parent[node] = NONE;
+        nextSibling[node] = freeNode;
+        freeNode = node;
+    }
+
+    /**
+     * Method to grow every node array to a new capacity.
+     * @param capacity new number of nodes
+     */
+    private void grow(int capacity) {
+        label = Arrays.copyOf(label, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        nextSibling = Arrays.copyOf(nextSibling, capacity);
+        held = Arrays.copyOf(held, capacity);
+        count = Arrays.copyOf(count, capacity);
+    }
+
+    /**
+     * Method to check if two names are the same once each character is made lower case.
+     * @param first first name
+     * @param second second name
+     * @return Returns true if the names are the same ignoring case.
+     */
+    private static boolean sameName(String first, String second) {
+        return first.length() == second.length() && startsWith(first, second, 0);
+    }
+
+    /**
+     * Method to check if a name starts with a prefix once each character is made lower case, from a position on.
+     * @param name name to check
+     * @param prefix prefix the name must start with
+     * @param from first position to compare, the ones before are known to match
+     * @return Returns true if the name starts with the prefix ignoring case.
+     */
+    private static boolean startsWith(String name, CharSequence prefix, int from) {
+        if (name.length() < prefix.length()) {
+            return false;
+        }
+        for (int i = from; i < prefix.length(); ++i) {
+            if (Character.toLowerCase(name.charAt(i)) != Character.toLowerCase(prefix.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -6,9 +6,10 @@ package nstaley.inventorysystem;
  */
 public class Outsourced extends Part {
     /**
-     * Holds the company name for the part.
+     * Holds the code of the company name in the shared company name dictionary. Catalogs have far fewer companies
+     * than parts, so each company name is kept once, and parts from the same company have the same code.
      */
-    private String companyName;
+    private int companyNameCode;
 
     /**
      *The constructor that initializes the Outsourced parts.
@@ -22,14 +23,14 @@ public class Outsourced extends Part {
      */
     public Outsourced(int id, String name, double price, int stock, int min, int max, String companyName) {
         super(id, name, price, stock, min, max);
-        this.companyName = companyName;
+        this.companyNameCode = StringDictionary.COMPANY_NAMES.encodeNullable(companyName);
     }
     /**
      * This method sets the company Name for the part.
      * @param companyName company name for the part
      */
     public void setCompanyName(String companyName) {
-        this.companyName = companyName;
+        this.companyNameCode = StringDictionary.COMPANY_NAMES.encodeNullable(companyName);
     }
 
     /**
@@ -37,6 +38,14 @@ public class Outsourced extends Part {
      * @return Returns a String value representing the company name.
      */
     public String getCompanyName() {
-        return companyName;
+        return StringDictionary.COMPANY_NAMES.decodeNullable(companyNameCode);
+    }
+
+    /**
+     * This method returns the code of the company name in the shared company name dictionary.
+     * @return Returns an int value representing the company name code, or -1 if there is no company name.
+     */
+    public int getCompanyNameCode() {
+        return companyNameCode;
     }
 }
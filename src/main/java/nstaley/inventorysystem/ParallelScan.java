@@ -0,0 +1,141 @@
+package nstaley.inventorysystem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * This class filters a range of rows across the threads of the common fork/join pool. The range is split with a row
+ * spliterator into pieces in row order, each piece is filtered by its own task into its own buffer, and the buffers
+ * are joined in piece order at the end, so the matching rows come back in the same order as a scan on one thread.
+ * Splitting only pays off for large ranges on a machine with more than one thread in the pool, so callers check
+ * worthSplitting first and scan on their own thread otherwise. The caller must keep the rows from changing while the
+ * tasks run, such as by holding the inventory read lock.
+ * @author Nicholas Staley
+ */
+class ParallelScan {
+    /**
+     * Holds the fewest rows a scan must have left before it is split across threads.
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 15;
+    /**
+     * Holds the fewest rows filtered by one task.
+     */
+    private static final int TASK_ROWS = 1 << 12;
+
+    /**
+     * This class is the task that filters one piece of the rows into its own buffer.
+     */
+    private static final class FilterTask extends RecursiveAction {
+        /**
+         * Holds the rows to be filtered.
+         */
+        private final RowSpliterator rows;
+        /**
+         * Holds the check each matching row passes.
+         */
+        private final IntPredicate rowTest;
+        /**
+         * Holds the matching rows, in order.
+         */
+        private int[] matches = new int[16];
+        /**
+         * Holds the number of matching rows.
+         */
+        private int count = 0;
+
+        /**
+         * The constructor that initializes the task.
+         * @param rows rows to be filtered
+         * @param rowTest check each matching row passes
+         */
+        private FilterTask(RowSpliterator rows, IntPredicate rowTest) {
+            this.rows = rows;
+            this.rowTest = rowTest;
+        }
+
+        /**
+         * Method to check every row of the piece, keeping the ones that match.
+         */
+        @Override
+        protected void compute() {
+            rows.forEachRemaining((IntConsumer) row -> {
+                if (rowTest.test(row)) {
+                    if (count == matches.length) {
+                        matches = Arrays.copyOf(matches, count * 2);
+                    }
+                    matches[count++] = row;
+                }
+            });
+        }
+    }
+
+    /**
+     * Method to check if a scan over a number of rows should be split across threads.
+     * @param rows number of rows to be scanned
+     * @return Returns true if the rows are enough to split and the common pool has more than one thread.
+     */
+    static boolean worthSplitting(int rows) {
+        return rows >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    /**
+     * Method to get how many rows to scan at once when a scan is split, enough to keep every thread of the common pool
+     * busy.
+     * @return Returns an int value representing the number of rows in one split scan.
+     */
+    static int windowRows() {
+        return PARALLEL_THRESHOLD * Math.max(ForkJoinPool.getCommonPoolParallelism(), 1);
+    }
+
+    /**
+     * Method to find the rows in a range that pass a check, splitting the work across the common pool.
+     * @param fromRow first row to check
+     * @param toRow row after the last row to check
+     * @param rowTest check each matching row passes, which may be called from several threads at once
+     * @return Returns the matching rows in order.
+     */
+    static int[] filter(int fromRow, int toRow, IntPredicate rowTest) {
+        int pieces = ForkJoinPool.getCommonPoolParallelism() * 4;
+        int taskRows = Math.max(TASK_ROWS, (toRow - fromRow) / Math.max(pieces, 1));
+        List<FilterTask> tasks = new ArrayList<>();
+        split(new RowSpliterator(fromRow, toRow, taskRows), rowTest, tasks);
+        ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+        int total = 0;
+        for (FilterTask task : tasks) {
+            total += task.count;
+        }
+        int[] rows = new int[total];
+        int offset = 0;
+        for (FilterTask task : tasks) {
+            System.arraycopy(task.matches, 0, rows, offset, task.count);
+            offset += task.count;
+        }
+        return rows;
+    }
+
+    /**
+     * Method to split rows into pieces, adding a task for each piece in row order.
+     * @param rows rows to be split
+     * @param rowTest check each matching row passes
+     * @param tasks list the tasks are added to
+     */
+    private static void split(RowSpliterator rows, IntPredicate rowTest, List<FilterTask> tasks) {
+        RowSpliterator prefix = rows.trySplit();
+        if (prefix == null) {
+            tasks.add(new FilterTask(rows, rowTest));
+            return;
+        }
+        split(prefix, rowTest, tasks);
+        split(rows, rowTest, tasks);
+    }
+}
@@ -3,15 +3,28 @@ package nstaley.inventorysystem;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.util.Arrays;
+
 /**
- * This class creates the product objects and includes an associated parts list of the parts included in the product.
+ * This class creates the product objects and includes a bill of materials of the parts included in the product. The bill
+ * of materials is kept in one primitive array instead of a list of part references: the first half holds the ids of the
+ * components sorted in ascending order, and the second half holds the quantity of each. A component is either a part,
+ * or another product used as a sub-assembly, which is kept under its negated id so that sub-assemblies sort in front of
+ * the parts. The array is never changed in place, a change swaps in a new array, so the array read at any moment is a
+ * consistent copy. An observable list of the associated parts is only built when it is asked for, by looking up each id
+ * in the inventory.
  * @author Nicholas Staley
  */
 public class Product {
     /**
-     * Holds an observable list of the parts associated with the product.
+     * Holds an empty array shared by every product without associated parts.
+     */
+    private static final int[] NO_PARTS = new int[0];
+    /**
+     * Holds the bill of materials, the ids of the components in ascending order followed by the quantity needed of each
+     * component in the same order. Sub-assemblies are held under their negated product ids.
      */
-    private ObservableList<Part> associatedParts = FXCollections.observableArrayList();
+    private volatile int[] bom = NO_PARTS;
     /**
      * Holds the product id.
      */
@@ -36,6 +49,16 @@ public class Product {
      * Holds the maximum number of the product inventory.
      */
     private int max;
+    /**
+     * Holds the total price of the product's associated parts. It is kept up to date by the inventory while the product
+     * is in it.
+     */
+    private double partsCost;
+    /**
+     * Holds how many more units of the product could be built from the parts in stock. It is kept up to date by the
+     * inventory while the product is in it.
+     */
+    private int buildableQuantity;
 
     /**
      * The constructor that initializes the Products.
@@ -152,40 +175,218 @@ public class Product {
     }
 
     /**
-     * Method to add an associated part to the associated parts list of the product.
+     * Method that gets the total price of the product's associated parts. The total is kept up to date by the inventory
+     * as part prices and associated parts change, so it is not summed on each call.
+     * @return Returns a double value representing the cost of the product's parts.
+     */
+    public double getPartsCost() {
+        return partsCost;
+    }
+
+    /**
+     * Method that gets the margin of the product, its price less the cost of its parts.
+     * @return Returns a double value representing the margin of the product.
+     */
+    public double getMargin() {
+        return price - partsCost;
+    }
+
+    /**
+     * Method that sets the total price of the product's associated parts. Only the inventory calls this, while holding
+     * its write lock.
+     * @param partsCost cost of the product's parts
+     */
+    void setPartsCost(double partsCost) {
+        this.partsCost = partsCost;
+    }
+
+    /**
+     * Method that gets how many more units of the product could be built from the parts in stock, the smallest over its
+     * components of the units available divided by the quantity needed. The units available of a sub-assembly are the
+     * ones in stock plus the ones that could be built. A product with no components can not be built.
+     * @return Returns an int value representing the number of units that could be built.
+     */
+    public int getBuildableQuantity() {
+        return buildableQuantity;
+    }
+
+    /**
+     * Method that sets how many more units of the product could be built. Only the inventory calls this, while holding
+     * its write lock.
+     * @param buildableQuantity number of units that could be built
+     */
+    void setBuildableQuantity(int buildableQuantity) {
+        this.buildableQuantity = buildableQuantity;
+    }
+
+    /**
+     * Method to add one of an associated part to the product.
      * @param part the part to be added to the associated parts list
      */
     public void addAssociatedPart(Part part) {
-        associatedParts.add(part);
+        addAssociatedPart(part, 1);
+    }
 
+    /**
+     * Method to add a quantity of an associated part to the product. If the part is already associated with the product
+     * its quantity is increased.
+     * @param part the part to be added to the associated parts list
+     * @param quantity number of the part to be added
+     */
+    public void addAssociatedPart(Part part, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("The quantity of a part can not be negative.");
+        }
+        Inventory.changeComponentQuantity(this, part.getId(), quantity);
     }
 
     /**
-     * Method to delete a part from the associated parts list and returns a true or false for if it was able to.
+     * Method to set the quantity of an associated part, removing the part from the product if the quantity is zero.
+     * @param partId id of the part
+     * @param quantity number of the part needed for each unit of the product
+     */
+    public void setAssociatedPartQuantity(int partId, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("The quantity of a part can not be negative.");
+        }
+        Inventory.setComponentQuantity(this, partId, quantity);
+    }
+
+    /**
+     * Method to get the quantity of an associated part.
+     * @param partId id of the part
+     * @return Returns an int value representing the number of the part needed, or 0 if the part is not associated.
+     */
+    public int getAssociatedPartQuantity(int partId) {
+        int[] current = bom;
+        int entries = current.length >>> 1;
+        int entry = Arrays.binarySearch(current, 0, entries, partId);
+        return entry >= 0 ? current[entries + entry] : 0;
+    }
+
+    /**
+     * Method to delete one of a part from the associated parts and returns a true or false for if it was able to.
      * @param selectedAssociatedPart part to be removed from the associated parts list
      * @return Returns true if the part was removed from the products associated parts list or returns false if it wasn't removed.
      */
     public boolean deleteAssociatedPart(Part selectedAssociatedPart) {
-        boolean wasDeleted = false;
-        wasDeleted = associatedParts.remove(selectedAssociatedPart);
+        return Inventory.changeComponentQuantity(this, selectedAssociatedPart.getId(), -1);
+    }
 
-        return wasDeleted;
+    /**
+     * Method to get the ids of the associated parts.
+     * @return Returns a copy of the ids of the associated parts in ascending order.
+     */
+    public int[] getAssociatedPartIds() {
+        int[] current = bom;
+        int first = subAssemblyCount(current);
+        return Arrays.copyOfRange(current, first, current.length >>> 1);
     }
 
     /**
-     * Method to retrieve the products associated parts list.
+     * Method to add a quantity of another product to the product as a sub-assembly. If the product is already used as a
+     * sub-assembly its quantity is increased.
+     * @param subAssembly the product to be used as a sub-assembly
+     * @param quantity number of the sub-assembly to be added
+     * @throws IllegalArgumentException if the sub-assembly already uses this product, directly or through its own
+     * sub-assemblies, or is this product
+     */
+    public void addSubAssembly(Product subAssembly, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("The quantity of a sub-assembly can not be negative.");
+        }
+        Inventory.changeComponentQuantity(this, subAssemblyKey(subAssembly.getId()), quantity);
+    }
+
+    /**
+     * Method to set the quantity of a sub-assembly, removing it from the product if the quantity is zero.
+     * @param productId id of the product used as a sub-assembly
+     * @param quantity number of the sub-assembly needed for each unit of the product
+     * @throws IllegalArgumentException if the sub-assembly already uses this product, directly or through its own
+     * sub-assemblies, or is this product
+     */
+    public void setSubAssemblyQuantity(int productId, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("The quantity of a sub-assembly can not be negative.");
+        }
+        Inventory.setComponentQuantity(this, subAssemblyKey(productId), quantity);
+    }
+
+    /**
+     * Method to get the quantity of a sub-assembly.
+     * @param productId id of the product used as a sub-assembly
+     * @return Returns an int value representing the number of the sub-assembly needed, or 0 if it is not used.
+     */
+    public int getSubAssemblyQuantity(int productId) {
+        int[] current = bom;
+        int entries = current.length >>> 1;
+        int entry = Arrays.binarySearch(current, 0, entries, subAssemblyKey(productId));
+        return entry >= 0 ? current[entries + entry] : 0;
+    }
+
+    /**
+     * Method to get the ids of the products used as sub-assemblies.
+     * @return Returns the ids of the sub-assemblies in ascending order.
+     */
+    public int[] getSubAssemblyIds() {
+        int[] current = bom;
+        int count = subAssemblyCount(current);
+        int[] ids = new int[count];
+        for (int entry = 0; entry < count; ++entry) {
+            ids[count - 1 - entry] = -current[entry];
+        }
+        return ids;
+    }
+
+    /**
+     * Method to retrieve the products used as sub-assemblies, looked up in the inventory each time it is called.
+     * Sub-assemblies that are no longer in the inventory are left out.
+     * @return Returns an ObservableList of the sub-assemblies, ordered by product id.
+     */
+    public ObservableList<Product> getAllSubAssemblies() {
+        ObservableList<Product> subAssemblies = FXCollections.observableArrayList();
+        for (int productId : getSubAssemblyIds()) {
+            Product subAssembly = Inventory.lookupProduct(productId);
+            if (subAssembly != null) {
+                subAssemblies.add(subAssembly);
+            }
+        }
+        return subAssemblies;
+    }
+
+    /**
+     * Method to retrieve the products associated parts list. The list is built from the bill of materials each time it
+     * is called, by looking up each part in the inventory and repeating it once for each unit of its quantity, and is
+     * not kept by the product. Parts that are no longer in the inventory are left out. Changes to the list do not change
+     * the product.
      * @return Returns an ObservableList of parts that represents the products associated parts list.
      */
     public ObservableList<Part> getAllAssociatedParts() {
-        return this.associatedParts;
+        int[] current = bom;
+        int entries = current.length >>> 1;
+        ObservableList<Part> associatedParts = FXCollections.observableArrayList();
+        for (int entry = subAssemblyCount(current); entry < entries; ++entry) {
+            Part part = Inventory.lookupPart(current[entry]);
+            if (part != null) {
+                for (int unit = 0; unit < current[entries + entry]; ++unit) {
+                    associatedParts.add(part);
+                }
+            }
+        }
+        return associatedParts;
     }
 
     /**
-     * Method to get the size of a product's associated parts list.
+     * Method to get the size of a product's associated parts list, the total quantity of its associated parts.
      * @return Returns an int value representing the size of the products associated parts list.
      */
     public int getAssociatedPartsListSize() {
-        return associatedParts.size();
+        int[] current = bom;
+        int size = 0;
+        for (int entry = (current.length >>> 1) + subAssemblyCount(current); entry < current.length; ++entry) {
+            size += current[entry];
+        }
+        return size;
     }
 
     /**
@@ -194,7 +395,95 @@ public class Product {
      * @return Returns a Part object that was at the index of the associated parts list.
      */
     public Part getAssociatedPartAt(int index) {
-        return associatedParts.get(index);
+        return getAllAssociatedParts().get(index);
     }
-}
 
+    /**
+     * Method to get the bill of materials array without copying it. The first half holds the component ids in ascending
+     * order, sub-assemblies negated, and the second half the quantity of each. The array must not be changed.
+     * @return Returns the bill of materials array.
+     */
+    int[] bom() {
+        return bom;
+    }
+
+    /**
+     * Method to replace the whole bill of materials, used when a product is decoded. The array is kept, not copied.
+     * @param bom component ids in ascending order without repeats, followed by the quantity of each, none of them zero
+     */
+    void setBom(int[] bom) {
+        this.bom = bom;
+    }
+
+    /**
+     * Method to set the quantity of one component in the bill of materials, swapping in a new array. The inventory
+     * calls this while holding its write lock, and so can code building a product that has not been added to the
+     * inventory yet.
+     * @param partId id of the part, or the negated id of a sub-assembly
+     * @param quantity new quantity of the component, zero to remove it
+     * @return Returns the quantity the component had before.
+     */
+    int putQuantity(int partId, int quantity) {
+        int[] current = bom;
+        int entries = current.length >>> 1;
+        int entry = Arrays.binarySearch(current, 0, entries, partId);
+        int oldQuantity = entry >= 0 ? current[entries + entry] : 0;
+        if (quantity == oldQuantity) {
+            return oldQuantity;
+        }
+        if (entry >= 0 && quantity != 0) {
+            int[] changed = current.clone();
+            changed[entries + entry] = quantity;
+            bom = changed;
+        }
+        else if (entry >= 0) {
+            int[] changed = new int[current.length - 2];
+            int after = entries - entry - 1;
+            System.arraycopy(current, 0, changed, 0, entry);
+            System.arraycopy(current, entry + 1, changed, entry, after);
+            System.arraycopy(current, entries, changed, entries - 1, entry);
+            System.arraycopy(current, entries + entry + 1, changed, entries - 1 + entry, after);
+            bom = changed;
+        }
+        else {
+            int insertAt = -entry - 1;
+            int[] changed = new int[current.length + 2];
+            int after = entries - insertAt;
+            System.arraycopy(current, 0, changed, 0, insertAt);
+            changed[insertAt] = partId;
+            System.arraycopy(current, insertAt, changed, insertAt + 1, after);
+            System.arraycopy(current, entries, changed, entries + 1, insertAt);
+            changed[entries + 1 + insertAt] = quantity;
+            System.arraycopy(current, entries + insertAt, changed, entries + insertAt + 2, after);
+            bom = changed;
+        }
+        return oldQuantity;
+    }
+
+    /**
+     * Method to get the key a sub-assembly is held under in the bill of materials.
+     * @param productId id of the product used as a sub-assembly
+     * @return Returns the negated product id.
+     * @throws IllegalArgumentException if the id is not positive, since it could not be told apart from a part id
+     */
+    static int subAssemblyKey(int productId) {
+        if (productId <= 0) {
+            throw new IllegalArgumentException("Only a product with a positive id can be used as a sub-assembly.");
+        }
+        return -productId;
+    }
+
+    /**
+     * Method to count the sub-assemblies at the front of a bill of materials.
+     * @param bom bill of materials array
+     * @return Returns the number of entries held under negative ids.
+     */
+    private static int subAssemblyCount(int[] bom) {
+        int entries = bom.length >>> 1;
+        int count = 0;
+        while (count < entries && bom[count] < 0) {
+            ++count;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,328 @@
+package nstaley.inventorysystem;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class works out the values each product rolls up from its bill of materials: what its components cost, and how
+ * many more units could be built from what is in stock. A component is either a part or another product used as a
+ * sub-assembly, so the products form a directed acyclic graph and a product is rolled up after its sub-assemblies. A
+ * sub-assembly counts with the cost rolled up for it, and the units of it that can be used are the ones in stock plus
+ * the ones that could be built. Parts shared by several branches are not netted against each other, so for a product
+ * with sub-assemblies the buildable quantity is an upper bound.
+ * <p>
+ * Components are looked up by id, so a part or sub-assembly replaced in the inventory is picked up without touching the
+ * products that use it. The rolled up values are kept on each product and serve as the memo between evaluations: the
+ * inventory rolls up only the products a change touches and then their ancestors, found through its where-used indexes.
+ * Products are evaluated a level at a time in topological order, each product once, and the products in a level do
+ * not depend on each other, so a large level is split across the common fork/join pool.
+ * @author Nicholas Staley
+ */
+public class ProductRollup {
+    /**
+     * Holds the most products rolled up by one fork/join task before it is split in two.
+     */
+    private static final int TASK_SIZE = 4096;
+    /**
+     * Holds the index of the parts in the inventory.
+     */
+    private final IdIndex<Part> parts;
+    /**
+     * Holds the index of the products in the inventory.
+     */
+    private final IdIndex<Product> products;
+    /**
+     * Holds the index mapping a product id to the products that use it as a sub-assembly.
+     */
+    private final IdIndex<IdIndex<Product>> parents;
+
+    /**
+     * The constructor that initializes the rollup over the indexes of the inventory. The inventory's write lock must be
+     * held whenever the rollup is used.
+     * @param parts index of the parts in the inventory
+     * @param products index of the products in the inventory
+     * @param parents index mapping a product id to the products that use it as a sub-assembly
+     */
+    ProductRollup(IdIndex<Part> parts, IdIndex<Product> products, IdIndex<IdIndex<Product>> parents) {
+        this.parts = parts;
+        this.products = products;
+        this.parents = parents;
+    }
+
+    /**
+     * Method to check if a product uses any sub-assemblies. Sub-assemblies are kept in the bill of materials under
+     * their negated ids, so they sort in front of the parts.
+     * @param product product to be checked
+     * @return Returns true if the product has at least one sub-assembly.
+     */
+    static boolean hasSubAssemblies(Product product) {
+        int[] bom = product.bom();
+        return bom.length != 0 && bom[0] < 0;
+    }
+
+    /**
+     * Method to roll up the cost and buildable quantity of one product from its bill of materials, using the values
+     * already rolled up for its sub-assemblies. A component that is not in the inventory costs nothing and none of it
+     * is available.
+     * @param product product to be rolled up
+     */
+    void rollUp(Product product) {
+        int[] bom = product.bom();
+        int entries = bom.length >>> 1;
+        double cost = 0;
+        long buildable = entries == 0 ? 0 : Integer.MAX_VALUE;
+        for (int entry = 0; entry < entries; ++entry) {
+            int quantity = bom[entries + entry];
+            long available = 0;
+            if (bom[entry] < 0) {
+                Product subAssembly = products.get(-bom[entry]);
+                if (subAssembly != null) {
+                    cost += subAssembly.getPartsCost() * quantity;
+                    available = Math.max(subAssembly.getStock(), 0) + (long) subAssembly.getBuildableQuantity();
+                }
+            }
+            else {
+                Part part = parts.get(bom[entry]);
+                if (part != null) {
+                    cost += part.getPrice() * quantity;
+                    available = Math.max(part.getStock(), 0);
+                }
+            }
+            buildable = Math.min(buildable, available / quantity);
+        }
+        product.setPartsCost(cost);
+        product.setBuildableQuantity((int) buildable);
+    }
+
+    /**
+     * Method to roll up products that changed and then every product that uses them as a sub-assembly, directly or
+     * through other sub-assemblies. No other product is touched.
+     * @param changed products that changed
+     * @return Returns the changed products followed by their ancestors, in the order they were rolled up.
+     */
+    List<Product> rollUpWithAncestors(Collection<Product> changed) {
+        List<Product> rolledUp = new ArrayList<>(changed);
+        for (Product product : changed) {
+            rollUp(product);
+        }
+        Set<Product> ancestors = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Product> pending = new ArrayList<>(changed);
+        while (!pending.isEmpty()) {
+            IdIndex<Product> users = parents.get(pending.remove(pending.size() - 1).getId());
+            if (users != null) {
+                for (Product parent : users.values()) {
+                    if (ancestors.add(parent)) {
+                        pending.add(parent);
+                    }
+                }
+            }
+        }
+        rollUpInOrder(new ArrayList<>(ancestors), rolledUp);
+        return rolledUp;
+    }
+
+    /**
+     * Method to roll up every product in a list. Products without sub-assemblies are rolled up first, and then the
+     * assemblies level by level. The inventory's write lock must be held, and the worker threads rely on it while the
+     * caller waits for them.
+     * @param list products to be rolled up
+     */
+    void rollUpAll(List<Product> list) {
+        List<Product> leaves = new ArrayList<>(list.size());
+        List<Product> assemblies = new ArrayList<>();
+        for (Product product : list) {
+            (hasSubAssemblies(product) ? assemblies : leaves).add(product);
+        }
+        rollUpLevel(leaves.toArray(new Product[0]));
+        rollUpInOrder(assemblies, null);
+    }
+
+    /**
+     * Method to find the total quantity of each part needed to build one unit of a product, following its
+     * sub-assemblies down to the parts. A sub-assembly used in more than one place is only expanded once.
+     * @param product product to be expanded
+     * @return Returns the quantity of each part needed, keyed by part id in ascending order.
+     */
+    Map<Integer, Long> leafPartDemand(Product product) {
+        return new TreeMap<>(leafPartDemand(product, new HashMap<>()));
+    }
+
+    /**
+     * Method to check if using one product as a sub-assembly of another would make a cycle, which is when the
+     * sub-assembly already uses the other product, directly or through its own sub-assemblies. The search goes up from
+     * the product through the products that use it, so a product nothing uses yet is checked at once.
+     * @param productId id of the product that would use the sub-assembly
+     * @param subAssemblyId id of the product that would be used
+     * @return Returns true if the change would make a cycle.
+     */
+    boolean createsCycle(int productId, int subAssemblyId) {
+        Set<Integer> visited = new HashSet<>();
+        List<Integer> pending = new ArrayList<>();
+        pending.add(productId);
+        while (!pending.isEmpty()) {
+            int id = pending.remove(pending.size() - 1);
+            if (id == subAssemblyId) {
+                return true;
+            }
+            IdIndex<Product> users = parents.get(id);
+            if (users != null && visited.add(id)) {
+                for (Product user : users.values()) {
+                    pending.add(user.getId());
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Method to roll up a set of products in topological order, each one after the sub-assemblies it uses from the same
+     * set. The products whose sub-assemblies are all done form the next level, which is rolled up in one pass.
+     * @param set products to be rolled up, without repeats
+     * @param rolledUp list the products are added to in the order they were rolled up, or null
+     */
+    private void rollUpInOrder(List<Product> set, List<Product> rolledUp) {
+        Map<Product, Integer> positions = new IdentityHashMap<>();
+        for (int i = 0; i < set.size(); ++i) {
+            positions.put(set.get(i), i);
+        }
+        int[] waiting = new int[set.size()];
+        List<List<Product>> dependents = new ArrayList<>(Collections.nCopies(set.size(), null));
+        List<Product> level = new ArrayList<>();
+        for (int i = 0; i < set.size(); ++i) {
+            int[] bom = set.get(i).bom();
+            for (int entry = 0; entry < bom.length >>> 1 && bom[entry] < 0; ++entry) {
+                Integer position = positions.get(products.get(-bom[entry]));
+                if (position != null) {
+                    if (dependents.get(position) == null) {
+                        dependents.set(position, new ArrayList<>());
+                    }
+                    dependents.get(position).add(set.get(i));
+                    waiting[i] += 1;
+                }
+            }
+            if (waiting[i] == 0) {
+                level.add(set.get(i));
+            }
+        }
+        while (!level.isEmpty()) {
+            rollUpLevel(level.toArray(new Product[0]));
+            if (rolledUp != null) {
+                rolledUp.addAll(level);
+            }
+            List<Product> next = new ArrayList<>();
+            for (Product product : level) {
+                List<Product> users = dependents.get(positions.get(product));
+                if (users != null) {
+                    for (Product user : users) {
+                        if (--waiting[positions.get(user)] == 0) {
+                            next.add(user);
+                        }
+                    }
+                }
+            }
+            level = next;
+        }
+    }
+
+    /**
+     * Method to roll up products that do not depend on each other, split across the common fork/join pool if there are
+     * many of them.
+     * @param level products to be rolled up
+     */
+    private void rollUpLevel(Product[] level) {
+        if (level.length <= TASK_SIZE) {
+            for (Product product : level) {
+                rollUp(product);
+            }
+        }
+        else {
+            ForkJoinPool.commonPool().invoke(new RollUpTask(level, 0, level.length));
+        }
+    }
+
+    /**
+     * Method to find the part demand of a product, using the demand already found for its sub-assemblies.
+     * @param product product to be expanded
+     * @param memo demand found so far in this expansion, keyed by product id
+     * @return Returns the quantity of each part needed, keyed by part id.
+     */
+    private Map<Integer, Long> leafPartDemand(Product product, Map<Integer, Map<Integer, Long>> memo) {
+        Map<Integer, Long> demand = memo.get(product.getId());
+        if (demand != null) {
+            return demand;
+        }
+        demand = new HashMap<>();
+        int[] bom = product.bom();
+        int entries = bom.length >>> 1;
+        for (int entry = 0; entry < entries; ++entry) {
+            long quantity = bom[entries + entry];
+            if (bom[entry] >= 0) {
+                demand.merge(bom[entry], quantity, Long::sum);
+                continue;
+            }
+            Product subAssembly = products.get(-bom[entry]);
+            if (subAssembly != null) {
+                for (Map.Entry<Integer, Long> part : leafPartDemand(subAssembly, memo).entrySet()) {
+                    demand.merge(part.getKey(), part.getValue() * quantity, Long::sum);
+                }
+            }
+        }
+        memo.put(product.getId(), demand);
+        return demand;
+    }
+
+    /**
+     * This class rolls up a range of products, splitting the range in half until it is small enough to do in one task.
+     */
+    private class RollUpTask extends RecursiveAction {
+        /**
+         * Holds the products being rolled up.
+         */
+        private final Product[] level;
+        /**
+         * Holds the index of the first product in the range.
+         */
+        private final int from;
+        /**
+         * Holds the index after the last product in the range.
+         */
+        private final int to;
+
+        /**
+         * The constructor that initializes the task.
+         * @param level products being rolled up
+         * @param from index of the first product in the range
+         * @param to index after the last product in the range
+         */
+        private RollUpTask(Product[] level, int from, int to) {
+            this.level = level;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Method to roll up the range, or split it and roll up both halves in parallel.
+         */
+        @Override
+        protected void compute() {
+            if (to - from <= TASK_SIZE) {
+                for (int i = from; i < to; ++i) {
+                    rollUp(level[i]);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RollUpTask(level, from, middle), new RollUpTask(level, middle, to));
+        }
+    }
+}
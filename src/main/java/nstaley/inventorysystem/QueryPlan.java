@@ -0,0 +1,350 @@
+package nstaley.inventorysystem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class is the plan for running a query, chosen by estimating how many items each way of reading them would give.
+ * The id, name, low stock, price, and stock indexes can each be used when the query has a condition on that field, and
+ * the column store can always be scanned. Reading an item through an index costs a few times as much as checking a
+ * row in a scan, so an index is only used when it is expected to give few enough items to make up for it. The range
+ * indexes are counted only up to the number of items the best plan so far would read, so planning never costs more
+ * than running the best plan. Every condition is checked again on each item read, which intersects the rest of the
+ * conditions with the items the plan reads. A column scan with enough rows left is split across the threads of the
+ * common pool, and gives the same items in the same order as one on a single thread. The plan holds the indexes and
+ * store of the inventory, and must only read them while the inventory lock is held.
+ * @param <T> type of item searched, either part or product
+ * @author Nicholas Staley
+ */
+final class QueryPlan<T> {
+    /**
+     * Holds how many times more it costs to read an item through an index than to check a row in a column scan.
+     */
+    static final int INDEX_ITEM_COST = 4;
+
+    /**
+     * This enum lists the ways a plan can read the items.
+     */
+    enum Access {
+        /**
+         * Reads the one item with the id from the id index.
+         */
+        ID("id index", "by id"),
+        /**
+         * Reads the items under the rarest piece of the name from the name index.
+         */
+        NAME("name index", "in list order"),
+        /**
+         * Reads the items at or below their minimum from the low stock index.
+         */
+        LOW_STOCK("low stock index", "by stock less the minimum and then by id"),
+        /**
+         * Reads the items in the price range from the price index.
+         */
+        PRICE("price index", "by price and then by id"),
+        /**
+         * Reads the items in the stock range from the stock index.
+         */
+        STOCK("stock index", "by stock and then by id"),
+        /**
+         * Checks every row of the column store.
+         */
+        SCAN("column scan", "in list order");
+
+        /**
+         * Holds the name of the way the items are read.
+         */
+        private final String label;
+        /**
+         * Holds the order the items are read in.
+         */
+        private final String order;
+
+        /**
+         * The constructor that initializes a way of reading the items.
+         * @param label name of the way the items are read
+         * @param order order the items are read in
+         */
+        Access(String label, String order) {
+            this.label = label;
+            this.order = order;
+        }
+    }
+
+    /**
+     * Holds the query being planned.
+     */
+    private final InventoryQuery<T> query;
+    /**
+     * Holds the id index of the items.
+     */
+    private final IdIndex<T> byId;
+    /**
+     * Holds the name index of the items.
+     */
+    private final NameIndex<T> names;
+    /**
+     * Holds the low stock index of the items.
+     */
+    private final ReorderIndex<T> reorder;
+    /**
+     * Holds the price index of the items.
+     */
+    private final RangeIndex<T> prices;
+    /**
+     * Holds the stock index of the items.
+     */
+    private final RangeIndex<T> stocks;
+    /**
+     * Holds the list of the items, in the same order as the rows of the column store.
+     */
+    private final List<T> list;
+    /**
+     * Holds the column store of the items.
+     */
+    private final ColumnStore columns;
+    /**
+     * Holds the estimated number of items each way would read, or -1 if the way cannot be used for the query.
+     */
+    private final int[] estimates = new int[Access.values().length];
+    /**
+     * Holds whether the estimate of each way stopped counting early, so the way would read at least that many items.
+     */
+    private final boolean[] cutShort = new boolean[Access.values().length];
+    /**
+     * Holds the way the items are read.
+     */
+    private Access access = Access.SCAN;
+    /**
+     * Holds the estimated cost of the chosen way.
+     */
+    private long cost;
+    /**
+     * Holds the row of the last item read by a column scan.
+     */
+    private int lastRow = 0;
+    /**
+     * Holds the row after the last row checked by a column scan.
+     */
+    private int nextRow = 0;
+
+    /**
+     * The constructor that chooses the plan for a query from the current indexes. The inventory lock must be held and
+     * the indexes must be built.
+     * @param query query to be planned
+     * @param byId id index of the items
+     * @param names name index of the items
+     * @param reorder low stock index of the items
+     * @param prices price index of the items
+     * @param stocks stock index of the items
+     * @param list list of the items
+     * @param columns column store of the items
+     */
+    QueryPlan(InventoryQuery<T> query, IdIndex<T> byId, NameIndex<T> names, ReorderIndex<T> reorder,
+              RangeIndex<T> prices, RangeIndex<T> stocks, List<T> list, ColumnStore columns) {
+        this.query = query;
+        this.byId = byId;
+        this.names = names;
+        this.reorder = reorder;
+        this.prices = prices;
+        this.stocks = stocks;
+        this.list = list;
+        this.columns = columns;
+        Arrays.fill(estimates, -1);
+        estimates[Access.SCAN.ordinal()] = list.size();
+        cost = list.size();
+        if (query.getId() != null) {
+            consider(Access.ID, byId.containsId(query.getId()) ? 1 : 0, false);
+        }
+        if (query.getNameText() != null) {
+            consider(Access.NAME, names.estimate(query.getNameText()), false);
+        }
+        if (query.isAtOrBelowMin()) {
+            consider(Access.LOW_STOCK, reorder.countAtOrBelowReorderPoint(), false);
+        }
+        if (query.hasPriceRange()) {
+            int limit = (int) Math.min(Integer.MAX_VALUE, cost / INDEX_ITEM_COST + 1);
+            int count = prices.count(query.getPriceLow(), query.getPriceHigh(), limit);
+            consider(Access.PRICE, count, count == limit);
+        }
+        if (query.hasStockRange()) {
+            int limit = (int) Math.min(Integer.MAX_VALUE, cost / INDEX_ITEM_COST + 1);
+            int count = stocks.count(query.getStockLow(), query.getStockHigh(), limit);
+            consider(Access.STOCK, count, count == limit);
+        }
+    }
+
+    /**
+     * Method to check if the items are read a batch at a time, each batch starting after the last item of the batch
+     * before, rather than all at once.
+     * @return Returns true if the items are read in batches.
+     */
+    boolean isPaged() {
+        return access == Access.PRICE || access == Access.STOCK || access == Access.SCAN;
+    }
+
+    /**
+     * Method to read the items the plan gives, before the rest of the conditions are checked. The inventory lock must
+     * be held.
+     * @param after last item of the batch before, or null for the first batch, only used if the plan is paged
+     * @param limit most items to read, only used if the plan is paged
+     * @return Returns the items read in the order of the plan, all of them if the plan is not paged.
+     */
+    List<T> candidates(T after, int limit) {
+        switch (access) {
+            case ID:
+                T item = byId.get(query.getId());
+                return item == null ? Collections.emptyList() : Collections.singletonList(item);
+            case NAME:
+                return names.search(query.getNameText());
+            case LOW_STOCK:
+                return reorder.atOrBelowReorderPoint();
+            case PRICE:
+                return prices.range(query.getPriceLow(), query.getPriceHigh(), after, limit);
+            case STOCK:
+                return stocks.range(query.getStockLow(), query.getStockHigh(), after, limit);
+            default:
+                int fromRow = resumeRow(after);
+                if (ParallelScan.worthSplitting(list.size() - fromRow)) {
+                    return scanInParallel(fromRow, limit);
+                }
+                int[] rows = columns.filterRows(fromRow, limit, query.getPriceLow(), query.getPriceHigh(),
+                        query.getStockLow(), query.getStockHigh(), query.isAtOrBelowMin(), query.isAboveMax());
+                return itemsAt(rows, rows.length < limit ? list.size() : fromRow);
+        }
+    }
+
+    /**
+     * Method to describe the plan.
+     * @return Returns the conditions of the query, the way chosen to read the items and what it meets, the conditions
+     * checked on each item read, and the estimate for each way that could be used.
+     */
+    String explain() {
+        List<String> all = query.describeConditions(null);
+        List<String> checked = query.describeConditions(access);
+        List<String> met = new ArrayList<>(all);
+        met.removeAll(checked);
+        StringBuilder text = new StringBuilder();
+        text.append(query.isForParts() ? "parts" : "products");
+        text.append(all.isEmpty() ? " (every item)" : " where " + String.join(" and ", all)).append('\n');
+        text.append("plan: ").append(access.label);
+        text.append(met.isEmpty() ? " reading every item" : " reading " + String.join(" and ", met));
+        text.append(", ").append(access.order).append('\n');
+        text.append("then check: ").append(checked.isEmpty() ? "nothing" : String.join(" and ", checked)).append('\n');
+        text.append("estimates:");
+        for (Access way : Access.values()) {
+            int estimate = estimates[way.ordinal()];
+            if (estimate >= 0) {
+                text.append(' ').append(way.label).append(' ').append(estimate)
+                        .append(cutShort[way.ordinal()] ? "+" : "").append(" items (cost ")
+                        .append(costOf(way, estimate)).append(')')
+                        .append(way == access ? " chosen" : "").append(';');
+            }
+        }
+        text.setLength(text.length() - 1);
+        return text.toString();
+    }
+
+    /**
+     * Method to scan the column store across the threads of the common pool, a window of rows at a time, until enough
+     * matching items are found or the rows run out. Every condition of the query is checked on the threads, so the
+     * names are lowercased in parallel as well.
+     * @param fromRow first row to check
+     * @param limit fewest matching items to find before stopping, unless the rows run out first
+     * @return Returns the matching items in list order, which may be more than limit.
+     */
+    private List<T> scanInParallel(int fromRow, int limit) {
+        List<T> items = new ArrayList<>();
+        int row = fromRow;
+        int window = ParallelScan.windowRows();
+        while (items.size() < limit && row < list.size()) {
+            int end = (int) Math.min(list.size(), (long) row + window);
+            items.addAll(itemsAt(ParallelScan.filter(row, end, this::rowMatches), end));
+            row = end;
+        }
+        return items;
+    }
+
+    /**
+     * Method to check every condition of the query on one row, checking the columns first so that most rows are
+     * turned down without reading the item.
+     * @param row row to check
+     * @return Returns true if the item in the row matches the query.
+     */
+    private boolean rowMatches(int row) {
+        double price = columns.getPrice(row);
+        int stock = columns.getStock(row);
+        return price >= query.getPriceLow() && price <= query.getPriceHigh() && stock >= query.getStockLow()
+                && stock <= query.getStockHigh() && (!query.isAtOrBelowMin() || stock <= columns.getMin(row))
+                && (!query.isAboveMax() || stock > columns.getMax(row)) && query.matches(list.get(row));
+    }
+
+    /**
+     * Method to get the items in rows found by a column scan, remembering where the scan stopped.
+     * @param rows rows found, in order
+     * @param checkedTo row after the last row the scan checked, used if it is past the last row found
+     * @return Returns the items in the rows, in order.
+     */
+    private List<T> itemsAt(int[] rows, int checkedTo) {
+        List<T> items = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            items.add(list.get(row));
+        }
+        if (rows.length > 0) {
+            lastRow = rows[rows.length - 1];
+            nextRow = Math.max(lastRow + 1, checkedTo);
+        }
+        return items;
+    }
+
+    /**
+     * Method to find the row a column scan starts from. If the last item read is still in the row it was read from,
+     * the scan picks up where it stopped. Deletes only move the rows toward the front, so otherwise the last item is
+     * looked for from that row back to the first row, and the scan starts after it. If it was deleted the scan starts
+     * from the row it was in, which now holds the item that came after it.
+     * @param after last item read, or null to start from the first row
+     * @return Returns the row to start the scan from.
+     */
+    private int resumeRow(T after) {
+        if (after == null) {
+            return 0;
+        }
+        if (lastRow < list.size() && list.get(lastRow) == after) {
+            return nextRow;
+        }
+        for (int row = Math.min(lastRow, list.size() - 1); row >= 0; --row) {
+            if (list.get(row) == after) {
+                return row + 1;
+            }
+        }
+        return Math.min(lastRow, list.size());
+    }
+
+    /**
+     * Method to record the estimate of a way of reading the items, choosing it if it costs less than the plan so far.
+     * @param way way of reading the items
+     * @param estimate estimated number of items the way would read
+     * @param isCutShort true if the count stopped early and the way would read at least that many items
+     */
+    private void consider(Access way, int estimate, boolean isCutShort) {
+        estimates[way.ordinal()] = estimate;
+        cutShort[way.ordinal()] = isCutShort;
+        long wayCost = costOf(way, estimate);
+        if (wayCost < cost) {
+            access = way;
+            cost = wayCost;
+        }
+    }
+
+    /**
+     * Method to estimate the cost of reading a number of items a certain way.
+     * @param way way of reading the items
+     * @param estimate estimated number of items read
+     * @return Returns a long value representing the estimated cost, in column rows checked.
+     */
+    private static long costOf(Access way, int estimate) {
+        return way == Access.SCAN ? estimate : (long) estimate * INDEX_ITEM_COST;
+    }
+}
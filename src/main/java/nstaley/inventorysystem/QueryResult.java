@@ -0,0 +1,123 @@
+package nstaley.inventorysystem;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class holds the results of a query, read a page at a time. Nothing is read when the query is run; each page
+ * reads only as many items from the plan as it takes to fill it, checking every condition of the query on each one.
+ * When the plan reads from the price or stock index or scans the column store, the items are read in batches under
+ * the read lock, each batch starting after the last item read, so a change made between pages is seen by the pages
+ * after it. The other plans read all of their items when the first page is asked for and check them as the pages are
+ * read.
+ * @param <T> type of item searched, either part or product
+ * @author Nicholas Staley
+ */
+public class QueryResult<T> {
+    /**
+     * Holds the most items read from a paged plan at once.
+     */
+    private static final int CANDIDATE_BATCH = 256;
+    /**
+     * Holds the query being run.
+     */
+    private final InventoryQuery<T> query;
+    /**
+     * Holds the plan used to read the items.
+     */
+    private final QueryPlan<T> plan;
+    /**
+     * Holds the items read from the plan that have not all been checked yet.
+     */
+    private List<T> candidates = Collections.emptyList();
+    /**
+     * Holds the place in the candidates of the next item to check.
+     */
+    private int position = 0;
+    /**
+     * Holds the last item read from the plan, where the next batch starts after.
+     */
+    private T lastCandidate = null;
+    /**
+     * Holds the next matching item, found ahead of being returned, or null if it has not been looked for.
+     */
+    private T next = null;
+    /**
+     * Holds whether any items have been read from the plan yet.
+     */
+    private boolean started = false;
+    /**
+     * Holds whether every item of the plan has been read.
+     */
+    private boolean exhausted = false;
+
+    /**
+     * The constructor that initializes the results of a query before any are read.
+     * @param query query being run
+     * @param plan plan used to read the items
+     */
+    QueryResult(InventoryQuery<T> query, QueryPlan<T> plan) {
+        this.query = query;
+        this.plan = plan;
+    }
+
+    /**
+     * Method to read the next page of matching items.
+     * @param limit most items to return
+     * @return Returns an observable list of up to limit matching items in the order of the plan, empty once there are
+     * no more.
+     */
+    public ObservableList<T> nextPage(int limit) {
+        ObservableList<T> page = FXCollections.observableArrayList();
+        while (page.size() < limit && advance() != null) {
+            page.add(next);
+            next = null;
+        }
+        return page;
+    }
+
+    /**
+     * Method to check if there are more matching items to read, finding the next one if it has not been found yet.
+     * @return Returns true if the next page will not be empty.
+     */
+    public boolean hasMore() {
+        return advance() != null;
+    }
+
+    /**
+     * Method to show the plan used to read the items.
+     * @return Returns a description of the plan chosen when the query was run.
+     */
+    public String explain() {
+        return plan.explain();
+    }
+
+    /**
+     * Method to find the next matching item, reading more items from the plan as they are needed.
+     * @return Returns the next matching item, or null if there are no more.
+     */
+    private T advance() {
+        while (next == null && !exhausted) {
+            if (position == candidates.size()) {
+                if (started && !plan.isPaged()) {
+                    exhausted = true;
+                    break;
+                }
+                candidates = Inventory.readCandidates(plan, lastCandidate, CANDIDATE_BATCH);
+                position = 0;
+                started = true;
+                exhausted = candidates.isEmpty();
+                continue;
+            }
+            T candidate = candidates.get(position++);
+            lastCandidate = candidate;
+            if (query.matches(candidate)) {
+                next = candidate;
+            }
+        }
+        return next;
+    }
+}
@@ -0,0 +1,193 @@
+package nstaley.inventorysystem;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * This class is an ordered index over one number field of parts or products, such as the price or the stock, used for
+ * range searches. The items are kept sorted by the field and then by id, so the items in a range are read from one
+ * place in the index in logarithmic time plus the time to read them, instead of checking every item in the inventory.
+ * Large results are read a page at a time, each page starting after the last item of the page before.
+ * @param <T> type of item held in the index
+ * @author Nicholas Staley
+ */
+public class RangeIndex<T> {
+    /**
+     * Holds the order of the entries, by the indexed field and then by id.
+     */
+    private static final Comparator<Entry<?>> ORDER =
+            Comparator.<Entry<?>>comparingDouble(entry -> entry.key).thenComparingInt(entry -> entry.id);
+    /**
+     * Holds the entries sorted by the indexed field and then by id.
+     */
+    private final TreeSet<Entry<T>> sorted = new TreeSet<>(ORDER);
+    /**
+     * Holds the indexed items keyed by their id.
+     */
+    private final IdIndex<Entry<T>> entries = new IdIndex<>();
+    /**
+     * Function used to get the id of an item.
+     */
+    private final ToIntFunction<T> idOf;
+    /**
+     * Function used to get the indexed field of an item.
+     */
+    private final ToDoubleFunction<T> keyOf;
+
+    /**
+     * This class holds an item in the index along with the values it is sorted by.
+     * @param <T> type of item held in the entry
+     */
+    private static final class Entry<T> {
+        /**
+         * Holds the indexed item.
+         */
+        private final T item;
+        /**
+         * Holds the id of the item.
+         */
+        private final int id;
+        /**
+         * Holds the indexed field of the item.
+         */
+        private final double key;
+
+        /**
+         * The constructor that initializes the entry.
+         * @param item indexed item
+         * @param id id of the item
+         * @param key indexed field of the item
+         */
+        private Entry(T item, int id, double key) {
+            this.item = item;
+            this.id = id;
+            this.key = key;
+        }
+    }
+
+    /**
+     * The constructor that initializes an empty range index.
+     * @param idOf function that gets the id of an item
+     * @param keyOf function that gets the indexed field of an item
+     */
+    public RangeIndex(ToIntFunction<T> idOf, ToDoubleFunction<T> keyOf) {
+        this.idOf = idOf;
+        this.keyOf = keyOf;
+    }
+
+    /**
+     * Method to add an item to the index. An item already in the index with the same id is replaced.
+     * @param item item to be added
+     */
+    public void add(T item) {
+        Entry<T> entry = new Entry<>(item, idOf.applyAsInt(item), keyOf.applyAsDouble(item));
+        Entry<T> replaced = entries.put(entry.id, entry);
+        if (replaced != null) {
+            sorted.remove(replaced);
+        }
+        sorted.add(entry);
+    }
+
+    /**
+     * Method to replace an item in the index with a new item.
+     * @param oldItem item to be replaced
+     * @param newItem item to be used as the replacement
+     */
+    public void replace(T oldItem, T newItem) {
+        remove(oldItem);
+        add(newItem);
+    }
+
+    /**
+     * Method to remove an item from the index.
+     * @param item item to be removed
+     */
+    public void remove(T item) {
+        Entry<T> old = entries.get(idOf.applyAsInt(item));
+        if (old != null && old.item == item) {
+            entries.remove(old.id);
+            sorted.remove(old);
+        }
+    }
+
+    /**
+     * Method to remove every item from the index.
+     */
+    public void clear() {
+        sorted.clear();
+        entries.clear();
+    }
+
+    /**
+     * Method to get the number of items in the index.
+     * @return Returns an int value representing the number of items.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Method to count the items whose field is between two values, including both values, stopping early once the
+     * count reaches a limit so the count costs no more than reading that many items.
+     * @param low lowest value to match
+     * @param high highest value to match
+     * @param limit most items to count
+     * @return Returns an int value representing the number of matching items, or limit if there are at least that
+     * many.
+     */
+    public int count(double low, double high, int limit) {
+        if (!(low <= high) || limit <= 0) {
+            return 0;
+        }
+        NavigableSet<Entry<T>> matches = sorted.subSet(new Entry<>(null, Integer.MIN_VALUE, low), true,
+                new Entry<>(null, Integer.MAX_VALUE, high), true);
+        int count = 0;
+        for (Iterator<Entry<T>> it = matches.iterator(); count < limit && it.hasNext(); it.next()) {
+            count += 1;
+        }
+        return count;
+    }
+
+    /**
+     * Method to find a page of the items whose field is between two values, including both values.
+     * @param low lowest value to match
+     * @param high highest value to match
+     * @param after last item of the page before, or null for the first page
+     * @param limit most items to return
+     * @return Returns up to limit matching items, ordered by the field and then by id. The list is empty if there are
+     * no more matches, or if low is above high or either is not a number.
+     */
+    public List<T> range(double low, double high, T after, int limit) {
+        List<T> page = new ArrayList<>();
+        if (!(low <= high) || limit <= 0) {
+            return page;
+        }
+        Entry<T> from = new Entry<>(null, Integer.MIN_VALUE, low);
+        boolean fromInclusive = true;
+        if (after != null) {
+            Entry<T> last = new Entry<>(null, idOf.applyAsInt(after), keyOf.applyAsDouble(after));
+            if (ORDER.compare(last, from) >= 0) {
+                from = last;
+                fromInclusive = false;
+            }
+        }
+        Entry<T> to = new Entry<>(null, Integer.MAX_VALUE, high);
+        if (ORDER.compare(from, to) > 0) {
+            return page;
+        }
+        NavigableSet<Entry<T>> matches = sorted.subSet(from, fromInclusive, to, true);
+        for (Entry<T> entry : matches) {
+            if (page.size() >= limit) {
+                break;
+            }
+            page.add(entry.item);
+        }
+        return page;
+    }
+}
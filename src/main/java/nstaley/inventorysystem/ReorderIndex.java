@@ -0,0 +1,186 @@
+package nstaley.inventorysystem;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.ToIntFunction;
+
+/**
+ * This class is a low stock index over parts or products, ordering them by their headroom, the stock less the
+ * minimum. An item is at or below its reorder point when its headroom is zero or less. The items are kept sorted, so
+ * the items at or below their reorder point, or the ones closest to running out, are read from the front of the index
+ * without going through the whole inventory, and adding, replacing, or removing an item takes logarithmic time.
+ * @param <T> type of item held in the index
+ * @author Nicholas Staley
+ */
+public class ReorderIndex<T> {
+    /**
+     * Holds the order of the entries, by headroom and then by id.
+     */
+    private static final Comparator<Entry<?>> ORDER =
+            Comparator.<Entry<?>>comparingLong(entry -> entry.headroom).thenComparingInt(entry -> entry.id);
+    /**
+     * Holds the entries sorted by headroom and then by id.
+     */
+    private final TreeSet<Entry<T>> sorted = new TreeSet<>(ORDER);
+    /**
+     * Holds the indexed items keyed by their id.
+     */
+    private final IdIndex<Entry<T>> entries = new IdIndex<>();
+    /**
+     * Function used to get the id of an item.
+     */
+    private final ToIntFunction<T> idOf;
+    /**
+     * Function used to get the stock of an item.
+     */
+    private final ToIntFunction<T> stockOf;
+    /**
+     * Function used to get the minimum stock of an item.
+     */
+    private final ToIntFunction<T> minOf;
+    /**
+     * Holds the number of items at or below their reorder point.
+     */
+    private int atOrBelowCount = 0;
+
+    /**
+     * This class holds an item in the index along with the values it is sorted by.
+     * @param <T> type of item held in the entry
+     */
+    private static final class Entry<T> {
+        /**
+         * Holds the indexed item.
+         */
+        private final T item;
+        /**
+         * Holds the id of the item.
+         */
+        private final int id;
+        /**
+         * Holds the stock of the item less its minimum stock.
+         */
+        private final long headroom;
+
+        /**
+         * The constructor that initializes the entry.
+         * @param item indexed item
+         * @param id id of the item
+         * @param headroom stock of the item less its minimum stock
+         */
+        private Entry(T item, int id, long headroom) {
+            this.item = item;
+            this.id = id;
+            this.headroom = headroom;
+        }
+    }
+
+    /**
+     * The constructor that initializes an empty low stock index.
+     * @param idOf function that gets the id of an item
+     * @param stockOf function that gets the stock of an item
+     * @param minOf function that gets the minimum stock of an item
+     */
+    public ReorderIndex(ToIntFunction<T> idOf, ToIntFunction<T> stockOf, ToIntFunction<T> minOf) {
+        this.idOf = idOf;
+        this.stockOf = stockOf;
+        this.minOf = minOf;
+    }
+
+    /**
+     * Method to add an item to the index. An item already in the index with the same id is replaced.
+     * @param item item to be added
+     */
+    public void add(T item) {
+        Entry<T> entry = new Entry<>(item, idOf.applyAsInt(item),
+                (long) stockOf.applyAsInt(item) - minOf.applyAsInt(item));
+        Entry<T> replaced = entries.put(entry.id, entry);
+        if (replaced != null) {
+            unlink(replaced);
+        }
+        sorted.add(entry);
+        if (entry.headroom <= 0) {
+            atOrBelowCount += 1;
+        }
+    }
+
+    /**
+     * Method to replace an item in the index with a new item.
+     * @param oldItem item to be replaced
+     * @param newItem item to be used as the replacement
+     */
+    public void replace(T oldItem, T newItem) {
+        remove(oldItem);
+        add(newItem);
+    }
+
+    /**
+     * Method to remove an item from the index.
+     * @param item item to be removed
+     */
+    public void remove(T item) {
+        Entry<T> old = entries.get(idOf.applyAsInt(item));
+        if (old != null && old.item == item) {
+            entries.remove(old.id);
+            unlink(old);
+        }
+    }
+
+    /**
+     * Method to remove every item from the index.
+     */
+    public void clear() {
+        sorted.clear();
+        entries.clear();
+        atOrBelowCount = 0;
+    }
+
+    /**
+     * Method to get the items whose stock is at or below their minimum, in the time it takes to read them.
+     * @return Returns the items at or below their reorder point, the lowest headroom first and then by id.
+     */
+    public List<T> atOrBelowReorderPoint() {
+        List<T> items = new ArrayList<>(atOrBelowCount);
+        for (Entry<T> entry : sorted.headSet(new Entry<>(null, Integer.MAX_VALUE, 0), true)) {
+            items.add(entry.item);
+        }
+        return items;
+    }
+
+    /**
+     * Method to get the items closest to running out, the ones with the least stock above their minimum.
+     * @param limit most items to return
+     * @return Returns up to limit items, the lowest headroom first and then by id.
+     */
+    public List<T> closestToStockout(int limit) {
+        List<T> items = new ArrayList<>(Math.min(limit, sorted.size()));
+        for (Entry<T> entry : sorted) {
+            if (items.size() >= limit) {
+                break;
+            }
+            items.add(entry.item);
+        }
+        return items;
+    }
+
+    /**
+     * Method to get the number of items at or below their reorder point, which is kept as items are added and
+     * removed.
+     * @return Returns an int value representing the number of items with stock at or below their minimum.
+     */
+    public int countAtOrBelowReorderPoint() {
+        return atOrBelowCount;
+    }
+
+    /**
+     * Method to remove an entry from the sorted set and the count.
+     * @param entry entry to be removed
+     */
+    private void unlink(Entry<T> entry) {
+        sorted.remove(entry);
+        if (entry.headroom <= 0) {
+            atOrBelowCount -= 1;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package nstaley.inventorysystem;
+
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * This class is a flyweight that reads the fields of one row of a column store at a time. A single cursor is moved from
+ * row to row during a scan, so reading millions of rows does not create an object for each one. The id and name are not
+ * kept in the columns, so they are read from the item in the inventory's list. The cursor is only valid during the scan
+ * that handed it out.
+ * @author Nicholas Staley
+ */
+public class RowCursor {
+    /**
+     * Holds the store the cursor reads from.
+     */
+    private final ColumnStore store;
+    /**
+     * Function used to get the id of the item in a row.
+     */
+    private final IntUnaryOperator idAt;
+    /**
+     * Function used to get the name of the item in a row.
+     */
+    private final IntFunction<String> nameAt;
+    /**
+     * Holds the row the cursor is on.
+     */
+    private int row = -1;
+
+    /**
+     * The constructor that initializes a cursor over a store.
+     * @param store store to read from
+     * @param idAt function that gets the id of the item in a row
+     * @param nameAt function that gets the name of the item in a row
+     */
+    RowCursor(ColumnStore store, IntUnaryOperator idAt, IntFunction<String> nameAt) {
+        this.store = store;
+        this.idAt = idAt;
+        this.nameAt = nameAt;
+    }
+
+    /**
+     * Method to move the cursor to a row.
+     * @param row row to move to
+     */
+    void moveTo(int row) {
+        this.row = row;
+    }
+
+    /**
+     * Method to get the row the cursor is on, which is also the item's index in the inventory list.
+     * @return Returns an int value representing the row.
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * Method to get the id in the current row.
+     * @return Returns the id of the item.
+     */
+    public int getId() {
+        return idAt.applyAsInt(row);
+    }
+
+    /**
+     * Method to get the name in the current row.
+     * @return Returns the name of the item.
+     */
+    public String getName() {
+        return nameAt.apply(row);
+    }
+
+    /**
+     * Method to get the price in the current row.
+     * @return Returns the price of the item.
+     */
+    public double getPrice() {
+        return store.getPrice(row);
+    }
+
+    /**
+     * Method to get the stock in the current row.
+     * @return Returns the stock of the item.
+     */
+    public int getStock() {
+        return store.getStock(row);
+    }
+
+    /**
+     * Method to get the minimum stock in the current row.
+     * @return Returns the minimum stock of the item.
+     */
+    public int getMin() {
+        return store.getMin(row);
+    }
+
+    /**
+     * Method to get the maximum stock in the current row.
+     * @return Returns the maximum stock of the item.
+     */
+    public int getMax() {
+        return store.getMax(row);
+    }
+}
@@ -0,0 +1,98 @@
+package nstaley.inventorysystem;
+
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * This class is a spliterator over a range of rows of a column store, which are also the indexes of the items in the
+ * inventory list. Splitting hands the first half of the rows to a new spliterator and keeps the second half, so the
+ * pieces stay in row order and a scan split across threads can put its results back together in the same order as a
+ * scan on one thread. A range is not split once it is down to a minimum number of rows.
+ * @author Nicholas Staley
+ */
+public class RowSpliterator implements Spliterator.OfInt {
+    /**
+     * Holds the next row to be handed out.
+     */
+    private int row;
+    /**
+     * Holds the row after the last row of the range.
+     */
+    private final int end;
+    /**
+     * Holds the fewest rows a piece may have after a split.
+     */
+    private final int minRows;
+
+    /**
+     * The constructor that initializes a spliterator over a range of rows.
+     * @param fromRow first row of the range
+     * @param toRow row after the last row of the range
+     * @param minRows fewest rows a piece may have after a split
+     */
+    public RowSpliterator(int fromRow, int toRow, int minRows) {
+        this.row = fromRow;
+        this.end = toRow;
+        this.minRows = Math.max(minRows, 1);
+    }
+
+    /**
+     * Method to hand the next row to an action.
+     * @param action action to be given the row
+     * @return Returns true if a row was handed out, false if there were none left.
+     */
+    @Override
+    public boolean tryAdvance(IntConsumer action) {
+        if (row >= end) {
+            return false;
+        }
+        action.accept(row++);
+        return true;
+    }
+
+    /**
+     * Method to hand every row left to an action, in order.
+     * @param action action to be given the rows
+     */
+    @Override
+    public void forEachRemaining(IntConsumer action) {
+        int last = end;
+        for (int next = row; next < last; ++next) {
+            action.accept(next);
+        }
+        row = last;
+    }
+
+    /**
+     * Method to split off the first half of the rows left.
+     * @return Returns a spliterator over the first half of the rows, or null if the range is too small to split.
+     */
+    @Override
+    public RowSpliterator trySplit() {
+        if (end - row < 2 * minRows) {
+            return null;
+        }
+        int middle = (row + end) >>> 1;
+        RowSpliterator prefix = new RowSpliterator(row, middle, minRows);
+        row = middle;
+        return prefix;
+    }
+
+    /**
+     * Method to get the number of rows left.
+     * @return Returns a long value representing the number of rows left.
+     */
+    @Override
+    public long estimateSize() {
+        return Math.max(end - row, 0);
+    }
+
+    /**
+     * Method to get the traits of the rows handed out.
+     * @return Returns an int value representing the traits: ordered, sized, distinct, and never null.
+     */
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | DISTINCT | NONNULL | IMMUTABLE;
+    }
+}
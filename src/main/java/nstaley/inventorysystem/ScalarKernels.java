@@ -0,0 +1,107 @@
+package nstaley.inventorysystem;
+
+import java.util.Arrays;
+
+/**
+ * This class holds the column kernels that check one row at a time. They are used when the vector module is not
+ * present, or when the kernels property is set to scalar.
+ * @author Nicholas Staley
+ */
+public class ScalarKernels implements ColumnKernels {
+    /**
+     * Method to add up price times stock over the first rows of the columns.
+     * @param price price column
+     * @param stock stock column
+     * @param size number of rows
+     * @return Returns a double value representing the total stock value.
+     */
+    @Override
+    public double sumPriceTimesStock(double[] price, int[] stock, int size) {
+        double total = 0;
+        for (int row = 0; row < size; ++row) {
+            total += price[row] * stock[row];
+        }
+        return total;
+    }
+
+    /**
+     * Method to count the rows where the stock is at or below the minimum.
+     * @param stock stock column
+     * @param min minimum stock column
+     * @param size number of rows
+     * @return Returns an int value representing the number of rows at or below their minimum.
+     */
+    @Override
+    public int countStockAtOrBelowMin(int[] stock, int[] min, int size) {
+        int count = 0;
+        for (int row = 0; row < size; ++row) {
+            if (stock[row] <= min[row]) {
+                count += 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Method to find the rows with a price between two values, including both values.
+     * @param price price column
+     * @param size number of rows
+     * @param low lowest price to match
+     * @param high highest price to match
+     * @return Returns the matching rows in order.
+     */
+    @Override
+    public int[] filterPriceBetween(double[] price, int size, double low, double high) {
+        int[] rows = new int[16];
+        int count = 0;
+        for (int row = 0; row < size; ++row) {
+            if (price[row] >= low && price[row] <= high) {
+                if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, count * 2);
+                }
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Method to find the rows matching a price range, a stock range, and optionally a minimum or maximum violation,
+     * checking the rows in order from a starting row until enough are found. The checks are combined without
+     * branching, so each row costs the same whichever checks are in use.
+     * @param price price column
+     * @param stock stock column
+     * @param min minimum stock column
+     * @param max maximum stock column
+     * @param size number of rows
+     * @param fromRow first row to check
+     * @param limit most rows to return
+     * @param priceLow lowest price to match
+     * @param priceHigh highest price to match
+     * @param stockLow lowest stock to match
+     * @param stockHigh highest stock to match
+     * @param atOrBelowMin true to match only the rows with the stock at or below the minimum
+     * @param aboveMax true to match only the rows with the stock above the maximum
+     * @return Returns up to limit matching rows in order.
+     */
+    @Override
+    public int[] filterRows(double[] price, int[] stock, int[] min, int[] max, int size, int fromRow, int limit,
+                            double priceLow, double priceHigh, int stockLow, int stockHigh, boolean atOrBelowMin,
+                            boolean aboveMax) {
+        int[] rows = new int[16];
+        int count = 0;
+        for (int row = Math.max(fromRow, 0); row < size && count < limit; ++row) {
+            int rowStock = stock[row];
+            boolean match = price[row] >= priceLow & price[row] <= priceHigh & rowStock >= stockLow
+                    & rowStock <= stockHigh & (!atOrBelowMin | rowStock <= min[row])
+                    & (!aboveMax | rowStock > max[row]);
+            if (match) {
+                if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, count * 2);
+                }
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+}
@@ -0,0 +1,109 @@
+package nstaley.inventorysystem;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class gives every distinct string an int code and keeps a table to turn the codes back into strings. Storing the
+ * code instead of the string means a value that repeats many times is only kept once, and two values can be compared
+ * by comparing their codes. Codes are never reused, so a code stays valid for as long as the dictionary exists, and a
+ * string stays in the table after the last value using it is gone. A dictionary is only meant for values drawn from a
+ * small set, such as company names, and not for values that are mostly unique, such as item names.
+ * @author Nicholas Staley
+ */
+public class StringDictionary {
+    /**
+     * Holds the dictionary shared by the company names of the outsourced parts.
+     */
+    public static final StringDictionary COMPANY_NAMES = new StringDictionary();
+    /**
+     * Holds the code of every string in the dictionary.
+     */
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    /**
+     * Holds the strings in the dictionary, the index of a string is its code.
+     */
+    private volatile String[] strings = new String[16];
+    /**
+     * Holds the number of strings in the dictionary.
+     */
+    private volatile int size = 0;
+
+    /**
+     * Method to get the code for a string, adding the string to the dictionary if it is not already in it.
+     * @param value string to be encoded, must not be null
+     * @return Returns an int value representing the code of the string.
+     */
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        return codes.computeIfAbsent(value, this::append);
+    }
+
+    /**
+     * Method to get the code for a string that may be null, adding the string to the dictionary if it is not already in
+     * it.
+     * @param value string to be encoded
+     * @return Returns an int value representing the code of the string, or -1 if the string is null.
+     */
+    public int encodeNullable(String value) {
+        return value == null ? -1 : encode(value);
+    }
+
+    /**
+     * Method to get the code for a string without adding it to the dictionary.
+     * @param value string to look up
+     * @return Returns the code of the string, or -1 if the string is not in the dictionary.
+     */
+    public int lookup(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * Method to get the string that has a code.
+     * @param code code of the string
+     * @return Returns the string with the code.
+     */
+    public String decode(int code) {
+        if (code < 0 || code >= size) {
+            throw new IllegalArgumentException("Unknown string code " + code + ".");
+        }
+        return strings[code];
+    }
+
+    /**
+     * Method to get the string that has a code, where -1 stands for null.
+     * @param code code of the string, or -1
+     * @return Returns the string with the code, or null if the code is -1.
+     */
+    public String decodeNullable(int code) {
+        return code == -1 ? null : decode(code);
+    }
+
+    /**
+     * Method to get the number of distinct strings in the dictionary.
+     * @return Returns an int value representing the number of strings.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Method to add a string to the end of the reverse table.
+     * @param value string to be added
+     * @return Returns the code given to the string.
+     */
+    private synchronized Integer append(String value) {
+        String[] table = strings;
+        if (size == table.length) {
+            table = Arrays.copyOf(table, table.length * 2);
+        }
+        table[size] = value;
+        strings = table;
+        size += 1;
+        return size - 1;
+    }
+}
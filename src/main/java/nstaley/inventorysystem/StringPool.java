@@ -0,0 +1,147 @@
+package nstaley.inventorysystem;
+
+/**
+ * This class keeps a single copy of each distinct string held by the items in the inventory, so items with the same
+ * name share one String instead of each holding their own. Unlike a StringDictionary, every string is counted once for
+ * each item holding it and is dropped when the last of them lets go, so the names of deleted or renamed items do not
+ * pile up. The strings are kept in an open addressing table of two parallel arrays, which costs a few bytes a string
+ * rather than a map entry. The pool is not thread safe, the inventory only uses it while holding its write lock.
+ * @author Nicholas Staley
+ */
+public class StringPool {
+    /**
+     * Holds the strings in the pool, with null marking an empty slot.
+     */
+    private String[] values = new String[16];
+    /**
+     * Holds the number of holders of the string in the same slot.
+     */
+    private int[] counts = new int[16];
+    /**
+     * Holds the number of distinct strings in the pool.
+     */
+    private int size = 0;
+
+    /**
+     * Method to get the pooled copy of a string and count one more holder of it, adding the string to the pool if it is
+     * not already in it.
+     * @param value string to be pooled
+     * @return Returns the copy of the string kept by the pool, or null if the string is null.
+     */
+    public String acquire(String value) {
+        if (value == null) {
+            return null;
+        }
+        int slot = find(value);
+        if (values[slot] == null) {
+            if ((size + 1) * 4L > values.length * 3L) {
+                resize(values.length * 2);
+                slot = find(value);
+            }
+            values[slot] = value;
+            size += 1;
+        }
+        counts[slot] += 1;
+        return values[slot];
+    }
+
+    /**
+     * Method to count one less holder of a string, dropping it from the pool when it has none left. Strings that are
+     * not in the pool are ignored.
+     * @param value string that is no longer held
+     */
+    public void release(String value) {
+        if (value == null) {
+            return;
+        }
+        int slot = find(value);
+        if (values[slot] == null) {
+            return;
+        }
+        counts[slot] -= 1;
+        if (counts[slot] == 0) {
+            delete(slot);
+        }
+    }
+
+    /**
+     * Method to get the number of distinct strings in the pool.
+     * @return Returns an int value representing the number of strings.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Method to remove every string from the pool.
+     */
+    public void clear() {
+        values = new String[16];
+        counts = new int[16];
+        size = 0;
+    }
+
+    /**
+     * Method to find the slot holding a string, or the empty slot where it would go.
+     * @param value string to look for
+     * @return Returns the index of the slot.
+     */
+    private int find(String value) {
+        int mask = values.length - 1;
+        int slot = spread(value.hashCode()) & mask;
+        while (values[slot] != null && !values[slot].equals(value)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Method to empty a slot, moving later strings of the same run back so every string can still be found from its
+     * home slot.
+     * @param slot slot to be emptied
+     */
+    private void delete(int slot) {
+        int mask = values.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (values[next] != null) {
+            int home = spread(values[next].hashCode()) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                values[hole] = values[next];
+                counts[hole] = counts[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[hole] = null;
+        counts[hole] = 0;
+        size -= 1;
+    }
+
+    /**
+     * Method to move every string into a table of a new size.
+     * @param capacity number of slots in the new table, a power of two
+     */
+    private void resize(int capacity) {
+        String[] oldValues = values;
+        int[] oldCounts = counts;
+        values = new String[capacity];
+        counts = new int[capacity];
+        for (int i = 0; i < oldValues.length; ++i) {
+            if (oldValues[i] != null) {
+                int slot = find(oldValues[i]);
+                values[slot] = oldValues[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    /**
+     * Method to mix the high bits of a hash code into the low bits used to pick a slot.
+     * @param hash hash code of a string
+     * @return Returns the mixed hash.
+     */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,513 @@
+package nstaley.inventorysystem;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * This class is an append-only log of the changes made to the inventory. Every record gets a log sequence number (LSN)
+ * and a CRC32 checksum, and is written to segment files named after the first LSN they hold. Records are handed to a
+ * background writer thread that writes everything waiting in one go and then syncs the file once for the whole group,
+ * so a burst of changes only costs one fsync. With SYNC durability a caller can wait until its record is on disk, with
+ * BATCHED durability the file is synced on a timer instead.
+ * @author Nicholas Staley
+ */
+public class WriteAheadLog implements AutoCloseable {
+    /**
+     * This enum lists the durability modes of the log.
+     */
+    public enum Durability {
+        /**
+         * Every group of records is synced to disk before the callers waiting on it are released.
+         */
+        SYNC,
+        /**
+         * Records are written right away but only synced to disk every batch interval.
+         */
+        BATCHED
+    }
+
+    /**
+     * Holds the prefix of the segment file names.
+     */
+    private static final String SEGMENT_PREFIX = "wal-";
+    /**
+     * Holds the suffix of the segment file names.
+     */
+    private static final String SEGMENT_SUFFIX = ".log";
+    /**
+     * Holds the number of bytes in a record header, the payload length and the LSN.
+     */
+    private static final int HEADER_SIZE = 12;
+    /**
+     * Holds the number of bytes in a record trailer, the checksum.
+     */
+    private static final int TRAILER_SIZE = 4;
+    /**
+     * Holds the size a segment can reach before a new segment is started.
+     */
+    private static final long MAX_SEGMENT_SIZE = 64L * 1024 * 1024;
+    /**
+     * Holds the number of milliseconds between syncs with BATCHED durability.
+     */
+    private static final long BATCH_INTERVAL_MILLIS = 200;
+
+    /**
+     * Holds the directory the segments are kept in.
+     */
+    private final Path directory;
+    /**
+     * Holds the durability mode of the log.
+     */
+    private final Durability durability;
+    /**
+     * Holds the records waiting for the writer thread.
+     */
+    private List<ByteBuffer> pending = new ArrayList<>();
+    /**
+     * Holds the LSN that will be given to the next record.
+     */
+    private long nextLsn;
+    /**
+     * Holds the highest LSN that has been written to the segment file.
+     */
+    private long writtenLsn;
+    /**
+     * Holds the highest LSN that has been synced to disk.
+     */
+    private long durableLsn;
+    /**
+     * Holds the segment file being written.
+     */
+    private FileChannel segment;
+    /**
+     * Holds the first LSN of the segment being written.
+     */
+    private long segmentFirstLsn;
+    /**
+     * Holds the error that stopped the writer thread, or null if there was none.
+     */
+    private IOException failure;
+    /**
+     * Holds if the log has been closed.
+     */
+    private boolean closed = false;
+    /**
+     * Holds if a caller is waiting for the writer thread to start a new segment.
+     */
+    private boolean rollRequested = false;
+    /**
+     * Holds the background thread that writes and syncs the records.
+     */
+    private final Thread writer;
+
+    /**
+     * The constructor that starts the log after the records already in the directory.
+     * @param directory directory the segments are kept in
+     * @param durability durability mode of the log
+     * @param lastLsn LSN of the last record already in the directory
+     * @throws IOException can throw an IOException if the segment can not be created.
+     */
+    private WriteAheadLog(Path directory, Durability durability, long lastLsn) throws IOException {
+        this.directory = directory;
+        this.durability = durability;
+        nextLsn = lastLsn + 1;
+        writtenLsn = lastLsn;
+        durableLsn = lastLsn;
+        openSegment(nextLsn);
+        writer = new Thread(this::writeLoop, "inventory-wal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Method to open a log for appending. The records already in the directory are replayed first, and new records are
+     * written to a new segment starting after them.
+     * @param directory directory the segments are kept in
+     * @param durability durability mode of the log
+     * @param afterLsn only records with an LSN above this are replayed
+     * @param applier called with the payload of each record replayed
+     * @return Returns the opened log.
+     * @throws IOException can throw an IOException if the directory can not be read or the segment can not be created.
+     */
+    public static WriteAheadLog open(Path directory, Durability durability, long afterLsn, Consumer<byte[]> applier)
+            throws IOException {
+        Files.createDirectories(directory);
+        long lastLsn = Math.max(replay(directory, afterLsn, applier), afterLsn);
+        return new WriteAheadLog(directory, durability, lastLsn);
+    }
+
+    /**
+     * Method to add a record to the log. The record is only queued, it is written by the writer thread.
+     * @param payload bytes of the record
+     * @return Returns the LSN given to the record.
+     */
+    public synchronized long append(byte[] payload) {
+        throwIfFailed();
+        if (closed) {
+            throw new IllegalStateException("The write-ahead log is closed.");
+        }
+        long lsn = nextLsn++;
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + payload.length + TRAILER_SIZE);
+        frame.putInt(payload.length);
+        frame.putLong(lsn);
+        frame.put(payload);
+        CRC32 crc = new CRC32();
+        crc.update(frame.array(), 4, 8 + payload.length);
+        frame.putInt((int) crc.getValue());
+        frame.flip();
+        pending.add(frame);
+        notifyAll();
+        return lsn;
+    }
+
+    /**
+     * Method to wait until a record is safely stored. With SYNC durability this waits for the record to be synced to
+     * disk, with BATCHED durability it returns right away.
+     * @param lsn LSN of the record
+     */
+    public synchronized void awaitDurable(long lsn) {
+        if (durability != Durability.SYNC) {
+            return;
+        }
+        boolean interrupted = false;
+        while (durableLsn < lsn && failure == null && !closed) {
+            try {
+                wait();
+            }
+            catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        throwIfFailed();
+    }
+
+    /**
+     * Method to close the segment being written and start a new one, so every record appended so far is in a segment
+     * that can be deleted once it is covered by a snapshot. Returns once the new segment has been started.
+     */
+    public synchronized void roll() {
+        throwIfFailed();
+        if (closed) {
+            return;
+        }
+        rollRequested = true;
+        notifyAll();
+        boolean interrupted = false;
+        while (rollRequested && failure == null && !closed) {
+            try {
+                wait();
+            }
+            catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        throwIfFailed();
+    }
+
+    /**
+     * Method to get the LSN of the last record appended to the log.
+     * @return Returns the last LSN, or 0 if the log is empty.
+     */
+    public synchronized long getLastLsn() {
+        return nextLsn - 1;
+    }
+
+    /**
+     * Method to get the directory the segments are kept in.
+     * @return Returns the log directory.
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Method to write and sync every queued record and stop the writer thread.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writer.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            segment.close();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        synchronized (this) {
+            throwIfFailed();
+        }
+    }
+
+    /**
+     * Method to read every record in a log directory with an LSN after the one given, in LSN order. Segments that only
+     * hold records at or below that LSN are skipped without being read. Reading stops at the first record that is cut
+     * short, has a length longer than the rest of the segment, or fails its checksum, which is where a crash
+     * interrupted a write; the damaged tail is cut off and any later segments are removed so new records follow the
+     * last good one.
+     * @param directory directory the segments are kept in
+     * @param afterLsn only records with an LSN above this are passed on
+     * @param applier called with the payload of each record
+     * @return Returns the LSN of the last good record in the log, or 0 if there are none.
+     * @throws IOException can throw an IOException if a segment can not be read.
+     */
+    public static long replay(Path directory, long afterLsn, Consumer<byte[]> applier) throws IOException {
+        List<Path> segments = listSegments(directory);
+        long lastLsn = 0;
+        for (int i = 0; i < segments.size(); ++i) {
+            Path path = segments.get(i);
+            if (i + 1 < segments.size() && firstLsnOf(segments.get(i + 1)) - 1 <= afterLsn) {
+                lastLsn = firstLsnOf(segments.get(i + 1)) - 1;
+                continue;
+            }
+            long goodBytes = 0;
+            long segmentBytes = Files.size(path);
+            boolean damaged = false;
+            try (InputStream file = Files.newInputStream(path);
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 16))) {
+                while (true) {
+                    int length;
+                    try {
+                        length = in.readInt();
+                    }
+                    catch (EOFException e) {
+                        break;
+                    }
+                    try {
+                        if (length < 0 || length > segmentBytes - goodBytes - HEADER_SIZE - TRAILER_SIZE) {
+                            damaged = true;
+                            break;
+                        }
+                        long lsn = in.readLong();
+                        byte[] payload = new byte[length];
+                        in.readFully(payload);
+                        int storedCrc = in.readInt();
+                        CRC32 crc = new CRC32();
+                        crc.update(ByteBuffer.allocate(8).putLong(lsn).array());
+                        crc.update(payload);
+                        if ((int) crc.getValue() != storedCrc) {
+                            damaged = true;
+                            break;
+                        }
+                        if (lsn > afterLsn) {
+                            applier.accept(payload);
+                        }
+                        lastLsn = lsn;
+                        goodBytes += HEADER_SIZE + length + TRAILER_SIZE;
+                    }
+                    catch (EOFException e) {
+                        damaged = true;
+                        break;
+                    }
+                }
+            }
+            if (damaged) {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    channel.truncate(goodBytes);
+                }
+                for (int j = i + 1; j < segments.size(); ++j) {
+                    Files.deleteIfExists(segments.get(j));
+                }
+                break;
+            }
+        }
+        return lastLsn;
+    }
+
+    /**
+     * Method to delete the segments whose records all have an LSN at or below the one given, such as after those
+     * records have been saved in a snapshot. The segment being written is never deleted.
+     * @param coveredLsn highest LSN that no longer needs to be kept in the log
+     * @return Returns the number of segments deleted.
+     * @throws IOException can throw an IOException if a segment can not be deleted.
+     */
+    public int deleteSegmentsCoveredBy(long coveredLsn) throws IOException {
+        long currentFirstLsn;
+        synchronized (this) {
+            currentFirstLsn = segmentFirstLsn;
+        }
+        List<Path> segments = listSegments(directory);
+        int deleted = 0;
+        for (int i = 0; i + 1 < segments.size(); ++i) {
+            long nextFirstLsn = firstLsnOf(segments.get(i + 1));
+            if (firstLsnOf(segments.get(i)) >= currentFirstLsn || nextFirstLsn - 1 > coveredLsn) {
+                break;
+            }
+            Files.deleteIfExists(segments.get(i));
+            deleted += 1;
+        }
+        return deleted;
+    }
+
+    /**
+     * Method to get the total size in bytes of the segments in the log directory.
+     * @return Returns a long value representing the size of the log on disk.
+     * @throws IOException can throw an IOException if the directory can not be read.
+     */
+    public long getSizeOnDisk() throws IOException {
+        long bytes = 0;
+        for (Path path : listSegments(directory)) {
+            bytes += Files.size(path);
+        }
+        return bytes;
+    }
+
+    /**
+     * Method run by the writer thread, it writes every waiting record as one group and syncs as the durability mode
+     * asks.
+     */
+    private void writeLoop() {
+        long lastSync = System.currentTimeMillis();
+        while (true) {
+            List<ByteBuffer> group;
+            long groupLsn;
+            boolean closing;
+            boolean rolling;
+            synchronized (this) {
+                while (pending.isEmpty() && !closed && !rollRequested) {
+                    try {
+                        if (durability == Durability.BATCHED && writtenLsn > durableLsn) {
+                            wait(BATCH_INTERVAL_MILLIS);
+                            break;
+                        }
+                        wait();
+                    }
+                    catch (InterruptedException e) {
+                        closed = true;
+                    }
+                }
+                group = pending;
+                pending = new ArrayList<>();
+                groupLsn = nextLsn - 1;
+                closing = closed;
+                rolling = rollRequested;
+            }
+            try {
+                for (ByteBuffer frame : group) {
+                    while (frame.hasRemaining()) {
+                        segment.write(frame);
+                    }
+                }
+                boolean sync = durability == Durability.SYNC || closing
+                        || System.currentTimeMillis() - lastSync >= BATCH_INTERVAL_MILLIS;
+                if (sync) {
+                    segment.force(false);
+                    lastSync = System.currentTimeMillis();
+                }
+                synchronized (this) {
+                    writtenLsn = groupLsn;
+                    if (sync) {
+                        durableLsn = groupLsn;
+                    }
+                    notifyAll();
+                }
+                if ((rolling || segment.size() >= MAX_SEGMENT_SIZE) && !closing && segment.size() > 0) {
+                    segment.force(false);
+                    segment.close();
+                    openSegment(groupLsn + 1);
+                }
+                if (rolling) {
+                    synchronized (this) {
+                        rollRequested = false;
+                        notifyAll();
+                    }
+                }
+            }
+            catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                    notifyAll();
+                }
+                return;
+            }
+            if (closing) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Method to start a new segment file.
+     * @param firstLsn first LSN that will be written to the segment
+     * @throws IOException can throw an IOException if the file can not be created.
+     */
+    private void openSegment(long firstLsn) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstLsn, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        synchronized (this) {
+            segment = channel;
+            segmentFirstLsn = firstLsn;
+        }
+    }
+
+    /**
+     * Method to throw the error that stopped the writer thread, if there was one.
+     */
+    private void throwIfFailed() {
+        if (failure != null) {
+            throw new UncheckedIOException("The write-ahead log could not be written.", failure);
+        }
+    }
+
+    /**
+     * Method to list the segment files in a directory in LSN order.
+     * @param directory directory to list
+     * @return Returns the segment paths, sorted by their first LSN.
+     * @throws IOException can throw an IOException if the directory can not be read.
+     */
+    private static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).forEach(segments::add);
+        }
+        segments.sort((a, b) -> Long.compare(firstLsnOf(a), firstLsnOf(b)));
+        return segments;
+    }
+
+    /**
+     * Method to get the first LSN of a segment from its file name.
+     * @param segmentPath path of the segment
+     * @return Returns the first LSN held by the segment.
+     */
+    private static long firstLsnOf(Path segmentPath) {
+        String name = segmentPath.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
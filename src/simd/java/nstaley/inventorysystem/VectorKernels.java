@@ -0,0 +1,198 @@
+package nstaley.inventorysystem;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+/**
+ * This class holds the column kernels that check several rows at once with the incubating vector API. The price column
+ * is read in vectors of the widest size the processor handles well, and the int columns in vectors with the same
+ * number of lanes, so the bits of the masks from both line up lane for lane. The matching rows are read from the bits
+ * of the mask, and the rows left over after the last full vector are checked one at a time. The class is only built
+ * by the simd profile and can only be loaded when the jdk.incubator.vector module is present, so it is only created,
+ * by name, by ColumnKernels.pick.
+ * @author Nicholas Staley
+ */
+public class VectorKernels implements ColumnKernels {
+    /**
+     * Holds the vector size used for the price column.
+     */
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    /**
+     * Holds the vector size used for the int columns alongside the price column, with the same number of lanes.
+     */
+    private static final VectorSpecies<Integer> INTS_BY_DOUBLE =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2));
+    /**
+     * Holds the vector size used when only int columns are read.
+     */
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+    /**
+     * Method to add up price times stock over the first rows of the columns. The sum is added up in a different order
+     * than the scalar kernel, so the two can differ in the last bits.
+     * @param price price column
+     * @param stock stock column
+     * @param size number of rows
+     * @return Returns a double value representing the total stock value.
+     */
+    @Override
+    public double sumPriceTimesStock(double[] price, int[] stock, int size) {
+        DoubleVector totals = DoubleVector.zero(DOUBLES);
+        int row = 0;
+        for (int bound = DOUBLES.loopBound(size); row < bound; row += DOUBLES.length()) {
+            DoubleVector prices = DoubleVector.fromArray(DOUBLES, price, row);
+            DoubleVector stocks = (DoubleVector) IntVector.fromArray(INTS_BY_DOUBLE, stock, row)
+                    .convertShape(VectorOperators.I2D, DOUBLES, 0);
+            totals = totals.add(prices.mul(stocks));
+        }
+        double total = totals.reduceLanes(VectorOperators.ADD);
+        for (; row < size; ++row) {
+            total += price[row] * stock[row];
+        }
+        return total;
+    }
+
+    /**
+     * Method to count the rows where the stock is at or below the minimum.
+     * @param stock stock column
+     * @param min minimum stock column
+     * @param size number of rows
+     * @return Returns an int value representing the number of rows at or below their minimum.
+     */
+    @Override
+    public int countStockAtOrBelowMin(int[] stock, int[] min, int size) {
+        int count = 0;
+        int row = 0;
+        for (int bound = INTS.loopBound(size); row < bound; row += INTS.length()) {
+            IntVector stocks = IntVector.fromArray(INTS, stock, row);
+            count += stocks.compare(VectorOperators.LE, IntVector.fromArray(INTS, min, row)).trueCount();
+        }
+        for (; row < size; ++row) {
+            if (stock[row] <= min[row]) {
+                count += 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Method to find the rows with a price between two values, including both values.
+     * @param price price column
+     * @param size number of rows
+     * @param low lowest price to match
+     * @param high highest price to match
+     * @return Returns the matching rows in order.
+     */
+    @Override
+    public int[] filterPriceBetween(double[] price, int size, double low, double high) {
+        int[] rows = new int[16];
+        int count = 0;
+        int row = 0;
+        for (int bound = DOUBLES.loopBound(size); row < bound; row += DOUBLES.length()) {
+            DoubleVector prices = DoubleVector.fromArray(DOUBLES, price, row);
+            long bits = prices.compare(VectorOperators.GE, low).and(prices.compare(VectorOperators.LE, high)).toLong();
+            if (bits != 0) {
+                if (count + DOUBLES.length() > rows.length) {
+                    rows = Arrays.copyOf(rows, Math.max(rows.length * 2, count + DOUBLES.length()));
+                }
+                count = addRows(bits, row, rows, count, Integer.MAX_VALUE);
+            }
+        }
+        for (; row < size; ++row) {
+            if (price[row] >= low && price[row] <= high) {
+                if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, count * 2);
+                }
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Method to find the rows matching a price range, a stock range, and optionally a minimum or maximum violation,
+     * checking the rows in order from a starting row until enough are found.
+     * @param price price column
+     * @param stock stock column
+     * @param min minimum stock column
+     * @param max maximum stock column
+     * @param size number of rows
+     * @param fromRow first row to check
+     * @param limit most rows to return
+     * @param priceLow lowest price to match
+     * @param priceHigh highest price to match
+     * @param stockLow lowest stock to match
+     * @param stockHigh highest stock to match
+     * @param atOrBelowMin true to match only the rows with the stock at or below the minimum
+     * @param aboveMax true to match only the rows with the stock above the maximum
+     * @return Returns up to limit matching rows in order.
+     */
+    @Override
+    public int[] filterRows(double[] price, int[] stock, int[] min, int[] max, int size, int fromRow, int limit,
+                            double priceLow, double priceHigh, int stockLow, int stockHigh, boolean atOrBelowMin,
+                            boolean aboveMax) {
+        int[] rows = new int[16];
+        int count = 0;
+        int row = Math.max(fromRow, 0);
+        int lanes = DOUBLES.length();
+        for (; row + lanes <= size && count < limit; row += lanes) {
+            DoubleVector prices = DoubleVector.fromArray(DOUBLES, price, row);
+            IntVector stocks = IntVector.fromArray(INTS_BY_DOUBLE, stock, row);
+            VectorMask<Integer> stockMatch = stocks.compare(VectorOperators.GE, stockLow)
+                    .and(stocks.compare(VectorOperators.LE, stockHigh));
+            if (atOrBelowMin) {
+                stockMatch = stockMatch.and(stocks.compare(VectorOperators.LE,
+                        IntVector.fromArray(INTS_BY_DOUBLE, min, row)));
+            }
+            if (aboveMax) {
+                stockMatch = stockMatch.and(stocks.compare(VectorOperators.GT,
+                        IntVector.fromArray(INTS_BY_DOUBLE, max, row)));
+            }
+            long bits = prices.compare(VectorOperators.GE, priceLow).and(prices.compare(VectorOperators.LE, priceHigh))
+                    .toLong() & stockMatch.toLong();
+            if (bits != 0) {
+                if (count + lanes > rows.length) {
+                    rows = Arrays.copyOf(rows, Math.max(rows.length * 2, count + lanes));
+                }
+                count = addRows(bits, row, rows, count, limit);
+            }
+        }
+        for (; row < size && count < limit; ++row) {
+            int rowStock = stock[row];
+            boolean match = price[row] >= priceLow & price[row] <= priceHigh & rowStock >= stockLow
+                    & rowStock <= stockHigh & (!atOrBelowMin | rowStock <= min[row])
+                    & (!aboveMax | rowStock > max[row]);
+            if (match) {
+                if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, count * 2);
+                }
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Method to add the rows of the set bits of a mask, lowest first, until the limit is reached. There must be room
+     * for a full vector of rows.
+     * @param bits bits of the mask, one for each lane
+     * @param firstRow row of the first lane
+     * @param rows array the rows are added to
+     * @param count number of rows already in the array
+     * @param limit most rows the array may hold
+     * @return Returns an int value representing the new number of rows in the array.
+     */
+    private static int addRows(long bits, int firstRow, int[] rows, int count, int limit) {
+        while (bits != 0 && count < limit) {
+            rows[count++] = firstRow + Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+        }
+        return count;
+    }
+}
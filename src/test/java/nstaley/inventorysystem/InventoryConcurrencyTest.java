@@ -0,0 +1,206 @@
+package nstaley.inventorysystem;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class stress tests the inventory from many threads at once. Writers add, replace, and delete items while readers
+ * run optimistic id lookups and the low stock queries, and afterwards every item is checked against what its writer
+ * did. Each writer owns its own range of ids, since the inventory is shared by every test in the run, so the final
+ * state of a range is known exactly.
+ * @author Nicholas Staley
+ */
+public class InventoryConcurrencyTest {
+    /**
+     * Holds the number of threads making changes.
+     */
+    private static final int WRITERS = 4;
+    /**
+     * Holds the number of threads reading while the changes are made.
+     */
+    private static final int READERS = 4;
+    /**
+     * Holds the number of changes each writer makes.
+     */
+    private static final int CHANGES = 20000;
+    /**
+     * Holds the number of ids owned by each writer.
+     */
+    private static final int IDS_PER_WRITER = 500;
+    /**
+     * Holds the minimum stock of every part the writers add, so about a fifth of them are at or below it.
+     */
+    private static final int MIN = 10;
+
+    /**
+     * Method to check that optimistic lookups never return a part with another id, and that the id index and low stock
+     * index end up matching the changes made by every writer.
+     * @throws InterruptedException can throw an InterruptedException if the test thread is interrupted.
+     */
+    @Test
+    public void lookupsStayConsistentWhileItemsChange() throws InterruptedException {
+        int firstId = 1_000_000;
+        List<Map<Integer, Integer>> expected = new ArrayList<>();
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; ++w) {
+            int base = firstId + w * IDS_PER_WRITER;
+            Map<Integer, Integer> stockById = new HashMap<>();
+            expected.add(stockById);
+            writers.add(new Thread(() -> {
+                await(start);
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < CHANGES; ++i) {
+                    int id = base + random.nextInt(IDS_PER_WRITER);
+                    int stock = random.nextInt(50);
+                    Part existing = Inventory.lookupPart(id);
+                    if (existing == null) {
+                        Inventory.addPart(new InHouse(id, "Stress " + id, 1.0, stock, MIN, 100, 1));
+                        stockById.put(id, stock);
+                    }
+                    else if (random.nextInt(3) == 0) {
+                        Inventory.deletePart(existing);
+                        stockById.remove(id);
+                    }
+                    else {
+                        Inventory.updatePart(id, new InHouse(id, "Stress " + id, 1.0, stock, MIN, 100, 1));
+                        stockById.put(id, stock);
+                    }
+                }
+            }));
+        }
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; ++r) {
+            readers.add(new Thread(() -> {
+                await(start);
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (writing.get()) {
+                    int id = firstId + random.nextInt(WRITERS * IDS_PER_WRITER);
+                    Part part = Inventory.lookupPart(id);
+                    if (part != null && part.getId() != id) {
+                        failures.add("Lookup of " + id + " returned part " + part.getId());
+                    }
+                    for (Part low : Inventory.getPartsClosestToStockout(5)) {
+                        if (low == null) {
+                            failures.add("Low stock list held a null part");
+                        }
+                    }
+                    if (Inventory.countPartsAtOrBelowMin() < 0) {
+                        failures.add("Low stock count went negative");
+                    }
+                }
+            }));
+        }
+        writers.forEach(Thread::start);
+        readers.forEach(Thread::start);
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        writing.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertTrue(failures.isEmpty(), () -> failures.size() + " failures, first: " + failures.peek());
+        int expectedLow = 0;
+        for (int w = 0; w < WRITERS; ++w) {
+            int base = firstId + w * IDS_PER_WRITER;
+            Map<Integer, Integer> stockById = expected.get(w);
+            for (int id = base; id < base + IDS_PER_WRITER; ++id) {
+                Part part = Inventory.lookupPart(id);
+                Integer stock = stockById.get(id);
+                if (stock == null) {
+                    assertNull(part, "Part " + id + " should have been deleted");
+                }
+                else {
+                    assertNotNull(part, "Part " + id + " should be in the inventory");
+                    assertEquals(stock.intValue(), part.getStock(), "Stock of part " + id);
+                    expectedLow += stock <= MIN ? 1 : 0;
+                }
+            }
+        }
+        long actualLow = Inventory.getPartsAtOrBelowMin().stream()
+                .filter(part -> part.getId() >= firstId && part.getId() < firstId + WRITERS * IDS_PER_WRITER)
+                .count();
+        assertEquals(expectedLow, actualLow, "Parts at or below their minimum");
+        long listed = Inventory.getPartsSnapshot().stream()
+                .filter(part -> part.getId() >= firstId && part.getId() < firstId + WRITERS * IDS_PER_WRITER)
+                .count();
+        assertEquals(expected.stream().mapToInt(Map::size).sum(), listed, "Parts in the parts list");
+    }
+
+    /**
+     * Method to check that products changing their bills of materials from many threads at once keep the where-used
+     * index and their rolled up parts cost in step with the quantities they end up with.
+     * @throws InterruptedException can throw an InterruptedException if the test thread is interrupted.
+     */
+    @Test
+    public void billsOfMaterialsStayConsistentWhileChanging() throws InterruptedException {
+        int firstPartId = 2_000_000;
+        int firstProductId = 2_000_000;
+        int sharedParts = 8;
+        for (int i = 0; i < sharedParts; ++i) {
+            Inventory.addPart(new InHouse(firstPartId + i, "Shared " + i, i + 1.0, 100, 0, 1000, 1));
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; ++w) {
+            Product product = new Product(firstProductId + w, "Assembly " + w, 500.0, 1, 0, 10);
+            Inventory.addProduct(product);
+            writers.add(new Thread(() -> {
+                await(start);
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < CHANGES / 4; ++i) {
+                    product.setAssociatedPartQuantity(firstPartId + random.nextInt(sharedParts), random.nextInt(4));
+                }
+            }));
+        }
+        writers.forEach(Thread::start);
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        for (int w = 0; w < WRITERS; ++w) {
+            Product product = Inventory.lookupProduct(firstProductId + w);
+            double expectedCost = 0;
+            for (int i = 0; i < sharedParts; ++i) {
+                int partId = firstPartId + i;
+                int quantity = product.getAssociatedPartQuantity(partId);
+                expectedCost += quantity * (i + 1.0);
+                boolean listed = Inventory.getProductsUsingPart(partId).contains(product);
+                assertEquals(quantity > 0, listed, "Where-used entry of part " + partId + " for " + product.getId());
+            }
+            assertEquals(expectedCost, product.getPartsCost(), 1e-9, "Parts cost of product " + product.getId());
+        }
+    }
+
+    /**
+     * Method to wait for the start signal, so every thread begins at the same moment.
+     * @param start latch counted down once every thread has been started
+     */
+    private static void await(CountDownLatch start) {
+        try {
+            start.await();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package nstaley.inventorysystem;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.Function;
+
+/**
+ * This class runs part of a test against a copy of the inventory classes of its own, loaded by a new class loader, so
+ * the inventory starts out empty and without a log the way it does when the program is started again. Each run stands
+ * for one run of the program. Only JDK types are passed in and out, since the copy's own classes can not be shared with
+ * the test.
+ * @author Nicholas Staley
+ */
+final class InventoryProcess {
+    /**
+     * Holds the name shared by every class that is loaded again for each run.
+     */
+    private static final String PACKAGE_PREFIX = "nstaley.inventorysystem.";
+
+    /**
+     * This class loads the inventory classes itself, before asking its parent, so every run gets its own copy of the
+     * inventory's static state. Every other class, such as the JDK and JavaFX, comes from the parent.
+     */
+    private static final class ChildFirstLoader extends URLClassLoader {
+        /**
+         * The constructor that initializes the loader.
+         * @param urls folders the inventory classes and the test classes are loaded from
+         * @param parent loader every other class is loaded from
+         */
+        private ChildFirstLoader(URL[] urls, ClassLoader parent) {
+            super(urls, parent);
+        }
+
+        /**
+         * Method to load a class, defining the inventory classes in this loader instead of asking the parent.
+         * @param name binary name of the class
+         * @param resolve true to link the class
+         * @return Returns the loaded class.
+         * @throws ClassNotFoundException can throw a ClassNotFoundException if the class can not be found.
+         */
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.startsWith(PACKAGE_PREFIX)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (loaded == null) {
+                    loaded = findClass(name);
+                }
+                if (resolve) {
+                    resolveClass(loaded);
+                }
+                return loaded;
+            }
+        }
+    }
+
+    /**
+     * The constructor is private, since the class only has static methods.
+     */
+    private InventoryProcess() {
+    }
+
+    /**
+     * Method to run a task against a new copy of the inventory. The task's class is loaded again by the new loader and
+     * created with its no-argument constructor, so it sees the new copy when it uses the inventory.
+     * @param task class of the task, which must be public with a public no-argument constructor
+     * @param args arguments handed to the task
+     * @param <R> type of the result, which must be a JDK type
+     * @return Returns the result of the task.
+     */
+    static <R> R run(Class<? extends Function<String[], R>> task, String... args) {
+        URL[] urls = {location(Inventory.class), location(InventoryProcess.class)};
+        try (ChildFirstLoader loader = new ChildFirstLoader(urls, InventoryProcess.class.getClassLoader())) {
+            @SuppressWarnings("unchecked")
+            Function<String[], R> copy = (Function<String[], R>) loader.loadClass(task.getName())
+                    .getDeclaredConstructor().newInstance();
+            return copy.apply(args);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Task " + task.getName() + " could not be created.", e);
+        }
+    }
+
+    /**
+     * Method to find the folder a class was compiled into.
+     * @param type class to look for
+     * @return Returns the URL of the folder holding the class.
+     */
+    private static URL location(Class<?> type) {
+        URL file = type.getResource(type.getSimpleName() + ".class");
+        if (file == null || !"file".equals(file.getProtocol())) {
+            throw new IllegalStateException("The class " + type.getName() + " was not loaded from a folder.");
+        }
+        try {
+            Path folder = Paths.get(file.toURI());
+            for (int i = 0; i < type.getName().split("\\.").length; ++i) {
+                folder = folder.getParent();
+            }
+            return folder.toUri().toURL();
+        }
+        catch (URISyntaxException | MalformedURLException e) {
+            throw new IllegalStateException("The folder of " + type.getName() + " could not be found.", e);
+        }
+    }
+}
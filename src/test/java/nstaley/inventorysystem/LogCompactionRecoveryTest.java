@@ -0,0 +1,312 @@
+package nstaley.inventorysystem;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * This class checks that the inventory comes back whole when the program stops part way through a log compaction or
+ * part way through writing a snapshot. Every run of the program is played by an InventoryProcess, which gets its own
+ * copy of the inventory, so a restart loads the inventory from the log directory with nothing left over from before.
+ * A run that stops early closes its log files without saving anything, the way the operating system would.
+ * @author Nicholas Staley
+ */
+public class LogCompactionRecoveryTest {
+    /**
+     * Holds the log directory used by the test.
+     */
+    private Path directory;
+
+    /**
+     * Method to start each test with a new log directory.
+     * @throws IOException can throw an IOException if the directory can not be created.
+     */
+    @BeforeEach
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("inventory-compaction");
+    }
+
+    /**
+     * Method to delete the log directory after each test.
+     * @throws IOException can throw an IOException if the directory can not be deleted.
+     */
+    @AfterEach
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Method to check a restart after the snapshot was saved but before a new log segment was started.
+     */
+    @Test
+    public void recoversAfterSnapshotSaved() {
+        crashAndRecover(CrashDuringCompaction.class, LogCompactor.Step.SNAPSHOT_SAVED.name());
+    }
+
+    /**
+     * Method to check a restart after a new log segment was started but before the old segments were deleted.
+     */
+    @Test
+    public void recoversAfterLogRolled() {
+        crashAndRecover(CrashDuringCompaction.class, LogCompactor.Step.LOG_ROLLED.name());
+    }
+
+    /**
+     * Method to check a restart after the old segments were deleted but before the compaction was counted.
+     */
+    @Test
+    public void recoversAfterSegmentsDeleted() {
+        crashAndRecover(CrashDuringCompaction.class, LogCompactor.Step.SEGMENTS_DELETED.name());
+    }
+
+    /**
+     * Method to check a restart after the program stopped part way through writing the temporary file of a snapshot,
+     * leaving the first half of it next to the last good snapshot.
+     */
+    @Test
+    public void recoversFromTornSnapshotWrite() {
+        crashAndRecover(CrashWritingSnapshot.class, CrashWritingSnapshot.TORN);
+    }
+
+    /**
+     * Method to check a restart after the program stopped once the temporary file of a snapshot was written and synced
+     * but before it was moved over the last good snapshot.
+     */
+    @Test
+    public void recoversFromSnapshotNotMoved() {
+        crashAndRecover(CrashWritingSnapshot.class, CrashWritingSnapshot.NOT_MOVED);
+    }
+
+    /**
+     * Method to run the program until it stops part way, restart it and check the inventory it loaded, then check that
+     * a full compaction and another restart still give the same inventory.
+     * @param crash task that makes changes and stops part way, returning the inventory it left behind
+     * @param where where the task stops
+     */
+    private void crashAndRecover(Class<? extends Function<String[], TreeMap<Integer, String>>> crash, String where) {
+        TreeMap<Integer, String> expected = InventoryProcess.run(crash, directory.toString(), where);
+
+        assertEquals(expected, InventoryProcess.run(Restart.class, directory.toString(), "false"),
+                "Inventory after restarting from " + where);
+        assertFalse(hasTemporaryFiles(), "Temporary snapshot files left after restarting from " + where);
+
+        InventoryProcess.run(Restart.class, directory.toString(), "true");
+        assertEquals(expected, InventoryProcess.run(Restart.class, directory.toString(), "false"),
+                "Inventory after a full compaction and another restart");
+    }
+
+    /**
+     * Method to check if the log directory holds a temporary snapshot file.
+     * @return Returns true if a temporary snapshot file is in the directory.
+     */
+    private boolean hasTemporaryFiles() {
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory, "*.tmp")) {
+            return leftovers.iterator().hasNext();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * This class is a run of the program that makes changes, is stopped after a step of a compaction, makes more
+     * changes, and then stops. Its arguments are the log directory and the name of the step.
+     */
+    public static class CrashDuringCompaction implements Function<String[], TreeMap<Integer, String>> {
+        /**
+         * Method to make the changes and stop.
+         * @param args log directory and the name of the step the compaction is stopped after
+         * @return Returns a description of the inventory when the run stopped.
+         */
+        @Override
+        public TreeMap<Integer, String> apply(String[] args) {
+            LogCompactor.Step crashStep = LogCompactor.Step.valueOf(args[1]);
+            try {
+                Inventory.openLog(Paths.get(args[0]), WriteAheadLog.Durability.SYNC);
+                makeFirstChanges();
+                LogCompactor crashing = new LogCompactor() {
+                    @Override
+                    void stepFinished(Step step) throws IOException {
+                        if (step == crashStep) {
+                            throw new IOException("Stopped after " + step);
+                        }
+                    }
+                };
+                try {
+                    crashing.compactNow();
+                    throw new IllegalStateException("The compaction was not stopped after " + crashStep + ".");
+                }
+                catch (IOException e) {
+                    // The compaction stopped where it was meant to.
+                }
+                crashing.close();
+                makeLaterChanges();
+                return stop();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * This class is a run of the program that makes changes, saves a snapshot, makes more changes, and stops while
+     * the next snapshot is being written. Its arguments are the log directory and either TORN, for a stop part way
+     * through writing the temporary file, or NOT_MOVED, for a stop after the temporary file was written.
+     */
+    public static class CrashWritingSnapshot implements Function<String[], TreeMap<Integer, String>> {
+        /**
+         * Holds the argument for a stop part way through writing the temporary file.
+         */
+        static final String TORN = "TORN";
+        /**
+         * Holds the argument for a stop after the temporary file was written but before it was moved into place.
+         */
+        static final String NOT_MOVED = "NOT_MOVED";
+
+        /**
+         * Method to make the changes and leave a temporary snapshot file behind the way a write that was cut short
+         * would. The temporary file holds a real snapshot of the later changes, cut in half for a torn write.
+         * @param args log directory and where the write stops
+         * @return Returns a description of the inventory when the run stopped.
+         */
+        @Override
+        public TreeMap<Integer, String> apply(String[] args) {
+            Path logDirectory = Paths.get(args[0]);
+            try {
+                Inventory.openLog(logDirectory, WriteAheadLog.Durability.SYNC);
+                makeFirstChanges();
+                LogCompactor compactor = new LogCompactor();
+                compactor.compactNow();
+                compactor.close();
+                makeLaterChanges();
+
+                Path written = Files.createTempFile("inventory-snapshot", ".bin");
+                try {
+                    Inventory.saveSnapshot(written);
+                    byte[] bytes = Files.readAllBytes(written);
+                    if (TORN.equals(args[1])) {
+                        bytes = Arrays.copyOf(bytes, bytes.length / 2);
+                    }
+                    Files.write(Files.createTempFile(logDirectory, Inventory.SNAPSHOT_FILE_NAME, ".tmp"), bytes);
+                }
+                finally {
+                    Files.delete(written);
+                }
+                return stop();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * This class is a run of the program that loads the inventory from the log directory and stops, after running a
+     * full compaction if asked to. Its arguments are the log directory and true to compact.
+     */
+    public static class Restart implements Function<String[], TreeMap<Integer, String>> {
+        /**
+         * Method to load the inventory and stop.
+         * @param args log directory and true to run a full compaction first
+         * @return Returns a description of the inventory that was loaded.
+         */
+        @Override
+        public TreeMap<Integer, String> apply(String[] args) {
+            try {
+                if (!Inventory.openLog(Paths.get(args[0]), WriteAheadLog.Durability.SYNC)) {
+                    throw new IllegalStateException("Nothing was loaded from the log directory.");
+                }
+                if (Boolean.parseBoolean(args[1])) {
+                    LogCompactor compactor = new LogCompactor();
+                    if (!compactor.compactNow()) {
+                        throw new IllegalStateException("The full compaction did not run.");
+                    }
+                    compactor.close();
+                }
+                return stop();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Method to make the changes recorded before a compaction: parts, a product using two of them, a replaced part,
+     * and a deleted part.
+     */
+    private static void makeFirstChanges() {
+        for (int id = 1; id <= 20; ++id) {
+            Inventory.addPart(new InHouse(id, "Part " + id, id, 10 + id, 5, 100, id));
+        }
+        Product assembly = new Product(1, "Assembly", 200.0, 3, 1, 10);
+        assembly.addAssociatedPart(Inventory.lookupPart(2), 2);
+        assembly.addAssociatedPart(Inventory.lookupPart(3), 1);
+        Inventory.addProduct(assembly);
+        Inventory.updatePart(4, new Outsourced(4, "Part 4 renamed", 4.5, 40, 5, 100, "Acme"));
+        Inventory.deletePart(Inventory.lookupPart(5));
+    }
+
+    /**
+     * Method to make the changes recorded after a compaction: more parts, a deleted part that a product uses, and a
+     * changed bill of materials.
+     */
+    private static void makeLaterChanges() {
+        for (int id = 21; id <= 25; ++id) {
+            Inventory.addPart(new InHouse(id, "Part " + id, id, 10 + id, 5, 100, id));
+        }
+        Inventory.deletePart(Inventory.lookupPart(3));
+        Inventory.lookupProduct(1).setAssociatedPartQuantity(21, 4);
+    }
+
+    /**
+     * Method to end a run of the program without saving anything. The log is closed only so its writer thread and
+     * files do not outlive the run; every record was already synced, so the directory is left as a crash would leave
+     * it.
+     * @return Returns a description of the inventory when the run stopped.
+     */
+    private static TreeMap<Integer, String> stop() {
+        TreeMap<Integer, String> items = describe();
+        Inventory.getLog().close();
+        return items;
+    }
+
+    /**
+     * Method to describe every part and product in the inventory, so two states can be compared.
+     * @return Returns a description of each item keyed by id, with products after parts.
+     */
+    private static TreeMap<Integer, String> describe() {
+        TreeMap<Integer, String> items = new TreeMap<>();
+        for (Part part : Inventory.getPartsSnapshot()) {
+            String kind = part instanceof Outsourced ? ((Outsourced) part).getCompanyName()
+                    : String.valueOf(((InHouse) part).getMachineID());
+            items.put(part.getId(), part.getName() + " " + part.getPrice() + " " + part.getStock() + " "
+                    + part.getMin() + " " + part.getMax() + " " + kind);
+        }
+        for (Product product : Inventory.getProductsSnapshot()) {
+            items.put(-product.getId(), product.getName() + " " + product.getStock() + " "
+                    + Arrays.toString(product.bom()) + " " + product.getPartsCost());
+        }
+        return items;
+    }
+}
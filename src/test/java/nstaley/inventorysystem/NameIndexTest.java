@@ -0,0 +1,100 @@
+package nstaley.inventorysystem;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class checks the n-gram name index against a plain case-insensitive contains check over every item, while items
+ * are added, replaced, and removed. The names are drawn from a few letters in both cases, so short search texts match
+ * many items and longer ones match a few.
+ * @author Nicholas Staley
+ */
+public class NameIndexTest {
+    /**
+     * Holds the letters the names and search texts are made of.
+     */
+    private static final String LETTERS = "abcAB ";
+
+    /**
+     * Method to check every search, from an empty text through one, two, and three characters to longer texts, after
+     * each batch of changes.
+     */
+    @Test
+    public void searchMatchesContainsScan() {
+        Random random = new Random(2002);
+        NameIndex<Part> index = new NameIndex<>(Part::getId, Part::getName);
+        List<Part> listed = new ArrayList<>();
+        int nextId = 1;
+        for (int round = 0; round < 200; ++round) {
+            for (int change = 0; change < 25; ++change) {
+                int kind = random.nextInt(4);
+                if (listed.isEmpty() || kind < 2) {
+                    Part part = part(nextId++, random);
+                    index.add(part);
+                    listed.add(part);
+                }
+                else if (kind == 2) {
+                    int at = random.nextInt(listed.size());
+                    Part replacement = part(listed.get(at).getId(), random);
+                    index.replace(listed.get(at), replacement);
+                    listed.set(at, replacement);
+                }
+                else {
+                    index.remove(listed.remove(random.nextInt(listed.size())));
+                }
+            }
+            for (int length = 0; length <= 6; ++length) {
+                String text = name(random, length);
+                List<Part> expected = scan(listed, text);
+                assertEquals(expected, index.search(text), "Search for \"" + text + "\"");
+                assertTrue(index.estimate(text) >= expected.size(), "Estimate for \"" + text + "\"");
+            }
+        }
+    }
+
+    /**
+     * Method to find the items whose name contains a text, ignoring case, by checking every item.
+     * @param listed items in list order
+     * @param text text to search for
+     * @return Returns the matching items in list order.
+     */
+    private static List<Part> scan(List<Part> listed, String text) {
+        List<Part> matches = new ArrayList<>();
+        for (Part part : listed) {
+            if (part.getName().toLowerCase().contains(text.toLowerCase())) {
+                matches.add(part);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Method to create a part with a random name.
+     * @param id id of the part
+     * @param random source of the name
+     * @return Returns the new part.
+     */
+    private static Part part(int id, Random random) {
+        return new InHouse(id, name(random, random.nextInt(9)), 1.0, 1, 0, 5, 1);
+    }
+
+    /**
+     * Method to make a random text from the test letters.
+     * @param random source of the letters
+     * @param length length of the text
+     * @return Returns the text.
+     */
+    private static String name(Random random, int length) {
+        StringBuilder name = new StringBuilder(length);
+        for (int i = 0; i < length; ++i) {
+            name.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        }
+        return name.toString();
+    }
+}
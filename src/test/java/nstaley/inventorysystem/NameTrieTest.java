@@ -0,0 +1,202 @@
+package nstaley.inventorysystem;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This class checks the type-ahead suggestions of the name trie against filtering a sorted list of the names by their
+ * prefix, while items are added, renamed, and removed. The names are short and drawn from a few letters in both
+ * cases, so names keep being collapsed into one node, pushed down when another name goes through it, and freed when
+ * the last item with them is removed.
+ * @author Nicholas Staley
+ */
+public class NameTrieTest {
+    /**
+     * Holds the letters the names and prefixes are made of.
+     */
+    private static final String LETTERS = "abAB";
+
+    /**
+     * This class holds the spelling the trie keeps for a name and the number of items that have the name.
+     */
+    private static final class Spelling {
+        /**
+         * Holds the spelling added first.
+         */
+        private final String name;
+        /**
+         * Holds the number of items with the name in any spelling.
+         */
+        private int count = 0;
+
+        /**
+         * The constructor that initializes the spelling of a name.
+         * @param name spelling added first
+         */
+        private Spelling(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Method to check the suggestions for prefixes of every length, with buffers of several sizes, after each batch of
+     * changes.
+     */
+    @Test
+    public void suggestionsMatchSortedPrefixFilter() {
+        Random random = new Random(2025);
+        NameTrie<Part> trie = new NameTrie<>(Part::getName);
+        List<Part> held = new ArrayList<>();
+        TreeMap<String, Spelling> names = new TreeMap<>();
+        for (int round = 0; round < 400; ++round) {
+            for (int change = 0; change < 10; ++change) {
+                int kind = random.nextInt(3);
+                if (held.isEmpty() || kind == 0) {
+                    Part part = part(random);
+                    trie.add(part);
+                    held.add(part);
+                    added(names, part.getName());
+                }
+                else if (kind == 1) {
+                    int at = random.nextInt(held.size());
+                    Part renamed = part(random);
+                    trie.replace(held.get(at), renamed);
+                    if (!held.get(at).getName().equals(renamed.getName())) {
+                        removed(names, held.get(at).getName());
+                        added(names, renamed.getName());
+                    }
+                    held.set(at, renamed);
+                }
+                else {
+                    Part part = held.remove(random.nextInt(held.size()));
+                    trie.remove(part);
+                    removed(names, part.getName());
+                }
+            }
+            assertEquals(names.size(), trie.size(), "Names after round " + round);
+            for (int length = 0; length <= 5; ++length) {
+                String prefix = name(random, length);
+                String[] buffer = new String[1 + random.nextInt(names.size() + 2)];
+                checkSuggestions(trie, names, prefix, buffer);
+            }
+        }
+    }
+
+    /**
+     * Method to check a name that is pushed down through several nodes by a longer name sharing its start, and what
+     * is left once either of them is removed.
+     */
+    @Test
+    public void pushDownAndRemoveKeepTheOtherName() {
+        NameTrie<Part> trie = new NameTrie<>(Part::getName);
+        Part bolt = new InHouse(1, "Bolt", 1.0, 1, 0, 5, 1);
+        Part boltCutter = new InHouse(2, "bolt cutter", 1.0, 1, 0, 5, 1);
+        Part bolts = new InHouse(3, "BOLTS", 1.0, 1, 0, 5, 1);
+        trie.add(boltCutter);
+        trie.add(bolt);
+        trie.add(bolts);
+        String[] buffer = new String[5];
+        assertEquals(3, trie.suggest("b", buffer));
+        assertEquals(List.of("Bolt", "bolt cutter", "BOLTS"), Arrays.asList(buffer).subList(0, 3));
+
+        trie.remove(bolt);
+        assertEquals(2, trie.suggest("BOL", buffer));
+        assertEquals(List.of("bolt cutter", "BOLTS"), Arrays.asList(buffer).subList(0, 2));
+        assertEquals(1, trie.suggest("bolt c", buffer));
+        assertEquals("bolt cutter", buffer[0]);
+
+        trie.remove(boltCutter);
+        trie.remove(bolts);
+        assertEquals(0, trie.size());
+        assertEquals(0, trie.suggest("", buffer));
+        trie.add(bolt);
+        assertEquals(1, trie.suggest("bolt", buffer));
+        assertEquals("Bolt", buffer[0]);
+    }
+
+    /**
+     * Method to compare the suggestions of the trie for a prefix with the names that start with it.
+     * @param trie trie being checked
+     * @param names spelling and number of items of each name, keyed by the name in lower case
+     * @param prefix prefix to look up
+     * @param buffer buffer the suggestions are written into
+     */
+    private static void checkSuggestions(NameTrie<Part> trie, TreeMap<String, Spelling> names, String prefix,
+                                         String[] buffer) {
+        List<String> expected = new ArrayList<>();
+        for (String lower : names.tailMap(lower(prefix)).keySet()) {
+            if (!lower.startsWith(lower(prefix)) || expected.size() == buffer.length) {
+                break;
+            }
+            expected.add(names.get(lower).name);
+        }
+        int found = trie.suggest(prefix, buffer);
+        assertEquals(expected, Arrays.asList(buffer).subList(0, found),
+                "Suggestions for \"" + prefix + "\" with room for " + buffer.length);
+    }
+
+    /**
+     * Method to count one more item with a name, keeping the spelling already held for it, the way the trie does.
+     * @param names spelling and number of items of each name, keyed by the name in lower case
+     * @param name name of the item added
+     */
+    private static void added(TreeMap<String, Spelling> names, String name) {
+        names.computeIfAbsent(lower(name), lower -> new Spelling(name)).count += 1;
+    }
+
+    /**
+     * Method to count one less item with a name, dropping the name when no item has it.
+     * @param names spelling and number of items of each name, keyed by the name in lower case
+     * @param name name of the item removed
+     */
+    private static void removed(TreeMap<String, Spelling> names, String name) {
+        Spelling spelling = names.get(lower(name));
+        spelling.count -= 1;
+        if (spelling.count == 0) {
+            names.remove(lower(name));
+        }
+    }
+
+    /**
+     * Method to make each character of a name lower case, the way the trie compares them.
+     * @param name name to be changed
+     * @return Returns the name in lower case.
+     */
+    private static String lower(String name) {
+        StringBuilder lower = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); ++i) {
+            lower.append(Character.toLowerCase(name.charAt(i)));
+        }
+        return lower.toString();
+    }
+
+    /**
+     * Method to create a part with a random name.
+     * @param random source of the name
+     * @return Returns the new part.
+     */
+    private static Part part(Random random) {
+        return new InHouse(1, name(random, random.nextInt(7)), 1.0, 1, 0, 5, 1);
+    }
+
+    /**
+     * Method to make a random text from the test letters.
+     * @param random source of the letters
+     * @param length length of the text
+     * @return Returns the text.
+     */
+    private static String name(Random random, int length) {
+        StringBuilder name = new StringBuilder(length);
+        for (int i = 0; i < length; ++i) {
+            name.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        }
+        return name.toString();
+    }
+}
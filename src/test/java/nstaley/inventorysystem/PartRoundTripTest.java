@@ -0,0 +1,99 @@
+package nstaley.inventorysystem;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * This class checks that parts come back the same after being written to the write-ahead log or to a snapshot and
+ * read again, including an outsourced part with no company name. The log records are applied to the shared inventory,
+ * so they use ids of their own, like the stress tests.
+ * @author Nicholas Staley
+ */
+public class PartRoundTripTest {
+    /**
+     * Holds the first id used by the log record checks.
+     */
+    private static final int FIRST_ID = 3_000_000;
+
+    /**
+     * Method to check that add and update log records bring back outsourced parts with and without a company name, and
+     * in-house parts.
+     */
+    @Test
+    public void logRecordsKeepEveryField() {
+        List<Part> written = List.of(new Outsourced(FIRST_ID, "Bracket", 2.5, 7, 1, 20, "Acme"),
+                new Outsourced(FIRST_ID + 1, "Hinge", 1.25, 3, 0, 10, null),
+                new InHouse(FIRST_ID + 2, "Spacer", 0.75, 40, 5, 100, 12));
+        for (Part part : written) {
+            LogRecordCodec.apply(LogRecordCodec.addPart(part));
+            assertEquals(describe(part), describe(Inventory.lookupPart(part.getId())), "Added part " + part.getId());
+        }
+        Part renamed = new Outsourced(FIRST_ID, "Bracket", 2.5, 7, 1, 20, null);
+        LogRecordCodec.apply(LogRecordCodec.updatePart(FIRST_ID, renamed));
+        assertNull(((Outsourced) Inventory.lookupPart(FIRST_ID)).getCompanyName(), "Company name after the update");
+        renamed = new Outsourced(FIRST_ID + 1, "Hinge", 1.25, 3, 0, 10, "Globex");
+        LogRecordCodec.apply(LogRecordCodec.updatePart(FIRST_ID + 1, renamed));
+        assertEquals("Globex", ((Outsourced) Inventory.lookupPart(FIRST_ID + 1)).getCompanyName());
+    }
+
+    /**
+     * Method to check that a snapshot brings back outsourced parts with and without a company name, and in-house parts.
+     * @throws IOException can throw an IOException if the snapshot can not be written or read.
+     */
+    @Test
+    public void snapshotsKeepEveryField() throws IOException {
+        List<Part> written = List.of(new Outsourced(1, "Bracket", 2.5, 7, 1, 20, "Acme"),
+                new Outsourced(2, "Hinge", 1.25, 3, 0, 10, null),
+                new InHouse(3, "Spacer", 0.75, 40, 5, 100, 12),
+                new Outsourced(4, "", 9.0, 0, 0, 1, ""));
+        Path directory = Files.createTempDirectory("inventory-snapshot");
+        Path file = directory.resolve(Inventory.SNAPSHOT_FILE_NAME);
+        try {
+            InventorySnapshot.write(file, new InventorySnapshot.State(1, 5, 1, written, new ArrayList<>(),
+                    new int[0][]));
+            InventorySnapshot snapshot = InventorySnapshot.open(file);
+            assertEquals(written.size(), snapshot.getPartCount());
+            Part[] read = snapshot.decodeParts();
+            for (int row = 0; row < written.size(); ++row) {
+                assertEquals(describe(written.get(row)), describe(read[row]), "Part in row " + row);
+            }
+        }
+        finally {
+            Files.deleteIfExists(file);
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * Method to check that items in the inventory with the same name share one copy of it.
+     */
+    @Test
+    public void equalNamesAreShared() {
+        Part first = new InHouse(FIRST_ID + 10, new String("Washer"), 0.1, 100, 10, 500, 1);
+        Part second = new InHouse(FIRST_ID + 11, new String("Washer"), 0.1, 100, 10, 500, 1);
+        Inventory.addParts(Arrays.asList(first, second));
+        assertSame(Inventory.lookupPart(FIRST_ID + 10).getName(), Inventory.lookupPart(FIRST_ID + 11).getName());
+    }
+
+    /**
+     * Method to describe every field of a part, so two parts can be compared.
+     * @param part part to be described
+     * @return Returns a description of the part.
+     */
+    private static String describe(Part part) {
+        String kind = part instanceof Outsourced ? "Outsourced " + ((Outsourced) part).getCompanyName()
+                : "InHouse " + ((InHouse) part).getMachineID();
+        return part.getId() + " " + part.getName() + " " + part.getPrice() + " " + part.getStock() + " "
+                + part.getMin() + " " + part.getMax() + " " + kind;
+    }
+}
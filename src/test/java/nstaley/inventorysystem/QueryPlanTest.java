@@ -0,0 +1,252 @@
+package nstaley.inventorysystem;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This class checks the items a query plan reads against checking the query on every item in the list. The plans are
+ * built over indexes and a column store of their own, filled the way the inventory fills its own, with some items
+ * deleted so the rows have moved. The queries are random mixes of conditions, narrow and wide, so every way of reading
+ * the items gets chosen.
+ * @author Nicholas Staley
+ */
+public class QueryPlanTest {
+    /**
+     * Holds the most items read from a paged plan at once, kept small so a query takes many batches.
+     */
+    private static final int BATCH = 7;
+    /**
+     * Holds the company names the outsourced parts are made by.
+     */
+    private static final String[] COMPANIES = {"Acme", "Globex", "Initech"};
+    /**
+     * Holds the name of each way of reading the items, as the plan describes it.
+     */
+    private static final String[] ACCESS_LABELS = {"id index", "name index", "low stock index", "price index",
+            "stock index", "column scan"};
+
+    /**
+     * Holds the parts in list order.
+     */
+    private final List<Part> list = new ArrayList<>();
+    /**
+     * Holds the column store of the parts.
+     */
+    private final ColumnStore columns = new ColumnStore();
+    /**
+     * Holds the id index of the parts.
+     */
+    private final IdIndex<Part> byId = new IdIndex<>();
+    /**
+     * Holds the name index of the parts.
+     */
+    private final NameIndex<Part> names = new NameIndex<>(Part::getId, Part::getName);
+    /**
+     * Holds the low stock index of the parts.
+     */
+    private final ReorderIndex<Part> reorder = new ReorderIndex<>(Part::getId, Part::getStock, Part::getMin);
+    /**
+     * Holds the price index of the parts.
+     */
+    private final RangeIndex<Part> prices = new RangeIndex<>(Part::getId, Part::getPrice);
+    /**
+     * Holds the stock index of the parts.
+     */
+    private final RangeIndex<Part> stocks = new RangeIndex<>(Part::getId, Part::getStock);
+
+    /**
+     * Method to run random queries and check that each plan reads every matching item exactly once, in list order
+     * when it reads by name or scans the columns.
+     */
+    @Test
+    public void plansMatchFullCheck() {
+        Random random = new Random(2021);
+        for (int id = 1; id <= 4000; ++id) {
+            add(part(id, random));
+        }
+        for (int i = 0; i < 400; ++i) {
+            delete(random.nextInt(list.size()));
+        }
+        Set<String> chosen = new HashSet<>();
+        for (int round = 0; round < 500; ++round) {
+            InventoryQuery<Part> query = query(random);
+            QueryPlan<Part> plan = new QueryPlan<>(query, byId, names, reorder, prices, stocks, list, columns);
+            String label = chosenLabel(plan);
+            chosen.add(label);
+
+            List<Part> expected = new ArrayList<>();
+            for (Part part : list) {
+                if (query.matches(part)) {
+                    expected.add(part);
+                }
+            }
+            List<Part> read = read(plan, query);
+            String message = "Query " + round + "\n" + plan.explain();
+            if (label.equals("name index") || label.equals("column scan")) {
+                assertEquals(expected, read, message);
+            }
+            else {
+                read.sort(Comparator.comparingInt(Part::getId));
+                assertEquals(expected.size(), new HashSet<>(read).size(), message);
+                expected.sort(Comparator.comparingInt(Part::getId));
+                assertEquals(expected, read, message);
+            }
+        }
+        assertEquals(Set.of(ACCESS_LABELS), chosen, "Ways of reading the items that were chosen");
+    }
+
+    /**
+     * Method to read every item a plan gives and keep the ones that match, the way the query results do.
+     * @param plan plan of the query
+     * @param query query being run
+     * @return Returns the matching items in the order of the plan.
+     */
+    private static List<Part> read(QueryPlan<Part> plan, InventoryQuery<Part> query) {
+        List<Part> matches = new ArrayList<>();
+        Part after = null;
+        do {
+            List<Part> candidates = plan.candidates(after, BATCH);
+            if (candidates.isEmpty()) {
+                break;
+            }
+            for (Part candidate : candidates) {
+                after = candidate;
+                if (query.matches(candidate)) {
+                    matches.add(candidate);
+                }
+            }
+        } while (plan.isPaged());
+        return matches;
+    }
+
+    /**
+     * Method to find the way of reading the items a plan chose, from its description.
+     * @param plan plan of the query
+     * @return Returns the name of the way the plan reads the items.
+     */
+    private static String chosenLabel(QueryPlan<Part> plan) {
+        String explained = plan.explain();
+        int start = explained.indexOf("plan: ") + "plan: ".length();
+        for (String label : ACCESS_LABELS) {
+            if (explained.startsWith(label, start)) {
+                return label;
+            }
+        }
+        throw new IllegalStateException("The plan was not described: " + explained);
+    }
+
+    /**
+     * Method to make a query out of random conditions.
+     * @param random source of the conditions
+     * @return Returns the new query.
+     */
+    private InventoryQuery<Part> query(Random random) {
+        InventoryQuery<Part> query = InventoryQuery.forParts();
+        if (random.nextInt(8) == 0) {
+            query.id(random.nextBoolean() ? list.get(random.nextInt(list.size())).getId() : random.nextInt(4500));
+        }
+        if (random.nextInt(3) == 0) {
+            query.nameContains(name(random, 1 + random.nextInt(5)));
+        }
+        if (random.nextInt(3) == 0) {
+            double low = random.nextInt(10000) / 100.0;
+            query.priceBetween(low, low + (random.nextBoolean() ? 1.0 : random.nextInt(10000) / 100.0));
+        }
+        if (random.nextInt(3) == 0) {
+            int low = random.nextInt(60);
+            query.stockBetween(low, low + (random.nextBoolean() ? 0 : random.nextInt(60)));
+        }
+        if (random.nextInt(4) == 0) {
+            query.atOrBelowMin();
+        }
+        if (random.nextInt(6) == 0) {
+            query.aboveMax();
+        }
+        switch (random.nextInt(8)) {
+            case 0:
+                query.inHouse();
+                break;
+            case 1:
+                query.outsourced();
+                break;
+            case 2:
+                query.machineId(random.nextInt(5));
+                break;
+            case 3:
+                query.companyName(COMPANIES[random.nextInt(COMPANIES.length)].toUpperCase());
+                break;
+            default:
+                break;
+        }
+        return query;
+    }
+
+    /**
+     * Method to add a part to the end of the list and to every index.
+     * @param part part to be added
+     */
+    private void add(Part part) {
+        list.add(part);
+        columns.append(part.getPrice(), part.getStock(), part.getMin(), part.getMax());
+        byId.put(part.getId(), part);
+        names.add(part);
+        reorder.add(part);
+        prices.add(part);
+        stocks.add(part);
+    }
+
+    /**
+     * Method to delete the part in a row from the list and from every index.
+     * @param row row of the part
+     */
+    private void delete(int row) {
+        Part part = list.remove(row);
+        columns.remove(row);
+        byId.remove(part.getId());
+        names.remove(part);
+        reorder.remove(part);
+        prices.remove(part);
+        stocks.remove(part);
+    }
+
+    /**
+     * Method to create a part with random fields, about a third of them outsourced.
+     * @param id id of the part
+     * @param random source of the fields
+     * @return Returns the new part.
+     */
+    private static Part part(int id, Random random) {
+        String name = name(random, 3 + random.nextInt(8));
+        double price = random.nextInt(10000) / 100.0;
+        int stock = random.nextInt(60);
+        int min = random.nextInt(20);
+        int max = 20 + random.nextInt(40);
+        if (random.nextInt(3) == 0) {
+            return new Outsourced(id, name, price, stock, min, max, COMPANIES[random.nextInt(COMPANIES.length)]);
+        }
+        return new InHouse(id, name, price, stock, min, max, random.nextInt(5));
+    }
+
+    /**
+     * Method to make a random name out of a few letters in both cases.
+     * @param random source of the letters
+     * @param length length of the name
+     * @return Returns the name.
+     */
+    private static String name(Random random, int length) {
+        String letters = "abcdeABC";
+        StringBuilder name = new StringBuilder(length);
+        for (int i = 0; i < length; ++i) {
+            name.append(letters.charAt(random.nextInt(letters.length())));
+        }
+        return name.toString();
+    }
+}
@@ -0,0 +1,105 @@
+package nstaley.inventorysystem;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This class checks the low stock index against a full scan of every item, while items are added, replaced, and
+ * removed. Stock and minimums are drawn from a small range so many items sit on their reorder point, along with a few
+ * extreme values whose headroom does not fit in an int.
+ * @author Nicholas Staley
+ */
+public class ReorderIndexTest {
+    /**
+     * Holds the order the index reads items in, the lowest headroom first and then by id.
+     */
+    private static final Comparator<Part> ORDER = Comparator.<Part>comparingLong(ReorderIndexTest::headroom)
+            .thenComparingInt(Part::getId);
+
+    /**
+     * Method to check the count, the items at or below their reorder point, and the items closest to running out after
+     * each batch of changes.
+     */
+    @Test
+    public void readsMatchFullScan() {
+        Random random = new Random(2019);
+        ReorderIndex<Part> index = new ReorderIndex<>(Part::getId, Part::getStock, Part::getMin);
+        TreeMap<Integer, Part> held = new TreeMap<>();
+        for (int round = 0; round < 300; ++round) {
+            for (int change = 0; change < 20; ++change) {
+                int id = random.nextInt(400);
+                Part old = held.get(id);
+                int kind = random.nextInt(4);
+                if (old == null || kind == 0) {
+                    Part part = part(id, random);
+                    index.add(part);
+                    held.put(id, part);
+                }
+                else if (kind == 1) {
+                    Part part = part(id, random);
+                    index.replace(old, part);
+                    held.put(id, part);
+                }
+                else if (kind == 2) {
+                    index.remove(old);
+                    held.remove(id);
+                }
+                else {
+                    index.remove(part(id, random));
+                }
+            }
+            List<Part> all = new ArrayList<>(held.values());
+            all.sort(ORDER);
+            List<Part> low = new ArrayList<>();
+            for (Part part : all) {
+                if (headroom(part) <= 0) {
+                    low.add(part);
+                }
+            }
+            assertEquals(low.size(), index.countAtOrBelowReorderPoint(), "Count after round " + round);
+            assertEquals(low, index.atOrBelowReorderPoint(), "Low stock items after round " + round);
+            int limit = random.nextInt(all.size() + 5);
+            assertEquals(all.subList(0, Math.min(limit, all.size())), index.closestToStockout(limit),
+                    "Closest " + limit + " items after round " + round);
+        }
+        index.clear();
+        assertEquals(0, index.countAtOrBelowReorderPoint());
+        assertEquals(List.of(), index.closestToStockout(10));
+    }
+
+    /**
+     * Method to get the stock of a part less its minimum, without overflowing.
+     * @param part part to be checked
+     * @return Returns the headroom of the part.
+     */
+    private static long headroom(Part part) {
+        return (long) part.getStock() - part.getMin();
+    }
+
+    /**
+     * Method to create a part with random stock and minimum.
+     * @param id id of the part
+     * @param random source of the stock levels
+     * @return Returns the new part.
+     */
+    private static Part part(int id, Random random) {
+        int stock;
+        int min;
+        if (random.nextInt(50) == 0) {
+            stock = random.nextBoolean() ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+            min = random.nextBoolean() ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+        }
+        else {
+            stock = random.nextInt(20);
+            min = random.nextInt(20);
+        }
+        return new InHouse(id, "Part " + id, 1.0, stock, min, Integer.MAX_VALUE, 1);
+    }
+}